@@ -0,0 +1,201 @@
+import benchmarks.GameTarget;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * This class implements the bridge between the JMH benchmarks and the game classes
+ * (see benchmarks.GameTarget), on a position of BenchmarkPositions.
+ */
+public class JmhGameTarget implements GameTarget {
+
+    // Fields
+    /** The token of the player who moves first. */
+    private final Token first = new Token(BoardGui.humanPlayerSymbol);
+    /** The token of the other player. */
+    private final Token second = new Token(BoardGui.robotPlayerSymbol);
+    /** The board of the position. */
+    private Board board;
+    /** The board used by the random playouts. */
+    private Board playoutBoard;
+    /** The game logic of the position. */
+    private GameLogic gameLogic;
+    /** The robot player to move in the position. */
+    private PlayerRobot robot;
+    /** The token of the player to move in the position. */
+    private Token toMove;
+    /** The evaluator following the position. */
+    private Evaluator evaluator;
+    /** The state of the random generator of the playouts (xorshift). */
+    private long randomState = 0x9E3779B97F4A7C15L;
+    /** The slot of the GUI painted by the rendering benchmarks. */
+    private CirclePanel slot;
+    /** The image the slot is painted on. */
+    private BufferedImage slotImage;
+    /** The graphics of the image. */
+    private Graphics2D slotGraphics;
+
+    // Methods
+    @Override
+    public String getMidGamePosition(int index) {
+        return BenchmarkPositions.MID_GAME[index];
+    }
+
+    @Override
+    public void setUp(String variant, String moves, int searchDepth) {
+        board = BenchmarkPositions.boardOf(Board.parse(variant), moves, first, second);
+        playoutBoard = Board.parse(variant);
+        toMove = BenchmarkPositions.toMove(moves, first, second);
+        robot = new PlayerRobot(toMove, board, searchDepth);
+        Player other = new PlayerHuman((toMove == first) ? second : first);
+        gameLogic = new GameLogic(board, robot, other);
+        evaluator = new Evaluator(board);
+        evaluator.reset(board);
+    }
+
+    @Override
+    public void tearDown() {
+        gameLogic.abandon();
+        robot.close();
+    }
+
+    @Override
+    public int getNumberColumns() {
+        return board.getNumberColumns();
+    }
+
+    @Override
+    public boolean checkHorizontally() {
+        return board.checkHorizontally();
+    }
+
+    @Override
+    public boolean checkVertically() {
+        return board.checkVertically();
+    }
+
+    @Override
+    public boolean checkDiagonally() {
+        return board.checkDiagonally();
+    }
+
+    @Override
+    public int getFirstAvailableRow(int col) {
+        return board.getFirstAvailableRow(col);
+    }
+
+    @Override
+    public int playEveryColumn() {
+        int wins = 0;
+        for (int col = 0; col < board.getNumberColumns(); col++) {
+            if (board.isValidMove(col)) {
+                if (board.play(col, toMove)) {
+                    wins++;
+                }
+                board.undo();
+            }
+        }
+        return wins;
+    }
+
+    @Override
+    public int evaluate() {
+        return evaluator.evaluate(board.getPlayerIndex(toMove));
+    }
+
+    @Override
+    public int playEveryColumnAndEvaluate() {
+        int side = board.getPlayerIndex(toMove);
+        int sum = 0;
+        for (int col = 0; col < board.getNumberColumns(); col++) {
+            if (board.isValidMove(col)) {
+                int row = board.getFirstAvailableRow(col);
+                evaluator.play(side, row, col);
+                sum += evaluator.evaluate(1 - side);
+                evaluator.undo(side, row, col);
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public int resetAndEvaluate() {
+        evaluator.reset(board);
+        return evaluator.evaluate(board.getPlayerIndex(toMove));
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return gameLogic.isGameOver();
+    }
+
+    @Override
+    public boolean isDraw() {
+        return gameLogic.isDraw();
+    }
+
+    @Override
+    public void resetRobot() {
+        TranspositionTable transpositionTable = robot.getSearch().getMainEngine().getTranspositionTable();
+        if (transpositionTable != null) {
+            transpositionTable.clear();
+        }
+    }
+
+    @Override
+    public int chooseColumn() {
+        return robot.chooseColumn();
+    }
+
+    @Override
+    public int randomPlayout() {
+        playoutBoard.copyFrom(board);
+        Token token = toMove;
+        int sign = 1;
+        while (!playoutBoard.areAllColumnsFull()) {
+            int col = nextColumn();
+            while (playoutBoard.isColumnFull(col)) {
+                col = nextColumn();
+            }
+            if (playoutBoard.play(col, token)) {
+                return sign;
+            }
+            token = (token == first) ? second : first;
+            sign = -sign;
+        }
+        return 0;
+    }
+
+    @Override
+    public void setUpSlot(int width, int height) {
+        slot = new CirclePanel(new DiscSprites());
+        slot.setSize(width, height);
+        slot.setColor(Color.RED);
+        slotImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        slotGraphics = slotImage.createGraphics();
+    }
+
+    @Override
+    public int paintCachedSlot() {
+        slot.paint(slotGraphics);
+        return slotImage.getRGB(slotImage.getWidth() / 2, slotImage.getHeight() / 2);
+    }
+
+    @Override
+    public int paintUncachedSlot() {
+        DiscSprites.paintCell(slotGraphics, slotImage.getWidth(), slotImage.getHeight(), Color.RED);
+        return slotImage.getRGB(slotImage.getWidth() / 2, slotImage.getHeight() / 2);
+    }
+
+    /**
+     * This method returns a random column with a xorshift generator, which does not allocate.
+     * @return the random column.
+     */
+    private int nextColumn() {
+        randomState ^= randomState << 13;
+        randomState ^= randomState >>> 7;
+        randomState ^= randomState << 17;
+        return (int) ((randomState >>> 33) % playoutBoard.getNumberColumns());
+    }
+}
@@ -0,0 +1,63 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the end of game checks of GameLogic,
+ * on each of the mid-game positions of BenchmarkPositions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameLogicBenchmark {
+
+    /** The index of the position in BenchmarkPositions.MID_GAME. */
+    @Param({"0", "1", "2", "3", "4", "5", "6", "7"})
+    public int position;
+
+    /** The bridge to the game classes. */
+    private GameTarget target;
+
+    /**
+     * Sets up the position.
+     */
+    @Setup
+    public void setUp() {
+        target = GameTarget.create();
+        target.setUp(target.getMidGamePosition(position), 1);
+    }
+
+    /**
+     * Abandons the game of the position.
+     */
+    @TearDown
+    public void tearDown() {
+        target.tearDown();
+    }
+
+    @Benchmark
+    public boolean isGameOver() {
+        return target.isGameOver();
+    }
+
+    @Benchmark
+    public boolean isDraw() {
+        return target.isDraw();
+    }
+}
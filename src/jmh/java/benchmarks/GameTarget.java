@@ -0,0 +1,162 @@
+package benchmarks;
+
+/**
+ * This interface is the bridge between the JMH benchmarks and the game classes.
+ * JMH does not accept benchmarks in the default package, where the game classes are,
+ * and a class in a named package cannot refer to the default package. Therefore the
+ * benchmarks only see this interface, and its implementation, JmhGameTarget in the
+ * default package, is loaded by name. Each call through the interface has a single
+ * implementation, so the JIT inlines it and it does not affect the measures.
+ */
+public interface GameTarget {
+
+    /**
+     * This method creates a new instance of the implementation in the default package.
+     * @return the game target.
+     */
+    static GameTarget create() {
+        try {
+            return (GameTarget) Class.forName("JmhGameTarget").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot load the game target", e);
+        }
+    }
+
+    /**
+     * This method returns a mid-game position of BenchmarkPositions.
+     * @param index the index of the position in BenchmarkPositions.MID_GAME.
+     * @return the move sequence of the position.
+     */
+    String getMidGamePosition(int index);
+
+    /**
+     * This method sets up the board, the game logic and the robot player of a position, on a default board.
+     * @param moves the move sequence of the position, one column per character.
+     * @param searchDepth the search depth of the robot player.
+     */
+    default void setUp(String moves, int searchDepth) {
+        setUp("7x6", moves, searchDepth);
+    }
+
+    /**
+     * This method sets up the board, the game logic and the robot player of a position,
+     * on a board of any variant.
+     * @param variant the variant of the board, as read by Board.parse.
+     * @param moves the move sequence of the position, one column per character.
+     * @param searchDepth the search depth of the robot player.
+     */
+    void setUp(String variant, String moves, int searchDepth);
+
+    /**
+     * This method abandons the game logic set up by setUp, which counts as a game in progress in GameMetrics,
+     * and closes the robot player.
+     */
+    void tearDown();
+
+    /**
+     * This method returns the number of columns of the board.
+     * @return the number of columns.
+     */
+    int getNumberColumns();
+
+    /**
+     * This method calls Board.checkHorizontally.
+     * @return the result of the call.
+     */
+    boolean checkHorizontally();
+
+    /**
+     * This method calls Board.checkVertically.
+     * @return the result of the call.
+     */
+    boolean checkVertically();
+
+    /**
+     * This method calls Board.checkDiagonally.
+     * @return the result of the call.
+     */
+    boolean checkDiagonally();
+
+    /**
+     * This method calls Board.getFirstAvailableRow.
+     * @param col the column.
+     * @return the result of the call.
+     */
+    int getFirstAvailableRow(int col);
+
+    /**
+     * This method drops a token of the player to move in every column that is not full with Board.play,
+     * which tells if it wins, and takes it back with Board.undo.
+     * @return the number of winning columns.
+     */
+    int playEveryColumn();
+
+    /**
+     * This method calls Evaluator.evaluate for the player to move, on the evaluator set up with the position.
+     * @return the result of the call.
+     */
+    int evaluate();
+
+    /**
+     * This method adds a token of the player to move to the evaluator in every column that is not full,
+     * evaluates the position and takes the token back, as the search does at its last depth.
+     * @return the sum of the scores.
+     */
+    int playEveryColumnAndEvaluate();
+
+    /**
+     * This method calls Evaluator.reset with the board of the position, then Evaluator.evaluate.
+     * @return the result of the evaluation.
+     */
+    int resetAndEvaluate();
+
+    /**
+     * This method calls GameLogic.isGameOver.
+     * @return the result of the call.
+     */
+    boolean isGameOver();
+
+    /**
+     * This method calls GameLogic.isDraw.
+     * @return the result of the call.
+     */
+    boolean isDraw();
+
+    /**
+     * This method clears the transposition table of the robot player,
+     * so that each move is searched from scratch.
+     */
+    void resetRobot();
+
+    /**
+     * This method calls PlayerRobot.chooseColumn.
+     * @return the result of the call.
+     */
+    int chooseColumn();
+
+    /**
+     * This method plays random moves from the position until the game is over.
+     * @return 1 if the player to move in the position wins, -1 if it loses, 0 for a draw.
+     */
+    int randomPlayout();
+
+    /**
+     * This method sets up a slot of the GUI (CirclePanel) holding a disc, and an image of the same size to paint it on.
+     * @param width the width of the slot.
+     * @param height the height of the slot.
+     */
+    void setUpSlot(int width, int height);
+
+    /**
+     * This method paints the slot on the image, with the cached images of DiscSprites.
+     * @return a pixel of the image.
+     */
+    int paintCachedSlot();
+
+    /**
+     * This method paints the slot on the image from scratch with DiscSprites.paintCell,
+     * as every repaint did before the images were cached.
+     * @return a pixel of the image.
+     */
+    int paintUncachedSlot();
+}
@@ -0,0 +1,58 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the number of random games played to the end per second,
+ * from the empty board and from a mid-game position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayoutBenchmark {
+
+    /** The move sequence of the starting position. */
+    @Param({"", "3323151322122"})
+    public String moves;
+
+    /** The bridge to the game classes. */
+    private GameTarget target;
+
+    /**
+     * Sets up the starting position.
+     */
+    @Setup
+    public void setUp() {
+        target = GameTarget.create();
+        target.setUp(moves, 1);
+    }
+
+    /**
+     * Abandons the game of the position.
+     */
+    @TearDown
+    public void tearDown() {
+        target.tearDown();
+    }
+
+    @Benchmark
+    public int randomPlayout() {
+        return target.randomPlayout();
+    }
+}
@@ -0,0 +1,54 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the painting of a slot of the GUI holding a disc, with the cached images of DiscSprites
+ * and from scratch, on an off-screen image so that they run without a display.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+
+    /** The size of the slot in pixels, the one of the default window and a larger one. */
+    @Param({"100", "300"})
+    public int size;
+
+    /** The bridge to the game classes. */
+    private GameTarget target;
+
+    /**
+     * Sets up the slot.
+     */
+    @Setup
+    public void setUp() {
+        target = GameTarget.create();
+        target.setUpSlot(size, size * 6 / 7);
+    }
+
+    @Benchmark
+    public int paintCachedSlot() {
+        return target.paintCachedSlot();
+    }
+
+    @Benchmark
+    public int paintUncachedSlot() {
+        return target.paintUncachedSlot();
+    }
+}
@@ -0,0 +1,71 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of PlayerRobot.chooseColumn on each of the mid-game positions of BenchmarkPositions.
+ * The transposition table is cleared before each call, so that every call searches from scratch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RobotBenchmark {
+
+    /** The index of the position in BenchmarkPositions.MID_GAME. */
+    @Param({"0", "1", "2", "3", "4", "5", "6", "7"})
+    public int position;
+
+    /** The search depth of the robot. */
+    @Param({"8"})
+    public int depth;
+
+    /** The bridge to the game classes. */
+    private GameTarget target;
+
+    /**
+     * Sets up the position and the robot.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        target = GameTarget.create();
+        target.setUp(target.getMidGamePosition(position), depth);
+    }
+
+    /**
+     * Abandons the game of the position and closes the robot.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        target.tearDown();
+    }
+
+    /**
+     * Clears the transposition table of the robot.
+     */
+    @Setup(Level.Invocation)
+    public void resetRobot() {
+        target.resetRobot();
+    }
+
+    @Benchmark
+    public int chooseColumn() {
+        return target.chooseColumn();
+    }
+}
@@ -0,0 +1,73 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the win checks on boards of different variants, from the same mid-game position.
+ * 7x6, 8x7 and 7x6x5 fit in the bitboards, while 9x7 uses the line table, so the results
+ * show whether the larger boards keep the speed of the default one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VariantBenchmark {
+
+    /** The variant of the board, as read by Board.parse. */
+    @Param({"7x6", "8x7", "9x7", "7x6x5"})
+    public String variant;
+
+    /** The bridge to the game classes. */
+    private GameTarget target;
+
+    /**
+     * Sets up the first mid-game position on the board of the variant.
+     */
+    @Setup
+    public void setUp() {
+        target = GameTarget.create();
+        target.setUp(variant, target.getMidGamePosition(0), 1);
+    }
+
+    /**
+     * Abandons the game of the position.
+     */
+    @TearDown
+    public void tearDown() {
+        target.tearDown();
+    }
+
+    /**
+     * Checks the whole board in the three directions.
+     * @return the result of the checks, so that the calls are not removed by the JIT.
+     */
+    @Benchmark
+    public boolean checkAllDirections() {
+        return target.checkHorizontally() || target.checkVertically() || target.checkDiagonally();
+    }
+
+    @Benchmark
+    public int playEveryColumn() {
+        return target.playEveryColumn();
+    }
+
+    @Benchmark
+    public int randomPlayout() {
+        return target.randomPlayout();
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * This class holds a fixed set of mid-game positions used to measure the speed of the robot.
+ * The positions are written as move sequences: each character is the column (from 0)
+ * where the next token is dropped, starting with the first player and then alternating.
+ * None of the sequences contains a winning move.
+ */
+public class BenchmarkPositions {
+
+    /** The move sequences of the mid-game positions. */
+    public static final String[] MID_GAME = {
+            "3323151322122",
+            "2662534633354",
+            "1355434451",
+            "1222254325400",
+            "315343434",
+            "4344133315",
+            "4335463134",
+            "5531532422323"
+    };
+
+    /**
+     * Private constructor, as the class only holds static members.
+     */
+    private BenchmarkPositions() {
+    }
+
+    /**
+     * This method builds the board of a move sequence, on a default board.
+     * @param moves the move sequence, one column per character.
+     * @param first the token of the player who moves first.
+     * @param second the token of the other player.
+     * @return the board after all the moves.
+     */
+    public static Board boardOf(String moves, Token first, Token second) {
+        return boardOf(new Board(), moves, first, second);
+    }
+
+    /**
+     * This method plays a move sequence on an empty board of any variant.
+     * The positions of MID_GAME can be played on any board with at least 7 columns and 6 rows.
+     * @param board the empty board.
+     * @param moves the move sequence, one column per character.
+     * @param first the token of the player who moves first.
+     * @param second the token of the other player.
+     * @return the board after all the moves.
+     */
+    public static Board boardOf(Board board, String moves, Token first, Token second) {
+        board.getPlayerIndex(first);
+        board.getPlayerIndex(second);
+        for (int i = 0; i < moves.length(); i++) {
+            int col = moves.charAt(i) - '0';
+            if (!board.isValidMove(col)) {
+                throw new IllegalArgumentException("Invalid move " + moves.charAt(i) + " at position " + i + " of " + moves);
+            }
+            board.play(col, (i % 2 == 0) ? first : second);
+        }
+        return board;
+    }
+
+    /**
+     * This method returns the token of the player to move after a move sequence.
+     * @param moves the move sequence.
+     * @param first the token of the player who moves first.
+     * @param second the token of the other player.
+     * @return the token of the player to move.
+     */
+    public static Token toMove(String moves, Token first, Token second) {
+        return (moves.length() % 2 == 0) ? first : second;
+    }
+
+
+}
@@ -0,0 +1,113 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class is the game event sink that writes the events to a binary trace file, read back by TraceDump.
+ * The file starts with a header of HEADER_BYTES bytes: the magic number, the version and the time the file
+ * was opened in milliseconds since the epoch. Each event then takes RECORD_BYTES bytes, big-endian:
+ * <pre>
+ *   long  nanoseconds since the file was opened
+ *   int   game
+ *   byte  type, byte side, byte column, byte row
+ *   int   value
+ *   int   score
+ * </pre>
+ * As in GameLogWriter, the records are collected in a buffer and written through a FileChannel when the buffer
+ * is full, when flush is called and when the sink is closed. The sink is synchronized, it is meant to be
+ * written by the single thread of a RingBufferEventSink. If the file cannot be written, the error is reported
+ * on the console once and the following events are ignored, so that tracing never stops a game.
+ */
+public class BinaryFileEventSink implements GameEventSink {
+
+    // Fields
+    /** The magic number at the start of a trace file, "C4TR". */
+    public static final int MAGIC = 0x43345452;
+    /** The version of the format of the trace files. */
+    public static final int VERSION = 1;
+    /** The number of bytes of the header. */
+    public static final int HEADER_BYTES = 16;
+    /** The number of bytes of an event. */
+    public static final int RECORD_BYTES = 24;
+    /** The number of bytes collected before they are written to the file. */
+    private static final int BATCH_BYTES = 64 * 1024;
+    /** The channel of the trace file. */
+    private final FileChannel channel;
+    /** The records not written to the file yet. */
+    private final ByteBuffer batch = ByteBuffer.allocate(BATCH_BYTES);
+    /** The value of System.nanoTime when the file was opened. */
+    private final long startNanos;
+    /** Whether the file can still be written. */
+    private boolean open = true;
+
+    // Constructor
+    /**
+     * Constructor for the BinaryFileEventSink class. The file is replaced if it exists.
+     * @param path the path of the trace file.
+     * @throws IOException if the file cannot be created.
+     */
+    public BinaryFileEventSink(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.startNanos = System.nanoTime();
+        batch.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis());
+    }
+
+    // Methods
+    @Override
+    public void record(int type, int game, int side, int column, int row, int value, int score) {
+        recordAt(System.nanoTime(), type, game, side, column, row, value, score);
+    }
+
+    @Override
+    public synchronized void recordAt(long nanoTime, int type, int game, int side, int column, int row,
+                                      int value, int score) {
+        if (!open) {
+            return;
+        }
+        if (batch.remaining() < RECORD_BYTES) {
+            writeBatch();
+        }
+        batch.putLong(nanoTime - startNanos).putInt(game)
+                .put((byte) type).put((byte) side).put((byte) column).put((byte) row)
+                .putInt(value).putInt(score);
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (open) {
+            writeBatch();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        flush();
+        open = false;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("The trace file cannot be closed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * This method writes the records collected to the file, and stops the tracing if it fails.
+     */
+    private void writeBatch() {
+        batch.flip();
+        try {
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+        } catch (IOException e) {
+            System.out.println("The trace file cannot be written, tracing stops: " + e.getMessage());
+            open = false;
+        }
+        batch.clear();
+    }
+
+
+}
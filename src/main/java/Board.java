@@ -1,7 +1,9 @@
+import java.util.SplittableRandom;
+
 /**
  * This class represents the board for the game.
- * It is represented as a 2D array of Tokens with 6 rows and 7 columns.
- * The structure of the board is represented by the following table:
+ * It is represented as a 2D array of Tokens, with 6 rows and 7 columns by default.
+ * The structure of the default board is represented by the following table:
  * <pre>
  *         0   1   2   3   4   5   6
  *       _____________________________
@@ -11,34 +13,228 @@
  *     3 |   |   |   |   |   |   |   |
  *     4 |   |   |   |   |   |   |   |
  *     5 |   |   |   |   |   |   |   |
- *
+ * </pre>
+ * The number of rows, the number of columns and the number of tokens in line needed to win
+ * (four by default) are chosen when the board is built, for example to play on 8x7 boards
+ * or to play connect-5. Besides the array, the board counts its tokens and keeps the height
+ * of each column, so that the columns are never scanned.
+ * <p>
+ * When the board fits in 64 bits with one extra bit per column, which is the case up to
+ * 8 columns of 7 rows, and at most 8 tokens in line are needed to win, the board keeps a bitboard for each player (one long per player)
+ * and a mask of the occupied cells, so that the win checks are done with a few
+ * shift-and-mask operations instead of scanning the whole grid.
+ * Each column uses NUMBER_ROWS + 1 bits of the bitboard, starting from the bottom row,
+ * and the extra bit on top of each column is always empty so that alignments cannot
+ * wrap from one column to the next:
+ * <pre>
+ *         0   1   2   3   4   5   6
+ *       _____________________________
+ *       | 6 |13 |20 |27 |34 |41 |48 |   (always empty)
+ *     0 | 5 |12 |19 |26 |33 |40 |47 |
+ *     1 | 4 |11 |18 |25 |32 |39 |46 |
+ *     2 | 3 |10 |17 |24 |31 |38 |45 |
+ *     3 | 2 | 9 |16 |23 |30 |37 |44 |
+ *     4 | 1 | 8 |15 |22 |29 |36 |43 |
+ *     5 | 0 | 7 |14 |21 |28 |35 |42 |
+ * </pre>
+ * Larger boards use the table of all their winning lines (see LineTable) instead:
+ * the board counts the tokens of each player in each line and the lines completed by each
+ * player, updated for the few lines through a cell every time a token is set or removed,
+ * so that the win checks stay constant time at every size.
+ * <p>
+ * The moves of a game or of a search are played with play and taken back with undo, which keep
+ * a stack of the columns played and whether one of them won, so that a move and its undo only
+ * touch the cell of the token, its lines and the keys of the position, without scanning anything
+ * or allocating.
  */
 
 public class Board {
 
     // Fields
+    /** The number of rows of the default board. */
+    public static final int DEFAULT_ROWS = 6;
+    /** The number of columns of the default board. */
+    public static final int DEFAULT_COLUMNS = 7;
+    /** The number of tokens in line needed to win on the default board. */
+    public static final int DEFAULT_CONNECT_LENGTH = 4;
+    /** The system property choosing the board of the game, for example 8x7 or 7x6x5 (see parse). */
+    public static final String VARIANT_PROPERTY = "connectfour.variant";
     /** The number of rows in the board. */
-    private final int NUMBER_ROWS = 6;
+    private final int NUMBER_ROWS;
     /** The number of columns in the board. */
-    private final int NUMBER_COLUMNS = 7;
+    private final int NUMBER_COLUMNS;
+    /** The number of tokens in line needed to win. */
+    private final int CONNECT_LENGTH;
+    /** The number of bits used by each column of the bitboards, including the empty bit on top. */
+    private final int COLUMN_HEIGHT;
+    /** Whether the board fits in the bitboards, otherwise the lines are counted with the line table. */
+    private final boolean useBitboards;
+    /** The length added to the runs of bits by the second step of runStarts, 0 if it is not needed. */
+    private final int RUN_STEP_2;
+    /** The length added to the runs of bits by the third step of runStarts, 0 if it is not needed. */
+    private final int RUN_STEP_3;
     /** The 2D array of Tokens representing the board. */
-    private final Token[][] board = new Token[NUMBER_ROWS][NUMBER_COLUMNS];
+    private final Token[][] board;
+    /** The tokens of the two players, in the order in which they were first seen by the board. */
+    private final Token[] players = new Token[2];
+    /** The bitboards of the two players, indexed as the players array, unused on large boards. */
+    private final long[] bitboards = new long[2];
+    /** The bitboard of all the occupied cells, unused on large boards. */
+    private long mask = 0L;
+    /** The winning lines of the board, only used on large boards, null otherwise. */
+    private final LineTable lineTable;
+    /** The number of tokens of each player in each line, indexed by player * lines + line, large boards only. */
+    private final int[] lineCounts;
+    /** The number of lines completed by each player in each direction, indexed by player * 4 + direction, large boards only. */
+    private final int[] completedLines = new int[8];
+    /** The number of lines completed by each player, large boards only. */
+    private final int[] completedTotals = new int[2];
+    /** The number of tokens stacked from the bottom of each column. */
+    private final int[] heights;
+    /** The number of tokens on the board. */
+    private int numberTokens = 0;
+    /** The number of tokens in the top row, equal to the number of full columns when tokens are dropped. */
+    private int topRowTokens = 0;
+    /** The columns played with play and not taken back yet, in order. */
+    private final int[] moves;
+    /** The number of columns in moves. */
+    private int numberMoves = 0;
+    /** The seed of the random keys, fixed so that the position keys are the same on every run. */
+    private static final long ZOBRIST_SEED = 0x5EED_C0FF_EE15_C4L;
+    /**
+     * The random key of each cell for each player followed by the key of the mirrored cell,
+     * indexed by 2 * (player * cells + row * columns + col), so that both keys are read together.
+     */
+    private final long[] zobristKeys;
+    /** The 64-bit key of the position, the xor of the random keys of all the tokens on the board. */
+    private long key = 0L;
+    /** The key of the mirror image of the position, with column col moved to column columns - 1 - col. */
+    private long mirrorKey = 0L;
 
 
     // Constructor
     /**
      * This is the constructor for the Board class.
-     * It initializes the board with null values.
+     * It initializes a board with 6 rows and 7 columns, where four tokens in line win.
      */
     public Board() {
+        this(DEFAULT_ROWS, DEFAULT_COLUMNS, DEFAULT_CONNECT_LENGTH);
+    }
+
+    /**
+     * This is the constructor for the Board class with a given size and number of tokens in line to win.
+     * It initializes the board with null values.
+     * @param rows the number of rows, at least 1.
+     * @param columns the number of columns, at least 1.
+     * @param connectLength the number of tokens in line needed to win, from 2 to the largest side of the board.
+     */
+    public Board(int rows, int columns, int connectLength) {
+        if (rows < 1 || columns < 1 || connectLength < 2 || connectLength > Math.max(rows, columns)) {
+            throw new IllegalArgumentException("Invalid board: " + rows + " rows, " + columns
+                    + " columns, " + connectLength + " in line");
+        }
+        NUMBER_ROWS = rows;
+        NUMBER_COLUMNS = columns;
+        CONNECT_LENGTH = connectLength;
+        COLUMN_HEIGHT = NUMBER_ROWS + 1;
+        // the runs of bits reach 8 cells in three steps, longer lines use the line table
+        useBitboards = COLUMN_HEIGHT * NUMBER_COLUMNS <= Long.SIZE && CONNECT_LENGTH <= 8;
+        RUN_STEP_2 = Math.min(CONNECT_LENGTH - 2, 2);
+        RUN_STEP_3 = Math.max(CONNECT_LENGTH - 4, 0);
+        board = new Token[NUMBER_ROWS][NUMBER_COLUMNS];
         for (int i = 0; i < NUMBER_ROWS; i++) {
             for (int j = 0; j < NUMBER_COLUMNS; j++) {
                 board[i][j] = null;
             }
         }
+        heights = new int[NUMBER_COLUMNS];
+        moves = new int[NUMBER_ROWS * NUMBER_COLUMNS];
+        zobristKeys = zobristKeys();
+        if (useBitboards) {
+            lineTable = null;
+            lineCounts = null;
+        } else {
+            lineTable = new LineTable(NUMBER_ROWS, NUMBER_COLUMNS, CONNECT_LENGTH);
+            lineCounts = new int[2 * lineTable.getNumberLines()];
+        }
     }
 
     // Methods
+    /**
+     * This method builds the board of a variant of the game.
+     * The variant is written as COLUMNSxROWS, for example 7x6 for the default board,
+     * optionally followed by x and the number of tokens in line needed to win, for example 7x6x5.
+     * @param variant the variant of the game.
+     * @return a new empty board.
+     * @throws IllegalArgumentException if the variant is not valid.
+     */
+    public static Board parse(String variant) {
+        String[] parts = variant.trim().toLowerCase().split("x");
+        if (parts.length < 2 || parts.length > 3) {
+            throw new IllegalArgumentException("Invalid board variant, expected COLUMNSxROWS[xCONNECT]: " + variant);
+        }
+        try {
+            int columns = Integer.parseInt(parts[0]);
+            int rows = Integer.parseInt(parts[1]);
+            int connectLength = (parts.length == 3) ? Integer.parseInt(parts[2]) : DEFAULT_CONNECT_LENGTH;
+            return new Board(rows, columns, connectLength);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid board variant, expected COLUMNSxROWS[xCONNECT]: " + variant, e);
+        }
+    }
+
+    /**
+     * This method builds the board chosen with the connectfour.variant system property,
+     * or the default board if the property is not set.
+     * @return a new empty board.
+     */
+    public static Board fromVariantProperty() {
+        String variant = System.getProperty(VARIANT_PROPERTY);
+        return (variant != null) ? parse(variant) : new Board();
+    }
+
+    /**
+     * This method returns the variant of the board, in the format read by parse.
+     * The number of tokens in line is only written when it is not four.
+     * @return the variant of the board, for example 7x6 or 7x6x5.
+     */
+    public String getVariant() {
+        return variantName(NUMBER_ROWS, NUMBER_COLUMNS, CONNECT_LENGTH);
+    }
+
+    /**
+     * This method returns the name of a variant, in the format read by parse, without creating its board.
+     * The number of tokens in line is only written when it is not four.
+     * @param rows the number of rows.
+     * @param columns the number of columns.
+     * @param connectLength the number of tokens in line needed to win.
+     * @return the name of the variant, for example 7x6 or 7x6x5.
+     */
+    public static String variantName(int rows, int columns, int connectLength) {
+        String variant = columns + "x" + rows;
+        return (connectLength == DEFAULT_CONNECT_LENGTH) ? variant : variant + "x" + connectLength;
+    }
+
+    /**
+     * This method checks if another board has the same size and the same number of tokens in line to win.
+     * @param other the other board.
+     * @return true if the boards are of the same variant, false otherwise.
+     */
+    public boolean isSameVariant(Board other) {
+        return isVariant(other.NUMBER_ROWS, other.NUMBER_COLUMNS, other.CONNECT_LENGTH);
+    }
+
+    /**
+     * This method checks if the board has a given size and number of tokens in line to win.
+     * @param rows the number of rows.
+     * @param columns the number of columns.
+     * @param connectLength the number of tokens in line needed to win.
+     * @return true if the board is of this variant, false otherwise.
+     */
+    public boolean isVariant(int rows, int columns, int connectLength) {
+        return NUMBER_ROWS == rows && NUMBER_COLUMNS == columns && CONNECT_LENGTH == connectLength;
+    }
+
     /**
      * This method returns the entire board.
      * @return the board
@@ -63,6 +259,14 @@ public class Board {
         return NUMBER_COLUMNS;
     }
 
+    /**
+     * This method returns the number of tokens in line needed to win.
+     * @return the number of tokens in line.
+     */
+    public int getConnectLength() {
+        return CONNECT_LENGTH;
+    }
+
     /**
      * This method returns the token at a specific position on the board.
      * @param row the row of the position.
@@ -75,41 +279,122 @@ public class Board {
 
     /**
      * This method sets a token at a specific position on the board.
+     * Besides the 2D array, it updates the lines of the player owning the token,
+     * the number of tokens and the height of the column.
      * @param row the row of the position.
      * @param col the column of the position.
      * @param token the token to set.
      */
     public void setToken(int row, int col, Token token) {
+        if (token == null) {
+            removeToken(row, col);
+            return;
+        }
+        if (board[row][col] != null) {
+            clearCell(getPlayerIndex(board[row][col]), row, col);
+        } else {
+            numberTokens++;
+            if (row == 0) {
+                topRowTokens++;
+            }
+        }
+        int playerIndex = getPlayerIndex(token);
         board[row][col] = token;
+        fillCell(playerIndex, row, col);
+        updateHeight(row, col);
     }
 
     /**
      * This method removes a token at a specific position on the board by
-     * setting the item in that location to null.
+     * setting the item in that location to null and clearing it from the lines of its player.
      * @param row the row of the position.
      * @param col the column of the position.
      */
     public void removeToken(int row, int col) {
+        if (board[row][col] != null) {
+            clearCell(getPlayerIndex(board[row][col]), row, col);
+            numberTokens--;
+            if (row == 0) {
+                topRowTokens--;
+            }
+        }
         board[row][col] = null;
+        updateHeight(row, col);
+    }
+
+    /**
+     * This method drops a token in a column and pushes the column on the stack of the moves,
+     * so that the move can be taken back with undo. It tells if the player of the token has enough
+     * tokens in a row after the move, with the few shifts of hasFourInLine on the bitboards or the count
+     * of completed lines otherwise.
+     * @param col the column, which must not be full.
+     * @param token the token to drop.
+     * @return true if the player of the token has enough tokens in a row, false otherwise.
+     */
+    public boolean play(int col, Token token) {
+        int row = NUMBER_ROWS - 1 - heights[col];
+        int playerIndex = getPlayerIndex(token);
+        board[row][col] = token;
+        numberTokens++;
+        if (row == 0) {
+            topRowTokens++;
+        }
+        fillCell(playerIndex, row, col);
+        updateHeight(row, col);
+        moves[numberMoves++] = col;
+        return hasFourInLine(playerIndex);
+    }
+
+    /**
+     * This method takes back the last move played with play, removing the top token of its column.
+     * The tokens set and removed with setToken and removeToken are not on the stack of the moves,
+     * so they must not change the column of a move before it is taken back.
+     * @throws IllegalStateException if there is no move to take back.
+     */
+    public void undo() {
+        if (numberMoves == 0) {
+            throw new IllegalStateException("There is no move to take back");
+        }
+        int col = moves[--numberMoves];
+        int row = NUMBER_ROWS - heights[col];
+        clearCell(getPlayerIndex(board[row][col]), row, col);
+        board[row][col] = null;
+        numberTokens--;
+        if (row == 0) {
+            topRowTokens--;
+        }
+        updateHeight(row, col);
+    }
+
+    /**
+     * This method returns the number of moves played with play and not taken back.
+     * @return the number of moves on the stack.
+     */
+    public int getNumberMoves() {
+        return numberMoves;
+    }
+
+    /**
+     * This method returns a move played with play and not taken back.
+     * @param index the index of the move on the stack, from 0 for the oldest one.
+     * @return the column of the move.
+     */
+    public int getMove(int index) {
+        if (index < 0 || index >= numberMoves) {
+            throw new IndexOutOfBoundsException("No move " + index + " among " + numberMoves);
+        }
+        return moves[index];
     }
 
     /**
      * This method returns the first available row in a column,
-     * that is the row containing null.
+     * that is the lowest row containing null.
+     * It uses the height of the column, so it does not need to scan the column.
      * @param col the column to check.
-     * @return the first available row in the column.
+     * @return the first available row in the column, or -1 if the column is full.
      */
     public int getFirstAvailableRow(int col) {
-        int maxRow = -1;
-        // checking from the bottom of the column
-        for (int row = NUMBER_ROWS - 1; row >= 0; row--) {
-            if (board[row][col] == null) {
-                if (row >= maxRow) {
-                    maxRow = row;
-                }
-            }
-        }
-        return maxRow;
+        return NUMBER_ROWS - 1 - heights[col];
     }
 
     /**
@@ -119,6 +404,9 @@ public class Board {
      * @return true if the column is full, false otherwise.
      */
     public boolean isColumnFull(int column) {
+        if (useBitboards) {
+            return (mask & cellBit(0, column)) != 0;
+        }
         return board[0][column] != null;
     }
 
@@ -127,12 +415,7 @@ public class Board {
      * @return true if all columns are full, false otherwise.
      */
     public boolean areAllColumnsFull() {
-        for (int i = 0; i < NUMBER_COLUMNS; i++) {
-            if (!isColumnFull(i)) {
-                return false;
-            }
-        }
-        return true;
+        return topRowTokens == NUMBER_COLUMNS;
     }
 
     /**
@@ -149,105 +432,390 @@ public class Board {
     }
 
     /**
-     * This method checks if there are four tokens in a row horizontally.
-     * It uses the equals method of the Token class to compare the tokens.
+     * This method checks if there are enough tokens in a row horizontally to win.
+     * Horizontally adjacent cells are COLUMN_HEIGHT bits apart in the bitboards.
      *
-     * @return true if there are four tokens in a row, false otherwise.
+     * @return true if there are enough tokens in a row, false otherwise.
      */
     public boolean checkHorizontally() {
-        for (int i = 0; i < NUMBER_ROWS; i++) {
-            for (int j = 0; j < NUMBER_COLUMNS - 3; j++) {
-                if (horizontalCondition(i,j)) {
-                    return true;
-                }
-            }
+        if (!useBitboards) {
+            return hasCompletedLine(LineTable.HORIZONTAL);
         }
-        return false;
+        return inLine(bitboards[0], COLUMN_HEIGHT) || inLine(bitboards[1], COLUMN_HEIGHT);
     }
 
     /**
-     * This method checks if there are four tokens in a row horizontally.
-     * @param i the row index.
-     * @param j the column index.
-     * @return  true if there are four tokens in a row, false otherwise.
+     * This method checks if there are enough tokens in a row vertically to win.
+     * Vertically adjacent cells are 1 bit apart in the bitboards.
+     *
+     * @return true if there are enough tokens in a row, false otherwise.
      */
-    private boolean horizontalCondition(int i, int j) {
-        return (board[i][j] != null && board[i][j].equals(board[i][j + 1]) &&
-                board[i][j].equals(board[i][j + 2]) && board[i][j].equals(board[i][j + 3]));
+    public boolean checkVertically() {
+        if (!useBitboards) {
+            return hasCompletedLine(LineTable.VERTICAL);
+        }
+        return inLine(bitboards[0], 1) || inLine(bitboards[1], 1);
     }
 
     /**
-     * This method checks if there are four tokens in a row vertically.
-     * It uses the equals method of the Token class to compare the tokens.
+     * This method checks if there are enough tokens in a row diagonally to win.
+     * Diagonally adjacent cells are COLUMN_HEIGHT - 1 bits apart in one direction
+     * and COLUMN_HEIGHT + 1 bits apart in the other direction.
      *
-     * @return true if there are four tokens in a row, false otherwise.
+     * @return true if there are enough tokens in a row, false otherwise.
      */
-    public boolean checkVertically() {
-        for (int i = 0; i < NUMBER_ROWS - 3; i++) {
-            for (int j = 0; j < NUMBER_COLUMNS; j++) {
-                if (verticalCondition(i, j)) {
+    public boolean checkDiagonally() {
+        if (!useBitboards) {
+            return hasCompletedLine(LineTable.DIAGONAL) || hasCompletedLine(LineTable.ANTI_DIAGONAL);
+        }
+        return inLine(bitboards[0], COLUMN_HEIGHT - 1) || inLine(bitboards[1], COLUMN_HEIGHT - 1)
+                || inLine(bitboards[0], COLUMN_HEIGHT + 1) || inLine(bitboards[1], COLUMN_HEIGHT + 1);
+    }
+
+    /**
+     * This method checks if a player has enough tokens in a row to win in any direction,
+     * four on the default board.
+     * @param playerIndex the index of the player, as returned by getPlayerIndex.
+     * @return true if the player has enough tokens in a row, false otherwise.
+     */
+    public boolean hasFourInLine(int playerIndex) {
+        if (!useBitboards) {
+            return completedTotals[playerIndex] > 0;
+        }
+        long position = bitboards[playerIndex];
+        return inLine(position, 1) || inLine(position, COLUMN_HEIGHT)
+                || inLine(position, COLUMN_HEIGHT - 1) || inLine(position, COLUMN_HEIGHT + 1);
+    }
+
+    /**
+     * This method checks if a player would win by dropping a token in a column, without changing the board.
+     * With the bitboards the token is added to a copy of the player's bitboard, otherwise it looks for a
+     * line through the cell already holding all but one of the tokens needed.
+     * @param playerIndex the index of the player, as returned by getPlayerIndex.
+     * @param col the column, which must not be full.
+     * @return true if the token would be part of enough tokens in a row, false otherwise.
+     */
+    public boolean isWinningMove(int playerIndex, int col) {
+        int row = getFirstAvailableRow(col);
+        if (!useBitboards) {
+            int cell = row * NUMBER_COLUMNS + col;
+            int offset = playerIndex * lineTable.getNumberLines();
+            for (int i = lineTable.getCellLinesStart(cell); i < lineTable.getCellLinesEnd(cell); i++) {
+                if (lineCounts[offset + lineTable.getCellLine(i)] == CONNECT_LENGTH - 1) {
                     return true;
                 }
             }
+            return false;
         }
-        return false;
+        long cell = cellBit(row, col);
+        long position = bitboards[playerIndex] | cell;
+        return inLineThrough(position, cell, 1) || inLineThrough(position, cell, COLUMN_HEIGHT)
+                || inLineThrough(position, cell, COLUMN_HEIGHT - 1)
+                || inLineThrough(position, cell, COLUMN_HEIGHT + 1);
     }
 
     /**
-     * This method checks if there are four tokens in a row vertically.
-     * @param i the row index.
-     * @param j the column index.
-     * @return  true if there are four tokens in a row, false otherwise.
+     * This method returns the index used by the board for the player owning a token.
+     * The first symbol seen by the board gets index 0 and the second one gets index 1,
+     * tokens are compared with the equals method of the Token class.
+     * @param token the token of the player.
+     * @return the index of the player, either 0 or 1.
      */
-    private boolean verticalCondition(int i, int j) {
-        return (board[i][j] != null && board[i][j].equals(board[i + 1][j]) &&
-                board[i][j].equals(board[i + 2][j]) && board[i][j].equals(board[i + 3][j]));
+    public int getPlayerIndex(Token token) {
+        for (int i = 0; i < players.length; i++) {
+            if (players[i] == null) {
+                players[i] = token;
+                return i;
+            }
+            if (players[i] == token || players[i].equals(token)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("The board only supports two players, found: " + token.getSymbol());
     }
 
     /**
-     * This method checks if there are four tokens in a row diagonally.
-     * It uses the equals method of the Token class to compare the tokens.
-     *
-     * @return true if there are four tokens in a row, false otherwise.
+     * This method copies the content of another board of the same variant into this board.
+     * It does not allocate any object, so it can be used to reset a board
+     * used for searching before each search.
+     * @param other the board to copy.
+     * @throws IllegalArgumentException if the other board is not of the same variant.
      */
-    public boolean checkDiagonally() {
-        for (int i = 0; i < NUMBER_ROWS - 3; i++) {
-            for (int j = 0; j < NUMBER_COLUMNS - 3; j++) {
-                if (diagonalConditionLeftRight(i, j)) {
-                    return true;
-                }
+    public void copyFrom(Board other) {
+        if (!isSameVariant(other)) {
+            throw new IllegalArgumentException("Cannot copy a " + other.getVariant() + " board into a "
+                    + getVariant() + " board");
+        }
+        for (int i = 0; i < NUMBER_ROWS; i++) {
+            System.arraycopy(other.board[i], 0, board[i], 0, NUMBER_COLUMNS);
+        }
+        System.arraycopy(other.players, 0, players, 0, players.length);
+        System.arraycopy(other.bitboards, 0, bitboards, 0, bitboards.length);
+        System.arraycopy(other.heights, 0, heights, 0, NUMBER_COLUMNS);
+        System.arraycopy(other.moves, 0, moves, 0, other.numberMoves);
+        numberMoves = other.numberMoves;
+        if (!useBitboards) {
+            System.arraycopy(other.lineCounts, 0, lineCounts, 0, lineCounts.length);
+            System.arraycopy(other.completedLines, 0, completedLines, 0, completedLines.length);
+            System.arraycopy(other.completedTotals, 0, completedTotals, 0, completedTotals.length);
+        }
+        mask = other.mask;
+        numberTokens = other.numberTokens;
+        topRowTokens = other.topRowTokens;
+        key = other.key;
+        mirrorKey = other.mirrorKey;
+    }
+
+    /**
+     * This method returns the number of tokens on the board.
+     * @return the number of tokens on the board.
+     */
+    public int getNumberTokens() {
+        return numberTokens;
+    }
+
+    /**
+     * This method checks if the board keeps bitboards, which is the case when it fits in 64 bits
+     * with one extra bit per column. Otherwise getBitboard and getMask always return 0.
+     * @return true if the board keeps bitboards, false otherwise.
+     */
+    public boolean usesBitboards() {
+        return useBitboards;
+    }
+
+    /**
+     * This method returns the bitboard of a player.
+     * @param playerIndex the index of the player, as returned by getPlayerIndex.
+     * @return the bitboard of the player, 0 if the board does not use bitboards.
+     */
+    public long getBitboard(int playerIndex) {
+        return bitboards[playerIndex];
+    }
+
+    /**
+     * This method returns the bitboard of all the occupied cells.
+     * @return the mask of the occupied cells, 0 if the board does not use bitboards.
+     */
+    public long getMask() {
+        return mask;
+    }
+
+    /**
+     * This method returns the 64-bit key of the position.
+     * The key is updated every time a token is set or removed, and two boards with the same
+     * tokens in the same cells have the same key, whatever the order in which they were played.
+     * @return the key of the position.
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * This method returns the key of the mirror image of the position, where the tokens of
+     * column col are in column columns - 1 - col. It is updated together with the key.
+     * @return the key of the mirrored position.
+     */
+    public long getMirrorKey() {
+        return mirrorKey;
+    }
+
+    /**
+     * This method returns the canonical key of the position, the smaller of its key and of the key
+     * of its mirror image. As the game is the same from left to right and from right to left, a position
+     * and its mirror image have the same score, and the canonical key indexes both of them in the
+     * transposition table and in the opening book. The moves stored with a canonical key are in the
+     * columns of the canonical position, see canonicalColumn.
+     * @return the canonical key of the position.
+     */
+    public long getCanonicalKey() {
+        return Math.min(key, mirrorKey);
+    }
+
+    /**
+     * This method turns a column of the position into the same column of the canonical position, and back:
+     * it is mirrored when the canonical key is the key of the mirror image, and left as it is otherwise.
+     * @param col the column, or -1 for no column.
+     * @return the column of the other orientation, or -1.
+     */
+    public int canonicalColumn(int col) {
+        return (mirrorKey < key && col >= 0) ? NUMBER_COLUMNS - 1 - col : col;
+    }
+
+    /**
+     * This method adds a token of a player to the bitboards or to the lines through its cell,
+     * and to the keys of the position and of its mirror image.
+     * @param playerIndex the index of the player.
+     * @param row the row of the cell.
+     * @param col the column of the cell.
+     */
+    private void fillCell(int playerIndex, int row, int col) {
+        int zobristIndex = zobristIndex(playerIndex, row, col);
+        key ^= zobristKeys[zobristIndex];
+        mirrorKey ^= zobristKeys[zobristIndex + 1];
+        if (useBitboards) {
+            long bit = cellBit(row, col);
+            bitboards[playerIndex] |= bit;
+            mask |= bit;
+            return;
+        }
+        int cell = row * NUMBER_COLUMNS + col;
+        int offset = playerIndex * lineTable.getNumberLines();
+        for (int i = lineTable.getCellLinesStart(cell); i < lineTable.getCellLinesEnd(cell); i++) {
+            int line = lineTable.getCellLine(i);
+            if (++lineCounts[offset + line] == CONNECT_LENGTH) {
+                completedLines[playerIndex * 4 + lineTable.getLineDirection(line)]++;
+                completedTotals[playerIndex]++;
             }
         }
-        for (int i = 0; i < NUMBER_ROWS - 3; i++) {
-            for (int j = 3; j < NUMBER_COLUMNS; j++) {
-                if (diagonalConditionRightLeft(i, j)) {
-                    return true;
-                }
+    }
+
+    /**
+     * This method removes a token of a player from the bitboards or from the lines through its cell,
+     * and from the keys of the position and of its mirror image.
+     * @param playerIndex the index of the player.
+     * @param row the row of the cell.
+     * @param col the column of the cell.
+     */
+    private void clearCell(int playerIndex, int row, int col) {
+        int zobristIndex = zobristIndex(playerIndex, row, col);
+        key ^= zobristKeys[zobristIndex];
+        mirrorKey ^= zobristKeys[zobristIndex + 1];
+        if (useBitboards) {
+            long bit = cellBit(row, col);
+            bitboards[playerIndex] &= ~bit;
+            mask &= ~bit;
+            return;
+        }
+        int cell = row * NUMBER_COLUMNS + col;
+        int offset = playerIndex * lineTable.getNumberLines();
+        for (int i = lineTable.getCellLinesStart(cell); i < lineTable.getCellLinesEnd(cell); i++) {
+            int line = lineTable.getCellLine(i);
+            if (lineCounts[offset + line]-- == CONNECT_LENGTH) {
+                completedLines[playerIndex * 4 + lineTable.getLineDirection(line)]--;
+                completedTotals[playerIndex]--;
             }
         }
-        return false;
     }
 
     /**
-     * This method checks if there are four tokens in a row diagonally from left to right.
-     * @param i the row index.
-     * @param j the column index.
-     * @return  true if there are four tokens in a row, false otherwise.
+     * This method checks if any player completed a line in a direction, on the boards using the line table.
+     * @param direction the direction, as defined in LineTable.
+     * @return true if a line is completed, false otherwise.
      */
-    private boolean diagonalConditionLeftRight(int i, int j) {
-        return (board[i][j] != null && board[i][j].equals(board[i + 1][j + 1]) &&
-                board[i][j].equals(board[i + 2][j + 2]) && board[i][j].equals(board[i + 3][j + 3]));
+    private boolean hasCompletedLine(int direction) {
+        return completedLines[direction] + completedLines[4 + direction] > 0;
     }
 
     /**
-     * This method checks if there are four tokens in a row diagonally from right to left.
-     * @param i the row index.
-     * @param j the column index.
-     * @return  true if there are four tokens in a row, false otherwise.
+     * This method checks if a bitboard contains CONNECT_LENGTH set bits in line,
+     * where consecutive bits of the line are shift bits apart.
+     * @param position the bitboard to check.
+     * @param shift the distance in bits between two adjacent cells of the line.
+     * @return true if there are enough bits in line, false otherwise.
      */
-    private boolean diagonalConditionRightLeft(int i, int j) {
-        return (board[i][j] != null && board[i][j].equals(board[i + 1][j - 1]) &&
-                board[i][j].equals(board[i + 2][j - 2]) && board[i][j].equals(board[i + 3][j - 3]));
+    private boolean inLine(long position, int shift) {
+        return runStarts(position, shift) != 0;
+    }
+
+    /**
+     * This method checks if a bitboard contains CONNECT_LENGTH set bits in line through a given cell.
+     * A line starting at bit i covers the bits i, i + shift, ... up to i + (CONNECT_LENGTH - 1) * shift,
+     * so the lines through the cell are the ones starting at most (CONNECT_LENGTH - 1) * shift bits below it.
+     * @param position the bitboard to check.
+     * @param cell the bitboard with only the cell set.
+     * @param shift the distance in bits between two adjacent cells of the line.
+     * @return true if there are enough bits in line through the cell, false otherwise.
+     */
+    private boolean inLineThrough(long position, long cell, int shift) {
+        // the same steps spread the cell to the CONNECT_LENGTH - 1 bits below it
+        long startsThroughCell = cell | (cell >>> shift);
+        startsThroughCell |= startsThroughCell >>> (RUN_STEP_2 * shift);
+        startsThroughCell |= startsThroughCell >>> (RUN_STEP_3 * shift);
+        return (runStarts(position, shift) & startsThroughCell) != 0;
+    }
+
+    /**
+     * This method returns the bits of a bitboard starting a run of CONNECT_LENGTH set bits in line.
+     * Each step keeps the bits starting a run that is also set a few cells further,
+     * so that the runs grow from 1 to 2 cells, then up to 4 and then up to 8 cells.
+     * For four in line the last step is empty, as the runs are shifted by 0 bits.
+     * @param position the bitboard to check.
+     * @param shift the distance in bits between two adjacent cells of the line.
+     * @return the bitboard of the first bits of the runs.
+     */
+    private long runStarts(long position, int shift) {
+        long runs = position & (position >>> shift);
+        runs &= runs >>> (RUN_STEP_2 * shift);
+        return runs & (runs >>> (RUN_STEP_3 * shift));
+    }
+
+    /**
+     * This method returns the bit of the bitboards corresponding to a cell of the board.
+     * @param row the row of the cell.
+     * @param col the column of the cell.
+     * @return the bitboard with only the cell set.
+     */
+    private long cellBit(int row, int col) {
+        return 1L << (col * COLUMN_HEIGHT + (NUMBER_ROWS - 1 - row));
+    }
+
+    /**
+     * This method updates the height of a column after a cell of the column changed,
+     * that is the number of consecutive tokens starting from the bottom of the column.
+     * With the bitboards it is read from the mask of the occupied cells, otherwise
+     * it is moved from the previous height, which does not loop when tokens are dropped
+     * and taken back.
+     * @param row the row of the cell that changed.
+     * @param col the column of the cell.
+     */
+    private void updateHeight(int row, int col) {
+        if (useBitboards) {
+            long column = mask >>> (col * COLUMN_HEIGHT);
+            heights[col] = Math.min(Long.numberOfTrailingZeros(~column), NUMBER_ROWS);
+            return;
+        }
+        int height = heights[col];
+        if (board[row][col] == null) {
+            height = Math.min(height, NUMBER_ROWS - 1 - row);
+        } else {
+            while (height < NUMBER_ROWS && board[NUMBER_ROWS - 1 - height][col] != null) {
+                height++;
+            }
+        }
+        heights[col] = height;
+    }
+
+    /**
+     * This method returns the index in zobristKeys of the random key of a cell for a player,
+     * the key of the mirrored cell being at the next index.
+     * @param playerIndex the index of the player.
+     * @param row the row of the cell.
+     * @param col the column of the cell.
+     * @return the index of the random key.
+     */
+    private int zobristIndex(int playerIndex, int row, int col) {
+        return 2 * ((playerIndex * NUMBER_ROWS + row) * NUMBER_COLUMNS + col);
+    }
+
+    /**
+     * This method generates the random keys of the cells for both players, each one followed
+     * by the key of the cell in the same row and in the mirrored column.
+     * The generator is seeded with a constant, so every board gets the same keys.
+     * @return the random keys.
+     */
+    private long[] zobristKeys() {
+        SplittableRandom random = new SplittableRandom(ZOBRIST_SEED);
+        long[] cellKeys = new long[2 * NUMBER_ROWS * NUMBER_COLUMNS];
+        for (int i = 0; i < cellKeys.length; i++) {
+            cellKeys[i] = random.nextLong();
+        }
+        long[] keys = new long[2 * cellKeys.length];
+        for (int i = 0; i < cellKeys.length; i++) {
+            int col = i % NUMBER_COLUMNS;
+            keys[2 * i] = cellKeys[i];
+            keys[2 * i + 1] = cellKeys[i - col + NUMBER_COLUMNS - 1 - col];
+        }
+        return keys;
     }
 
 
@@ -1,9 +1,24 @@
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * This class represents the GUI of the Connect4 game.
- * It represents an extension of the JFrame class and displays the game board
+ * It represents an extension of the JFrame class and displays the game board.
+ * The robot thinks on a background thread, so the window stays responsive however deep it searches:
+ * the drop buttons are disabled and a progress bar is shown until its column is played on the event
+ * dispatch thread. Starting a new game or closing the window interrupts the thread, which stops the
+ * search of the robot within a few thousand positions, and the column it returns is ignored.
+ * The undo button takes back the last moves until it is the turn of the human player again, and the redo
+ * button plays them again, with the drop animation, before the robot is asked for a new move.
+ * The moves, the decisions of the robot and the results are printed on the console as game events
+ * (see ConsoleEventSink), unless another sink is chosen with the connectfour.trace property (see GameTrace).
  */
 public class BoardGui extends JFrame {
 
@@ -14,9 +29,31 @@ public class BoardGui extends JFrame {
     private GameLogic gameLogic;
     private Player currentPlayer;
     public static final String humanPlayerSymbol = "O";
-    private static final String robotPlayerSymbol = "X";
+    public static final String robotPlayerSymbol = "X";
+    /** The game log where the finished games are appended, unless the connectfour.gameLog property is set. */
+    public static final String DEFAULT_GAME_LOG = "connectfour-games.c4log";
     private JButton[] dropButtons;
+    /** The button taking back the last moves. */
+    private JButton undoButton;
+    /** The button playing again the moves taken back. */
+    private JButton redoButton;
     private CirclePanel[][] slots;
+    /** The images of the slots, shared by all the slots. */
+    private final DiscSprites sprites = new DiscSprites();
+    /** The animation of the tokens falling in their slots. */
+    private DropAnimation dropAnimation;
+    /** The thread on which the robot chooses its columns. */
+    private final ExecutorService robotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "robot-player");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** The robot move being chosen, or null when the robot is not thinking. */
+    private Future<?> robotTask;
+    /** The number of the current game, so that the column of a robot of an abandoned game is ignored. */
+    private int gameNumber = 0;
+    /** The progress bar shown while the robot is thinking. */
+    private JProgressBar thinkingBar;
 
     // Constructor
 
@@ -26,24 +63,39 @@ public class BoardGui extends JFrame {
      * It also sets up the GUI components for the game.
      */
     public BoardGui() {
+        // the game is told on the console, unless the events are traced elsewhere
+        if (!GameTrace.isChosen()) {
+            GameTrace.setSink(new ConsoleEventSink());
+        }
+        // the size of the board and the tokens in line to win can be changed with -Dconnectfour.variant
+        board = Board.fromVariantProperty();
+        int connectLength = board.getConnectLength();
+
         // Display the welcome message
         String startingMessage = """
-                Welcome to Connect 4!
+                Welcome to Connect %d!
                 There are 2 players: red and yellow.
                 Player 1 is red (human), Player 2 is yellow (robot).
                 To play the game, click on the button "Drop" on top of the column you want to drop your token in.
-                A player wins by connecting 4 tokens in a row - vertically, horizontally or diagonally.""";
+                A player wins by connecting %d tokens in a row - vertically, horizontally or diagonally."""
+                .formatted(connectLength, connectLength);
         JOptionPane.showMessageDialog(this, startingMessage, "Welcome", JOptionPane.INFORMATION_MESSAGE);
 
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setTitle("Connect4");
-        setSize(700, 600);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                cancelRobotMove();
+                stopPondering();
+                gameLogic.abandon();
+                robotExecutor.shutdownNow();
+            }
+        });
+        setTitle("Connect" + connectLength);
+        // 700x600 for the default board, the row of buttons included
+        setSize(100 * board.getNumberColumns(), 600 * (board.getNumberRows() + 1) / 7);
         setLayout(new BorderLayout());
-        board = new Board();
-        player1 = new PlayerHuman(new Token(humanPlayerSymbol));
-        player2 = new PlayerRobot(new Token(robotPlayerSymbol), board);
-        gameLogic = new GameLogic(board, player1, player2);
-        currentPlayer = gameLogic.getCurrentPlayer();
+        createGame();
         dropButtons = new JButton[board.getNumberColumns()];
         slots = new CirclePanel[board.getNumberRows()][board.getNumberColumns()];
 
@@ -75,7 +127,30 @@ public class BoardGui extends JFrame {
             }
         }
 
+        dropAnimation = new DropAnimation(slots);
         add(panel, BorderLayout.CENTER);
+
+        // add a status bar with the progress of the robot and the buttons to take moves back and to start again
+        JPanel statusBar = new JPanel(new BorderLayout());
+        thinkingBar = new JProgressBar();
+        thinkingBar.setIndeterminate(true);
+        thinkingBar.setStringPainted(true);
+        thinkingBar.setString("Robot is thinking...");
+        thinkingBar.setVisible(false);
+        statusBar.add(thinkingBar, BorderLayout.CENTER);
+        JPanel gameButtons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
+        undoButton = new JButton("Undo");
+        undoButton.addActionListener(e -> undoMoves());
+        gameButtons.add(undoButton);
+        redoButton = new JButton("Redo");
+        redoButton.addActionListener(e -> redoMoves());
+        gameButtons.add(redoButton);
+        JButton newGameButton = new JButton("New game");
+        newGameButton.addActionListener(e -> restartGame());
+        gameButtons.add(newGameButton);
+        statusBar.add(gameButtons, BorderLayout.EAST);
+        setDropButtonsEnabled(true);
+        add(statusBar, BorderLayout.SOUTH);
         setLocationRelativeTo(null); // center the window
         setVisible(true);
     }
@@ -85,34 +160,101 @@ public class BoardGui extends JFrame {
      * @return a CirclePanel representing a slot on the board.
      */
     private CirclePanel createSlot() {
-        return new CirclePanel();
+        return new CirclePanel(sprites);
     }
 
     /**
      * This method handles the click on a column button by the human user.
      * It includes the logic to update the slots, showing messages, and switching turns.
+     * The clicks are ignored while a token is falling, and the turn only switches when it has landed.
      * @param col the column clicked by the user.
      */
     private void handleColumnClick(int col) {
-        System.out.println("You clicked column: " + col);
-
-        if (currentPlayer instanceof PlayerHuman) {
+        if (currentPlayer instanceof PlayerHuman && !dropAnimation.isRunning()) {
+            if (!board.isValidMove(col)) {
+                GameTrace.sink().record(GameEventSink.INVALID_MOVE, gameLogic.getGameNumber(),
+                        currentPlayer.getSide(), col, -1, 0, 0);
+                return;
+            }
             gameLogic.placeTokenOnBoard(col);
-            updateSlots();
-            if (gameLogic.isGameOver()) {
-                showWinningMessage();
-            } else if (gameLogic.isDraw()) {
-                showDrawMessage();
-            } else {
-                System.out.println("Switching turns...");
-                switchTurns();
-                if (currentPlayer instanceof PlayerRobot) {
+            updateSlot(gameLogic.getLastRow(), col, this::finishHumanMove);
+        }
+    }
+
+    /**
+     * This method ends the turn of the human player once the token has landed: it shows the result if the
+     * game is over, and otherwise lets the robot move, playing again its move taken back if there is one.
+     */
+    private void finishHumanMove() {
+        if (gameLogic.isGameOver()) {
+            showWinningMessage();
+        } else if (gameLogic.isDraw()) {
+            showDrawMessage();
+        } else {
+            switchTurns();
+            if (currentPlayer instanceof PlayerRobot) {
+                if (gameLogic.canRedoMove()) {
+                    setDropButtonsEnabled(false);
+                    int col = gameLogic.redoMove();
+                    updateSlot(gameLogic.getLastRow(), col, this::finishRobotMove);
+                } else {
                     handleRobotMove();
                 }
             }
         }
     }
 
+    /**
+     * This method ends the turn of the robot once its token has landed: it shows the result if the game
+     * is over, and otherwise gives the turn back to the human player.
+     */
+    private void finishRobotMove() {
+        if (gameLogic.isGameOver()) {
+            showWinningMessage();
+        } else if (gameLogic.isDraw()) {
+            showDrawMessage();
+        } else {
+            switchTurns();
+            setDropButtonsEnabled(true);
+        }
+    }
+
+    /**
+     * This method takes back the last moves until it is the turn of the human player again, which is the
+     * move of the robot and the move of the human player before it. It does nothing while the robot is
+     * thinking or a token is falling.
+     */
+    private void undoMoves() {
+        if (!(currentPlayer instanceof PlayerHuman) || dropAnimation.isRunning() || robotTask != null) {
+            return;
+        }
+        stopPondering();
+        while (gameLogic.canUndoMove()) {
+            slots[gameLogic.getLastRow()][gameLogic.getLastCol()].setColor(Color.WHITE);
+            gameLogic.undoMove();
+            if (gameLogic.getCurrentPlayer() instanceof PlayerHuman) {
+                break;
+            }
+        }
+        currentPlayer = gameLogic.getCurrentPlayer();
+        setDropButtonsEnabled(true);
+    }
+
+    /**
+     * This method plays again the move of the human player taken back last, and then the move of the robot
+     * taken back with it, or asks the robot for a new move if there is none.
+     * It does nothing while the robot is thinking or a token is falling.
+     */
+    private void redoMoves() {
+        if (!(currentPlayer instanceof PlayerHuman) || dropAnimation.isRunning() || robotTask != null
+                || !gameLogic.canRedoMove()) {
+            return;
+        }
+        stopPondering();
+        int col = gameLogic.redoMove();
+        updateSlot(gameLogic.getLastRow(), col, this::finishHumanMove);
+    }
+
     /**
      * This method shows a message indicating the winner of the game.
      * After the user clicks on OK of the message, the program terminates.
@@ -120,6 +262,7 @@ public class BoardGui extends JFrame {
     private void showWinningMessage() {
         String winner = (currentPlayer.getToken().getSymbol().equals(humanPlayerSymbol)) ? "Human" : "Robot";
         showMessage("Game Over!\n" + winner + " player wins!");
+        saveGame();
         System.exit(0);
     }
 
@@ -129,34 +272,145 @@ public class BoardGui extends JFrame {
      */
     private void showDrawMessage() {
         showMessage("It's a draw!");
+        saveGame();
         System.exit(0);
     }
 
     /**
-     * This method handles the move of the robot player.
+     * This method appends the game to the game log before the program terminates.
+     * The game is still over if it cannot be saved, so an error is only reported on the console.
      */
-    private void handleRobotMove() {
-        System.out.println("Robot is thinking...");
-        int col = currentPlayer.chooseColumn();
+    private void saveGame() {
+        String path = System.getProperty(GameLogWriter.GAME_LOG_PROPERTY, DEFAULT_GAME_LOG);
+        try (GameLogWriter gameLog = new GameLogWriter(Paths.get(path))) {
+            gameLog.append(gameLogic);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("The game could not be saved to " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * This method creates the board, the players and the game logic of a new game.
+     */
+    private void createGame() {
+        player1 = new PlayerHuman(new Token(humanPlayerSymbol));
+        PlayerRobot robot = new PlayerRobot(new Token(robotPlayerSymbol), board);
+        // the robot goes on searching while the human player thinks
+        robot.setPondering(true);
+        player2 = robot;
+        gameLogic = new GameLogic(board, player1, player2);
+        currentPlayer = gameLogic.getCurrentPlayer();
+    }
 
-        // Add a loop to ensure the robot picks a valid column
-        while (!board.isValidMove(col)) {
-            System.out.println("Robot chose an invalid column: " + col + ". Choosing again...");
-            col = currentPlayer.chooseColumn();
+    /**
+     * This method abandons the current game, stopping the robot if it is thinking, and starts a new one.
+     */
+    private void restartGame() {
+        cancelRobotMove();
+        stopPondering();
+        dropAnimation.cancel();
+        gameLogic.abandon();
+        // the robot is closed on its thread, once the search it may have been cancelled in has returned
+        robotExecutor.execute(player2::close);
+        board = Board.fromVariantProperty();
+        createGame();
+        for (CirclePanel[] row : slots) {
+            for (CirclePanel slot : row) {
+                slot.setColor(Color.WHITE);
+            }
         }
+        setDropButtonsEnabled(true);
+    }
 
-        System.out.println("Robot is placing a token in column: " + col);
-        gameLogic.placeTokenOnBoard(col);
-        updateSlots();
-        if (gameLogic.isGameOver()) {
-            showWinningMessage();
-        } else if (gameLogic.isDraw()) {
-            showDrawMessage();
-        } else {
-            System.out.println("Switching turns ...");
-            switchTurns();
+    /**
+     * This method stops the robot if it is thinking, by interrupting its thread, and makes sure
+     * that the column it returns is ignored. The board is left alone by the robot once it returns.
+     */
+    private void cancelRobotMove() {
+        gameNumber++;
+        if (robotTask != null) {
+            robotTask.cancel(true);
+            robotTask = null;
+        }
+        thinkingBar.setVisible(false);
+    }
+
+    /**
+     * This method stops the robot of the current game from searching while the human player thinks.
+     */
+    private void stopPondering() {
+        if (player2 instanceof PlayerRobot) {
+            ((PlayerRobot) player2).stopPondering();
+        }
+    }
+
+    /**
+     * This method enables or disables the drop buttons, and the undo and redo buttons
+     * when there are moves to take back or to play again.
+     * @param enabled true to enable the buttons, false to disable them.
+     */
+    private void setDropButtonsEnabled(boolean enabled) {
+        for (JButton button : dropButtons) {
+            button.setEnabled(enabled);
+        }
+        undoButton.setEnabled(enabled && gameLogic.canUndoMove());
+        redoButton.setEnabled(enabled && gameLogic.canRedoMove());
+    }
+
+    /**
+     * This method handles the move of the robot player. The robot chooses its column on the
+     * robot thread, while the drop buttons are disabled, and the column is played by playRobotMove
+     * on the event dispatch thread.
+     */
+    private void handleRobotMove() {
+        setDropButtonsEnabled(false);
+        thinkingBar.setVisible(true);
+        Player robot = currentPlayer;
+        Board robotBoard = board;
+        int game = gameNumber;
+        robotTask = robotExecutor.submit(() -> {
+            try {
+                int col = robot.chooseColumn();
+
+                // Add a loop to ensure the robot picks a valid column
+                while (!robotBoard.isValidMove(col) && !Thread.currentThread().isInterrupted()) {
+                    GameTrace.sink().record(GameEventSink.INVALID_MOVE, robot.getGameNumber(), robot.getSide(),
+                            col, -1, 0, 0);
+                    col = robot.chooseColumn();
+                }
+                int chosenCol = col;
+                SwingUtilities.invokeLater(() -> playRobotMove(game, chosenCol));
+            } catch (RuntimeException e) {
+                System.out.println("The robot could not choose a column: " + e);
+                SwingUtilities.invokeLater(() -> playRobotMove(game, -1));
+            }
+        });
+    }
+
+    /**
+     * This method plays the column chosen by the robot, on the event dispatch thread.
+     * @param game the number of the game the robot was thinking for, ignored if it was abandoned since.
+     * @param col the column, -1 if the robot failed, in which case the free column nearest to the center
+     *            is played for it, so that the turn goes back to the human player as after any robot move.
+     */
+    private void playRobotMove(int game, int col) {
+        if (game != gameNumber) {
+            return;
+        }
+        robotTask = null;
+        thinkingBar.setVisible(false);
+        if (!board.isValidMove(col)) {
+            // the board is not full, as the game is not over
+            for (int column : MoveOrderer.centerFirst(board.getNumberColumns())) {
+                if (board.isValidMove(column)) {
+                    col = column;
+                    break;
+                }
+            }
         }
 
+        gameLogic.placeTokenOnBoard(col);
+        updateSlot(gameLogic.getLastRow(), col, this::finishRobotMove);
     }
 
     /**
@@ -176,28 +430,16 @@ public class BoardGui extends JFrame {
     }
 
     /**
-     * This method updates the slots on the board to display the tokens.
-     */
-    private void updateSlots() {
-        for (int i = 0; i < board.getNumberRows(); i++) {
-            for (int j = 0; j < board.getNumberColumns(); j++) {
-                updateSlot(i, j, board.getBoardItem(i, j));
-            }
-        }
-    }
-
-    /**
-     * This method updates a specific slot on the board to display a token.
+     * This method updates the slot of the token just placed, the only one that changed, dropping
+     * the token from the top of its column (see DropAnimation). The other slots are not repainted.
      * @param row the row of the slot.
      * @param col the column of the slot.
-     * @param token the token to display.
+     * @param onDone the action run once the token is shown in its slot.
      */
-    private void updateSlot(int row, int col, Token token) {
-        if (token != null) {
-            slots[row][col].setColor(getTokenColor(token));
-        } else {
-            slots[row][col].setColor(Color.WHITE);
-        }
+    private void updateSlot(int row, int col, Runnable onDone) {
+        Token token = board.getBoardItem(row, col);
+        Color color = (token != null) ? getTokenColor(token) : Color.WHITE;
+        dropAnimation.drop(row, col, color, onDone);
     }
 
     /**
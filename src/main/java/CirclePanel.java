@@ -1,44 +1,102 @@
 import javax.swing.*;
 import javax.swing.border.LineBorder;
 import java.awt.*;
+import java.awt.geom.Ellipse2D;
 
+/**
+ * This class represents a slot of the board in the GUI, a white hole in the blue board holding a disc
+ * of the colour of a token, white when the slot is empty. The slot is painted by copying an image
+ * kept by DiscSprites, shared by all the slots, and it is only repainted when its colour changes.
+ * While a token falls through the slot (see DropAnimation), its disc is drawn over the slot at an offset,
+ * only inside the white hole, as if it was falling behind the board.
+ */
 public class CirclePanel extends JPanel {
 
+    // Fields
+    /** The images of the slots, shared by all the slots of the board. */
+    private final DiscSprites sprites;
+    /** The colour of the disc of the slot, white when the slot is empty. */
     private Color color = Color.WHITE;
+    /** The colour of the disc falling through the slot, or null when there is none. */
+    private Color fallingColor = null;
+    /** The vertical offset of the falling disc from the top of the slot, in pixels. */
+    private int fallingOffset = 0;
 
+    // Constructor
+    /**
+     * Constructor for the CirclePanel class with its own images.
+     */
     public CirclePanel() {
+        this(new DiscSprites());
+    }
+
+    /**
+     * Constructor for the CirclePanel class.
+     * @param sprites the images of the slots, shared by all the slots of the board.
+     */
+    public CirclePanel(DiscSprites sprites) {
+        this.sprites = sprites;
         setBorder(new LineBorder(Color.BLUE, 5));
         setBackground(Color.WHITE);
     }
 
+    // Methods
+    /**
+     * This method sets the colour of the disc of the slot, and repaints the slot if it changed.
+     * @param color the colour, white for an empty slot.
+     */
     public void setColor(Color color) {
-        this.color = color;
-        repaint();
+        if (!color.equals(this.color)) {
+            this.color = color;
+            repaint();
+        }
+    }
+
+    /**
+     * This method returns the colour of the disc of the slot.
+     * @return the colour, white for an empty slot.
+     */
+    public Color getColor() {
+        return color;
+    }
+
+    /**
+     * This method sets the disc falling through the slot. The slot is not repainted,
+     * as DropAnimation paints the slots of the column itself to measure the time it takes.
+     * @param fallingColor the colour of the falling disc, or null to remove it.
+     * @param fallingOffset the vertical offset of the disc from the top of the slot, in pixels.
+     */
+    public void setFallingDisc(Color fallingColor, int fallingOffset) {
+        this.fallingColor = fallingColor;
+        this.fallingOffset = fallingOffset;
+    }
+
+    /**
+     * This method checks if a disc is falling through the slot.
+     * @return true if a falling disc is drawn over the slot, false otherwise.
+     */
+    public boolean hasFallingDisc() {
+        return fallingColor != null;
     }
 
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        Graphics2D g2d = (Graphics2D) g;
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // Fill the background with blue
-        g2d.setColor(Color.BLUE);
-        g2d.fillRect(0, 0, getWidth(), getHeight());
-
-        // Draw the outer white circle
-        g2d.setColor(Color.WHITE);
-        int diameter = Math.min(getWidth(), getHeight()) - 10;
-        int x = (getWidth() - diameter) / 2;
-        int y = (getHeight() - diameter) / 2;
-        g2d.fillOval(x, y, diameter, diameter);
-
-        // Draw the inner colored circle
-        g2d.setColor(color);
-        int innerDiameter = diameter - 10; // Make the inner circle slightly smaller
-        int innerX = (getWidth() - innerDiameter) / 2;
-        int innerY = (getHeight() - innerDiameter) / 2;
-        g2d.fillOval(innerX, innerY, innerDiameter, innerDiameter);
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        // the image is opaque and covers the whole slot, so the background is not filled first;
+        // it has the pixels of the screen, so it is drawn with the size of the slot
+        Graphics2D target = (Graphics2D) g;
+        g.drawImage(sprites.getCell(target, width, height, color), 0, 0, width, height, null);
+        if (fallingColor != null) {
+            Graphics2D g2d = (Graphics2D) g.create();
+            int diameter = DiscSprites.holeDiameter(width, height);
+            g2d.clip(new Ellipse2D.Float((width - diameter) / 2f, (height - diameter) / 2f, diameter, diameter));
+            g2d.drawImage(sprites.getDisc(target, width, height, fallingColor), 0, fallingOffset, width, height, null);
+            g2d.dispose();
+        }
     }
 
 
@@ -0,0 +1,80 @@
+/**
+ * This class is the game event sink that prints every event on the console as a sentence,
+ * the robots' decisions in their own words. It is the sink of the GUI when no other sink is chosen,
+ * and TraceDump uses its sentences to print a binary trace. Printing on the console is synchronized
+ * and slow, so this sink is only meant for a game at a time.
+ */
+public class ConsoleEventSink implements GameEventSink {
+
+    // Methods
+    @Override
+    public void record(int type, int game, int side, int column, int row, int value, int score) {
+        System.out.println(describe(type, game, side, column, row, value, score));
+    }
+
+    /**
+     * This method describes an event as a sentence.
+     * @param type the type of the event.
+     * @param game the number of the game.
+     * @param side the player of the event, -1 for none.
+     * @param column the column of the event, -1 for none.
+     * @param row the row of the event, -1 for none.
+     * @param value the first number of the event, see GameEventSink.
+     * @param score the second number of the event, see GameEventSink.
+     * @return the sentence.
+     */
+    public static String describe(int type, int game, int side, int column, int row, int value, int score) {
+        String prefix = "Game " + game + ": ";
+        String player = "player " + (side + 1);
+        return switch (type) {
+            case GAME_STARTED -> prefix + "started on " + ((value >>> 8) & 0xFF) + "x" + (value >>> 16)
+                    + " connecting " + (value & 0xFF) + ", with " + score + " tokens on the board";
+            case MOVE -> prefix + player + " played column " + column + ", row " + row;
+            case INVALID_MOVE -> prefix + player + " cannot play column " + column;
+            case ROBOT_DECISION -> prefix + "Robot (" + player + "): " + describeDecision(column, value, score);
+            case GAME_ENDED -> prefix + describeOutcome(side, value) + " after " + score + " tokens";
+            case MOVE_UNDONE -> prefix + player + " took back column " + column + ", row " + row;
+            default -> prefix + "unknown event " + type;
+        };
+    }
+
+    /**
+     * This method describes the decision of a robot, as the robots used to tell it.
+     * @param column the column chosen.
+     * @param value the kind of decision and its detail.
+     * @param score the score of the column.
+     * @return the words of the robot.
+     */
+    private static String describeDecision(int column, int value, int score) {
+        int detail = value >>> 8;
+        return switch (value & 0xFF) {
+            case DECISION_BOOK -> "'I know this opening, column " + column + "'";
+            case DECISION_SEARCH -> "'I have looked " + detail + " moves ahead, column " + column + " scores " + score + "'";
+            case DECISION_WIN -> "'I am about to win!'";
+            case DECISION_BLOCK -> "'I am blocking you haha'";
+            case DECISION_RANDOM -> "'I am moving at random...'";
+            case DECISION_NONE -> "'Oh no... I have no available columns to use.'";
+            case DECISION_PLAYOUTS -> "'I have played " + detail + " thousand games in my head, column " + column
+                    + " wins " + score + "% of them'";
+            case DECISION_BOOK_UNREADABLE -> "'I cannot read my opening book, I will think for myself'";
+            default -> "unknown decision " + (value & 0xFF) + " for column " + column;
+        };
+    }
+
+    /**
+     * This method describes the outcome of a game.
+     * @param side the winner, -1 for none.
+     * @param outcome the outcome.
+     * @return the description.
+     */
+    private static String describeOutcome(int side, int outcome) {
+        return switch (outcome) {
+            case OUTCOME_WIN -> "player " + (side + 1) + " wins";
+            case OUTCOME_DRAW -> "draw";
+            case OUTCOME_ABANDONED -> "abandoned";
+            default -> "unknown outcome " + outcome;
+        };
+    }
+
+
+}
@@ -0,0 +1,224 @@
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class keeps the pre-rendered images of the slots of the board, so that a slot is painted
+ * by copying an image instead of filling its background and drawing two anti-aliased circles.
+ * There are two kinds of images, both the size of a slot:
+ * <ul>
+ *   <li>a cell: the blue background, the white hole and the disc of a colour, opaque;</li>
+ *   <li>a disc: only the disc of a colour, transparent around it, drawn over an empty cell by DropAnimation.</li>
+ * </ul>
+ * The images are rendered the first time they are asked for, at the scale of the graphics they are drawn on,
+ * so that on a scaled HiDPI display they have one pixel per pixel of the screen and are drawn as sharp as
+ * the circles they replace. They are kept for one slot size and one scale only: when the window is resized
+ * or moved to a screen with another scale, all the images are dropped.
+ * All the slots of the board share one instance, which is only used on the event dispatch thread.
+ */
+public class DiscSprites {
+
+    // Fields
+    /** The width of the blue border around the white hole of a slot. */
+    public static final int HOLE_MARGIN = 5;
+    /** The width of the white ring around the disc of a slot. */
+    public static final int DISC_MARGIN = 5;
+    /** The width of the images kept. */
+    private int width = -1;
+    /** The height of the images kept. */
+    private int height = -1;
+    /** The horizontal scale of the images kept, in pixels of the screen per pixel of the slot. */
+    private double scaleX = 0;
+    /** The vertical scale of the images kept, in pixels of the screen per pixel of the slot. */
+    private double scaleY = 0;
+    /** The images of the cells, by colour of the disc. */
+    private final Map<Color, BufferedImage> cells = new HashMap<>();
+    /** The images of the discs, by colour. */
+    private final Map<Color, BufferedImage> discs = new HashMap<>();
+    /** The number of images rendered since the instance was created. */
+    private long renders = 0;
+
+    // Methods
+    /**
+     * This method returns the image of a cell holding a disc, or an empty cell when the colour is white.
+     * The image has the pixels of the screen, so it must be drawn with the size of the slot.
+     * @param target the graphics the image is drawn on, whose transform gives the scale of the screen.
+     * @param width the width of the slot, at least 1.
+     * @param height the height of the slot, at least 1.
+     * @param color the colour of the disc.
+     * @return the image, which must not be modified.
+     */
+    public BufferedImage getCell(Graphics2D target, int width, int height, Color color) {
+        resize(target, width, height);
+        BufferedImage cell = cells.get(color);
+        if (cell == null) {
+            cell = renderCell(width, height, scaleX, scaleY, color);
+            cells.put(color, cell);
+            renders++;
+        }
+        return cell;
+    }
+
+    /**
+     * This method returns the image of a disc alone, transparent around it, centered as in a cell.
+     * The image has the pixels of the screen, so it must be drawn with the size of the slot.
+     * @param target the graphics the image is drawn on, whose transform gives the scale of the screen.
+     * @param width the width of the slot, at least 1.
+     * @param height the height of the slot, at least 1.
+     * @param color the colour of the disc.
+     * @return the image, which must not be modified.
+     */
+    public BufferedImage getDisc(Graphics2D target, int width, int height, Color color) {
+        resize(target, width, height);
+        BufferedImage disc = discs.get(color);
+        if (disc == null) {
+            disc = renderDisc(width, height, scaleX, scaleY, color);
+            discs.put(color, disc);
+            renders++;
+        }
+        return disc;
+    }
+
+    /**
+     * This method returns the number of images rendered, which only grows when the window is resized.
+     * @return the number of images.
+     */
+    public long getRenders() {
+        return renders;
+    }
+
+    /**
+     * This method renders the image of a cell.
+     * @param width the width of the slot.
+     * @param height the height of the slot.
+     * @param scaleX the horizontal scale of the screen, 1 for an image with the pixels of the slot.
+     * @param scaleY the vertical scale of the screen.
+     * @param color the colour of the disc, white for an empty cell.
+     * @return the new image.
+     */
+    public static BufferedImage renderCell(int width, int height, double scaleX, double scaleY, Color color) {
+        BufferedImage image = new BufferedImage(scaledSize(width, scaleX), scaledSize(height, scaleY),
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = createScaledGraphics(image, width, height);
+        paintCell(g2d, width, height, color);
+        g2d.dispose();
+        return image;
+    }
+
+    /**
+     * This method paints a cell, as the slots were painted on every repaint before the images were kept.
+     * @param g2d the graphics to paint on.
+     * @param width the width of the slot.
+     * @param height the height of the slot.
+     * @param color the colour of the disc, white for an empty cell.
+     */
+    public static void paintCell(Graphics2D g2d, int width, int height, Color color) {
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        // Fill the background with blue
+        g2d.setColor(Color.BLUE);
+        g2d.fillRect(0, 0, width, height);
+
+        // Draw the outer white circle
+        g2d.setColor(Color.WHITE);
+        int diameter = holeDiameter(width, height);
+        g2d.fillOval((width - diameter) / 2, (height - diameter) / 2, diameter, diameter);
+
+        // Draw the inner colored circle
+        paintDisc(g2d, width, height, color);
+    }
+
+    /**
+     * This method renders the image of a disc alone.
+     * @param width the width of the slot.
+     * @param height the height of the slot.
+     * @param scaleX the horizontal scale of the screen, 1 for an image with the pixels of the slot.
+     * @param scaleY the vertical scale of the screen.
+     * @param color the colour of the disc.
+     * @return the new image.
+     */
+    public static BufferedImage renderDisc(int width, int height, double scaleX, double scaleY, Color color) {
+        BufferedImage image = new BufferedImage(scaledSize(width, scaleX), scaledSize(height, scaleY),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = createScaledGraphics(image, width, height);
+        g2d.setComposite(AlphaComposite.Src);
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        paintDisc(g2d, width, height, color);
+        g2d.dispose();
+        return image;
+    }
+
+    /**
+     * This method returns the diameter of the white hole of a slot.
+     * @param width the width of the slot.
+     * @param height the height of the slot.
+     * @return the diameter, which is not negative.
+     */
+    public static int holeDiameter(int width, int height) {
+        return Math.max(Math.min(width, height) - 2 * HOLE_MARGIN, 0);
+    }
+
+    /**
+     * This method draws the disc of a slot, centered.
+     * @param g2d the graphics of the image.
+     * @param width the width of the slot.
+     * @param height the height of the slot.
+     * @param color the colour of the disc.
+     */
+    private static void paintDisc(Graphics2D g2d, int width, int height, Color color) {
+        g2d.setColor(color);
+        int innerDiameter = Math.max(holeDiameter(width, height) - 2 * DISC_MARGIN, 0);
+        g2d.fillOval((width - innerDiameter) / 2, (height - innerDiameter) / 2, innerDiameter, innerDiameter);
+    }
+
+    /**
+     * This method returns the number of pixels of the screen covered by a length of the slot.
+     * @param length the length, in pixels of the slot.
+     * @param scale the scale of the screen.
+     * @return the number of pixels, at least 1.
+     */
+    private static int scaledSize(int length, double scale) {
+        return Math.max((int) Math.ceil(length * scale), 1);
+    }
+
+    /**
+     * This method creates the graphics of an image, scaled so that the slot covers the whole image.
+     * @param image the image, with the pixels of the screen.
+     * @param width the width of the slot.
+     * @param height the height of the slot.
+     * @return the graphics, to be disposed of.
+     */
+    private static Graphics2D createScaledGraphics(BufferedImage image, int width, int height) {
+        Graphics2D g2d = image.createGraphics();
+        g2d.scale((double) image.getWidth() / width, (double) image.getHeight() / height);
+        return g2d;
+    }
+
+    /**
+     * This method drops the images kept when they are asked for another size or another scale.
+     * @param target the graphics the images are drawn on.
+     * @param width the width asked for.
+     * @param height the height asked for.
+     */
+    private void resize(Graphics2D target, int width, int height) {
+        AffineTransform transform = target.getTransform();
+        // the scale of the transform, even if it also rotates, which the board never does
+        double targetScaleX = Math.hypot(transform.getScaleX(), transform.getShearY());
+        double targetScaleY = Math.hypot(transform.getShearX(), transform.getScaleY());
+        if (width != this.width || height != this.height || targetScaleX != scaleX || targetScaleY != scaleY) {
+            cells.clear();
+            discs.clear();
+            this.width = width;
+            this.height = height;
+            this.scaleX = targetScaleX;
+            this.scaleY = targetScaleY;
+        }
+    }
+
+
+}
@@ -0,0 +1,197 @@
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * This class animates the fall of a token in a column of the GUI, from above the board to its slot,
+ * speeding up as if it was falling under gravity. Each frame only paints the slots the disc is leaving
+ * and entering, at most three, with the cached images of DiscSprites, and the slot of the token only
+ * gets its colour when the disc reaches it. The frames are run by a Swing timer on the event dispatch
+ * thread and the slots are painted at once, so the time spent painting each frame can be measured:
+ * it is printed on the console at the end of each drop when the connectfour.dropStats system property is true.
+ * The time the disc takes to fall the height of the board is read from the connectfour.dropMillis
+ * system property, 0 to show the tokens at once.
+ */
+public class DropAnimation {
+
+    // Fields
+    /** The system property with the time the disc takes to fall the height of the board, in milliseconds. */
+    public static final String DROP_MILLIS_PROPERTY = "connectfour.dropMillis";
+    /** The time the disc takes to fall the height of the board when the property is not set, in milliseconds. */
+    public static final int DEFAULT_DROP_MILLIS = 300;
+    /** The system property turning on the printing of the frames and of the time spent painting each drop. */
+    public static final String DROP_STATS_PROPERTY = "connectfour.dropStats";
+    /** The time between two frames, in milliseconds. */
+    private static final int FRAME_MILLIS = 15;
+    /** The slots of the board, by row and column. */
+    private final CirclePanel[][] slots;
+    /** The time the disc takes to fall the height of the board, in milliseconds. */
+    private final long dropMillis;
+    /** Whether the statistics of each drop are printed on the console, false by default. */
+    private final boolean printStats = Boolean.getBoolean(DROP_STATS_PROPERTY);
+    /** The timer running the frames. */
+    private final Timer timer;
+    /** The column of the current drop. */
+    private int col;
+    /** The row where the disc of the current drop stops. */
+    private int targetRow;
+    /** The colour of the disc of the current drop. */
+    private Color color;
+    /** The action run when the current drop is over. */
+    private Runnable onDone;
+    /** The value of System.nanoTime when the current drop started. */
+    private long startNanos;
+    /** The number of frames of the current drop. */
+    private int frames;
+    /** The number of slots painted by the current drop. */
+    private int slotsPainted;
+    /** The time spent painting the slots of the current drop, in nanoseconds. */
+    private long paintNanos;
+
+    // Constructor
+    /**
+     * Constructor for the DropAnimation class, with the time read from the connectfour.dropMillis property.
+     * @param slots the slots of the board, by row and column.
+     */
+    public DropAnimation(CirclePanel[][] slots) {
+        this(slots, Long.getLong(DROP_MILLIS_PROPERTY, DEFAULT_DROP_MILLIS));
+    }
+
+    /**
+     * Constructor for the DropAnimation class.
+     * @param slots the slots of the board, by row and column.
+     * @param dropMillis the time the disc takes to fall the height of the board, in milliseconds, 0 for no animation.
+     */
+    public DropAnimation(CirclePanel[][] slots, long dropMillis) {
+        this.slots = slots;
+        this.dropMillis = dropMillis;
+        this.timer = new Timer(FRAME_MILLIS, e -> step());
+    }
+
+    // Methods
+    /**
+     * This method drops a token in its slot, and runs an action once the token is shown.
+     * A drop still running is finished at once first. It must be called on the event dispatch thread.
+     * @param row the row of the slot of the token.
+     * @param col the column of the slot of the token.
+     * @param color the colour of the token.
+     * @param onDone the action run when the token is in its slot, on the event dispatch thread.
+     */
+    public void drop(int row, int col, Color color, Runnable onDone) {
+        if (isRunning()) {
+            finish();
+        }
+        this.col = col;
+        this.targetRow = row;
+        this.color = color;
+        this.onDone = onDone;
+        if (dropMillis <= 0 || !slots[row][col].isShowing() || slots[row][col].getHeight() <= 0) {
+            slots[row][col].setColor(color);
+            runOnDone();
+            return;
+        }
+        frames = 0;
+        slotsPainted = 0;
+        paintNanos = 0;
+        startNanos = System.nanoTime();
+        timer.start();
+    }
+
+    /**
+     * This method stops the current drop without showing its token or running its action,
+     * when the game it belongs to is abandoned.
+     */
+    public void cancel() {
+        timer.stop();
+        onDone = null;
+        for (CirclePanel[] row : slots) {
+            for (CirclePanel slot : row) {
+                if (slot.hasFallingDisc()) {
+                    slot.setFallingDisc(null, 0);
+                    slot.repaint();
+                }
+            }
+        }
+    }
+
+    /**
+     * This method checks if a drop is running.
+     * @return true if a disc is falling, false otherwise.
+     */
+    public boolean isRunning() {
+        return timer.isRunning();
+    }
+
+    /**
+     * This method draws a frame: it moves the disc to where it has fallen since the start of the drop,
+     * and ends the drop when the disc reaches its slot.
+     */
+    private void step() {
+        int height = slots[0][col].getHeight();
+        // the disc falls from the slot above the board to its own slot, the time growing as the square root of the height
+        double fallMillis = dropMillis * Math.sqrt((targetRow + 1.0) / slots.length);
+        double fraction = Math.min((System.nanoTime() - startNanos) / 1e6 / fallMillis, 1.0);
+        int y = (int) Math.round(-height + (targetRow + 1) * height * fraction * fraction);
+        if (fraction >= 1.0) {
+            finish();
+            return;
+        }
+        frames++;
+        int topRow = Math.floorDiv(y, height);
+        for (int row = 0; row <= targetRow; row++) {
+            CirclePanel slot = slots[row][col];
+            boolean covered = row == topRow || row == topRow + 1;
+            if (covered || slot.hasFallingDisc()) {
+                slot.setFallingDisc(covered ? color : null, y - row * height);
+                paint(slot);
+            }
+        }
+    }
+
+    /**
+     * This method ends the current drop: it removes the falling disc, shows the token in its slot,
+     * prints the time spent painting if asked to and runs the action of the drop.
+     */
+    private void finish() {
+        timer.stop();
+        for (int row = 0; row <= targetRow; row++) {
+            CirclePanel slot = slots[row][col];
+            if (slot.hasFallingDisc()) {
+                slot.setFallingDisc(null, 0);
+                if (row != targetRow) {
+                    paint(slot);
+                }
+            }
+        }
+        slots[targetRow][col].setColor(color);
+        paint(slots[targetRow][col]);
+        if (printStats) {
+            System.out.printf("Drop in column %d: %d frames, %d slots painted, %.3f ms painting per frame%n",
+                    col, frames, slotsPainted, paintNanos / 1e6 / Math.max(frames, 1));
+        }
+        runOnDone();
+    }
+
+    /**
+     * This method paints a slot at once and adds the time it took to the time of the drop.
+     * @param slot the slot.
+     */
+    private void paint(CirclePanel slot) {
+        long start = System.nanoTime();
+        slot.paintImmediately(0, 0, slot.getWidth(), slot.getHeight());
+        paintNanos += System.nanoTime() - start;
+        slotsPainted++;
+    }
+
+    /**
+     * This method runs the action of the current drop, once.
+     */
+    private void runOnDone() {
+        Runnable action = onDone;
+        onDone = null;
+        if (action != null) {
+            action.run();
+        }
+    }
+
+
+}
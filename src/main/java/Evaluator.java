@@ -0,0 +1,196 @@
+import java.util.Arrays;
+
+/**
+ * This class gives a static score to the positions where the search runs out of depth,
+ * so that the robot prefers the columns building threats over the others instead of
+ * seeing all of them as equal.
+ * <p>
+ * Every winning line of the board (see LineTable, 69 lines on the standard board) still
+ * open to a single player is worth:
+ * <ul>
+ *   <li>TWO_WEIGHT when it holds all but two of the tokens needed, two out of four on the standard board;</li>
+ *   <li>THREE_WEIGHT when it holds all but one, a threat, plus PARITY_BONUS when the empty cell
+ *       is on a row that favours its player: the odd rows counting from 1 at the bottom for the
+ *       first player and the even rows for the second player, as the first player usually gets
+ *       to fill the odd rows at the end of the game and the second player the even rows.</li>
+ * </ul>
+ * The score is the value of the lines of the first player minus the value of the lines of the
+ * second player. It is not computed at each leaf: the evaluator keeps the tokens of each line
+ * as a few bits in an array of ints and updates the score for the lines through a cell every time
+ * a token is played or taken back, so evaluating a position is only reading an int, and nothing
+ * is allocated once the evaluator is built.
+ */
+public class Evaluator {
+
+    // Fields
+    /** The value of a line holding all but two of the tokens needed, with no token of the opponent. */
+    public static final int TWO_WEIGHT = 4;
+    /** The value of a line holding all but one of the tokens needed, with no token of the opponent. */
+    public static final int THREE_WEIGHT = 16;
+    /** The value added to a threat whose empty cell is on a row that favours its player. */
+    public static final int PARITY_BONUS = 16;
+    /** The largest score returned, far from the scores of the wins of SearchEngine. */
+    public static final int MAX_SCORE = SearchEngine.WIN_SCORE / 4;
+    /** The winning lines of the board. */
+    private final LineTable lineTable;
+    /** The number of columns of the board. */
+    private final int numberColumns;
+    /** The number of rows of the board. */
+    private final int numberRows;
+    /** The number of tokens in line needed to win. */
+    private final int lineLength;
+    /** The tokens of each player in each line, bit i for the i-th cell of the line, indexed by line * 2 + player. */
+    private final int[] lineBits;
+    /** The value of each line for the first player, as included in the score. */
+    private final int[] lineValues;
+    /** The bit of the cell in each line through it, indexed as LineTable.getCellLine. */
+    private final int[] cellLineBits;
+    /** The cells of each line on the odd rows counting from 1 at the bottom, as bits of the line. */
+    private final int[] oddRowBits;
+    /** The score of the position for the first player. */
+    private int score = 0;
+
+    // Constructor
+    /**
+     * Constructor for the Evaluator class, for the boards of the variant of a board.
+     * The evaluator starts with an empty board, see reset.
+     * @param board a board of the variant.
+     * @throws IllegalArgumentException if more than 31 tokens in line are needed to win.
+     */
+    public Evaluator(Board board) {
+        numberRows = board.getNumberRows();
+        numberColumns = board.getNumberColumns();
+        lineLength = board.getConnectLength();
+        if (lineLength >= Integer.SIZE) {
+            throw new IllegalArgumentException("Cannot evaluate " + lineLength + " tokens in line");
+        }
+        lineTable = new LineTable(numberRows, numberColumns, lineLength);
+        int numberLines = lineTable.getNumberLines();
+        lineBits = new int[2 * numberLines];
+        lineValues = new int[numberLines];
+        oddRowBits = new int[numberLines];
+        for (int line = 0; line < numberLines; line++) {
+            for (int i = 0; i < lineLength; i++) {
+                int row = lineTable.getLineCell(line, i) / numberColumns;
+                if ((numberRows - row) % 2 == 1) {
+                    oddRowBits[line] |= 1 << i;
+                }
+            }
+        }
+        int cells = numberRows * numberColumns;
+        cellLineBits = new int[lineTable.getCellLinesEnd(cells - 1)];
+        for (int cell = 0; cell < cells; cell++) {
+            for (int j = lineTable.getCellLinesStart(cell); j < lineTable.getCellLinesEnd(cell); j++) {
+                int line = lineTable.getCellLine(j);
+                for (int i = 0; i < lineLength; i++) {
+                    if (lineTable.getLineCell(line, i) == cell) {
+                        cellLineBits[j] = 1 << i;
+                    }
+                }
+            }
+        }
+    }
+
+    // Methods
+    /**
+     * This method sets the evaluator to the position of a board, before a search.
+     * @param board the board, of the variant of the evaluator.
+     */
+    public void reset(Board board) {
+        Arrays.fill(lineBits, 0);
+        Arrays.fill(lineValues, 0);
+        score = 0;
+        for (int row = 0; row < numberRows; row++) {
+            for (int col = 0; col < numberColumns; col++) {
+                Token token = board.getBoardItem(row, col);
+                if (token != null) {
+                    play(board.getPlayerIndex(token), row, col);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method adds a token to the position, after it was set on the board.
+     * @param playerIndex the index of the player of the token, as returned by Board.getPlayerIndex.
+     * @param row the row of the token.
+     * @param col the column of the token.
+     */
+    public void play(int playerIndex, int row, int col) {
+        update(playerIndex, row * numberColumns + col, true);
+    }
+
+    /**
+     * This method takes a token back from the position, when it is removed from the board.
+     * @param playerIndex the index of the player of the token.
+     * @param row the row of the token.
+     * @param col the column of the token.
+     */
+    public void undo(int playerIndex, int row, int col) {
+        update(playerIndex, row * numberColumns + col, false);
+    }
+
+    /**
+     * This method returns the score of the current position.
+     * @param playerIndex the index of the player the score is for, usually the player to move. The parity of the
+     *                    rows assumes that the player with index 0 on the board is the one who moved first.
+     * @return the score, between -MAX_SCORE and MAX_SCORE, positive when the player is ahead.
+     */
+    public int evaluate(int playerIndex) {
+        int clamped = Math.max(-MAX_SCORE, Math.min(MAX_SCORE, score));
+        return (playerIndex == 0) ? clamped : -clamped;
+    }
+
+    /**
+     * This method sets or clears the bit of a cell in the lines of a player through the cell,
+     * and moves the score by the change of value of each of these lines. Only the new value
+     * of each line is computed, the old one is kept in lineValues.
+     * @param playerIndex the index of the player.
+     * @param cell the cell, row * columns + col.
+     * @param set true to set the bit, false to clear it.
+     */
+    private void update(int playerIndex, int cell, boolean set) {
+        for (int j = lineTable.getCellLinesStart(cell); j < lineTable.getCellLinesEnd(cell); j++) {
+            int line = lineTable.getCellLine(j);
+            int index = 2 * line + playerIndex;
+            if (set) {
+                lineBits[index] |= cellLineBits[j];
+            } else {
+                lineBits[index] &= ~cellLineBits[j];
+            }
+            int value = lineValue(line);
+            score += value - lineValues[line];
+            lineValues[line] = value;
+        }
+    }
+
+    /**
+     * This method returns the value of a line for the first player.
+     * @param line the line.
+     * @return the value, positive for a line of the first player, negative for a line of the second player,
+     *         0 for a line that is empty, that holds tokens of both players or that is complete.
+     */
+    private int lineValue(int line) {
+        int first = lineBits[2 * line];
+        int second = lineBits[2 * line + 1];
+        if ((first == 0) == (second == 0)) {
+            return 0;
+        }
+        int bits = first | second;
+        int count = Integer.bitCount(bits);
+        int value;
+        if (count == lineLength - 1) {
+            int empty = Integer.lowestOneBit(~bits);
+            boolean oddRow = (oddRowBits[line] & empty) != 0;
+            // the first player is favoured by the odd rows and the second player by the even rows
+            value = THREE_WEIGHT + ((oddRow == (first != 0)) ? PARITY_BONUS : 0);
+        } else if (count == lineLength - 2) {
+            value = TWO_WEIGHT;
+        } else {
+            return 0;
+        }
+        return (first != 0) ? value : -value;
+    }
+
+
+}
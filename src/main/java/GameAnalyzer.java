@@ -0,0 +1,332 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class comments the games of a game log (see GameLog) with the search of the robot player.
+ * The calling thread reads the games one at a time and hands them to a pool of workers through a
+ * bounded queue, so that the memory used does not depend on the size of the log: when the workers
+ * are behind, the reading waits. Each worker has its own robots, with their own transposition
+ * tables, and searches every position of its games with PlayerRobot.evaluateColumns.
+ * <p>
+ * Each game is written to the output file as one JSON line as soon as it is analysed, so the lines
+ * follow the order in which the workers finish and carry the index of the game in the log. For every
+ * move the line gives the column played and its score, the best column and its score, the depth
+ * searched and a mark: "missedWin" when the player could force a win and the column played does not,
+ * "blunder" when the column played lets the opponent force a win that the best column avoids, "ok" otherwise.
+ * Usage: java GameAnalyzer log output [robot] [threads]
+ * where the robot is described as in PlayerFactory.parse (default robot:8) and threads defaults to
+ * the number of processors.
+ */
+public class GameAnalyzer {
+
+    // Fields
+    /** The robot used when none is given on the command line. */
+    public static final String DEFAULT_ROBOT = "robot:8";
+    /** The number of games waiting in the queue for each worker. */
+    private static final int QUEUED_GAMES_PER_THREAD = 64;
+    /** The names of the results of GameLog, as written in the output. */
+    private static final String[] RESULT_NAMES = {"first", "second", "draw", "unfinished"};
+    /** The record put in the queue after the last game, to stop the workers. */
+    private static final GameRecord END_OF_LOG = new GameRecord(-1, -1, 0, 0, 0, GameLog.UNFINISHED, "");
+    /** The factory of the robots searching the positions. */
+    private final PlayerFactory robotFactory;
+    /** The writer of the results, one JSON line per game. */
+    private final Writer output;
+    /** The number of games analysed. */
+    private final LongAdder games = new LongAdder();
+    /** The number of positions searched. */
+    private final LongAdder positions = new LongAdder();
+    /** The number of moves marked as blunders. */
+    private final LongAdder blunders = new LongAdder();
+    /** The number of moves marked as missed wins. */
+    private final LongAdder missedWins = new LongAdder();
+    /** The number of games that could not be replayed. */
+    private final LongAdder errors = new LongAdder();
+
+    // Constructor
+    /**
+     * Constructor for the GameAnalyzer class.
+     * @param robotFactory the factory of the robots searching the positions, which must create PlayerRobot objects.
+     * @param output the writer of the results, one JSON line per game.
+     */
+    public GameAnalyzer(PlayerFactory robotFactory, Writer output) {
+        this.robotFactory = robotFactory;
+        this.output = output;
+    }
+
+    // Methods
+    /**
+     * Analyses a game log from the command line.
+     * @param args the game log, the output file, optionally the description of the robot and the number of threads.
+     * @throws IOException if the log cannot be read or the output cannot be written.
+     * @throws InterruptedException if the tool is interrupted while waiting for the workers.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println("Usage: java GameAnalyzer log output [robot] [threads]");
+            return;
+        }
+        PlayerFactory robotFactory = PlayerFactory.parse((args.length > 2) ? args[2] : DEFAULT_ROBOT);
+        int threads = (args.length > 3) ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        try (GameLog log = new GameLog(Paths.get(args[0]));
+             BufferedWriter writer = Files.newBufferedWriter(Paths.get(args[1]))) {
+            GameAnalyzer analyzer = new GameAnalyzer(robotFactory, writer);
+            long start = System.nanoTime();
+            analyzer.analyse(log, threads);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%.1f s, %.0f positions/s%n", seconds, analyzer.getPositions() / seconds);
+            System.out.print(analyzer.summary());
+        }
+    }
+
+    /**
+     * This method analyses the games of a log from its current position to its end, and waits
+     * for all of them to be written to the output.
+     * @param log the game log, read on the calling thread only.
+     * @param threads the number of workers.
+     * @throws IOException if the log cannot be read.
+     * @throws InterruptedException if the thread is interrupted while waiting for the workers.
+     */
+    public void analyse(GameLog log, int threads) throws IOException, InterruptedException {
+        BlockingQueue<GameRecord> queue = new ArrayBlockingQueue<>(threads * QUEUED_GAMES_PER_THREAD);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(pool.submit(() -> runWorker(queue)));
+            }
+            long index = 0;
+            while (log.next()) {
+                put(queue, GameRecord.of(log, index++), workers);
+            }
+            put(queue, END_OF_LOG, workers);
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A worker failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * This method returns the number of positions searched so far.
+     * @return the number of positions.
+     */
+    public long getPositions() {
+        return positions.sum();
+    }
+
+    /**
+     * This method returns a summary of the games analysed so far.
+     * @return the summary, on one line.
+     */
+    public String summary() {
+        return String.format("games %d, positions %d, blunders %d, missed wins %d, errors %d%n",
+                games.sum(), positions.sum(), blunders.sum(), missedWins.sum(), errors.sum());
+    }
+
+    /**
+     * This method puts a game in the queue, waiting while the queue is full.
+     * A worker that failed stops the reading instead of leaving it waiting forever.
+     * @param queue the queue of the games.
+     * @param game the game.
+     * @param workers the futures of the workers.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     * @throws ExecutionException if a worker failed.
+     */
+    private static void put(BlockingQueue<GameRecord> queue, GameRecord game, List<Future<?>> workers)
+            throws InterruptedException, ExecutionException {
+        while (!queue.offer(game, 100, TimeUnit.MILLISECONDS)) {
+            for (Future<?> worker : workers) {
+                if (worker.isDone()) {
+                    worker.get();
+                }
+            }
+        }
+    }
+
+    /**
+     * This method takes the games from the queue and analyses them until the end of the log.
+     * The board and the robots are kept from one game to the next, and only created again
+     * when a game of another variant arrives. The robots are closed when they are replaced or the worker ends.
+     * @param queue the queue of the games.
+     */
+    private void runWorker(BlockingQueue<GameRecord> queue) {
+        Token first = new Token(BoardGui.humanPlayerSymbol);
+        Token second = new Token(BoardGui.robotPlayerSymbol);
+        Board board = null;
+        PlayerRobot[] robots = new PlayerRobot[2];
+        try {
+            while (true) {
+                GameRecord game = queue.take();
+                if (game == END_OF_LOG) {
+                    // leave it for the other workers
+                    queue.put(END_OF_LOG);
+                    return;
+                }
+                if (board == null || !game.isVariantOf(board)) {
+                    closeRobots(robots);
+                    board = game.newBoard();
+                    board.getPlayerIndex(first);
+                    board.getPlayerIndex(second);
+                    robots[0] = createRobot(first, board);
+                    robots[1] = createRobot(second, board);
+                }
+                String line;
+                try {
+                    line = analyseGame(game, board, robots);
+                } catch (IllegalArgumentException e) {
+                    errors.increment();
+                    line = String.format("{\"game\":%d,\"offset\":%d,\"error\":\"%s\"}",
+                            game.getIndex(), game.getOffset(), escapeJson(String.valueOf(e.getMessage())));
+                }
+                write(line);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeRobots(robots);
+        }
+    }
+
+    /**
+     * This method closes the robots of a worker and forgets them.
+     * @param robots the robots, null when they were not created.
+     */
+    private void closeRobots(PlayerRobot[] robots) {
+        for (int i = 0; i < robots.length; i++) {
+            if (robots[i] != null) {
+                robots[i].close();
+                robots[i] = null;
+            }
+        }
+    }
+
+    /**
+     * This method creates a quiet robot.
+     * @param token the token of the robot.
+     * @param board the board of the robot.
+     * @return the robot.
+     * @throws IllegalArgumentException if the factory does not create a robot.
+     */
+    private PlayerRobot createRobot(Token token, Board board) {
+        Player player = robotFactory.create(token, board);
+        if (!(player instanceof PlayerRobot)) {
+            player.close();
+            throw new IllegalArgumentException("The games can only be analysed by a robot");
+        }
+        return (PlayerRobot) player;
+    }
+
+    /**
+     * This method replays a game on an empty board, searching the position before every move,
+     * and leaves the board empty again.
+     * @param game the game.
+     * @param board the empty board, of the variant of the game, shared with the robots.
+     * @param robots the robots of the first and the second player.
+     * @return the JSON line of the game.
+     * @throws IllegalArgumentException if a move of the game cannot be played.
+     */
+    private String analyseGame(GameRecord game, Board board, PlayerRobot[] robots) {
+        StringBuilder annotations = new StringBuilder();
+        int gameBlunders = 0;
+        int gameMissedWins = 0;
+        int played = 0;
+        try {
+            for (int move = 0; move < game.getNumberMoves(); move++) {
+                int col = game.getMove(move);
+                if (!board.isValidMove(col)) {
+                    throw new IllegalArgumentException("Invalid move " + col + " at position " + move);
+                }
+                PlayerRobot robot = robots[move % 2];
+                int best = robot.evaluateColumns();
+                ParallelSearch search = robot.getSearch();
+                int bestScore = search.getColumnScore(best);
+                int score = search.getColumnScore(col);
+                String mark = "ok";
+                if (bestScore > 0 && SearchEngine.isWinScore(bestScore) && !(score > 0 && SearchEngine.isWinScore(score))) {
+                    mark = "missedWin";
+                    gameMissedWins++;
+                } else if (score < 0 && SearchEngine.isWinScore(score) && !(bestScore < 0 && SearchEngine.isWinScore(bestScore))) {
+                    mark = "blunder";
+                    gameBlunders++;
+                }
+                if (move > 0) {
+                    annotations.append(',');
+                }
+                annotations.append(String.format("{\"move\":%d,\"column\":%d,\"score\":%d,\"best\":%d,\"bestScore\":%d,"
+                                + "\"depth\":%d,\"mark\":\"%s\"}",
+                        move, col, score, best, bestScore, search.getCompletedDepth(), mark));
+                positions.increment();
+
+                played++;
+                if (board.play(col, robot.getToken())) {
+                    break;
+                }
+            }
+        } finally {
+            for (int move = played - 1; move >= 0; move--) {
+                board.undo();
+            }
+        }
+        games.increment();
+        blunders.add(gameBlunders);
+        missedWins.add(gameMissedWins);
+        return String.format("{\"game\":%d,\"offset\":%d,\"variant\":\"%s\",\"result\":\"%s\",\"moves\":\"%s\","
+                        + "\"blunders\":%d,\"missedWins\":%d,\"annotations\":[%s]}",
+                game.getIndex(), game.getOffset(), game.getVariant(), RESULT_NAMES[game.getResult()], game.getMoves(),
+                gameBlunders, gameMissedWins, annotations);
+    }
+
+    /**
+     * This method escapes a text to be written between the quotes of a JSON string.
+     * @param text the text.
+     * @return the text with its quotes, backslashes and control characters escaped.
+     */
+    private static String escapeJson(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < ' ') {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * This method writes a line to the output.
+     * @param line the line, without the line separator.
+     */
+    private synchronized void write(String line) {
+        try {
+            output.write(line);
+            output.write(System.lineSeparator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+}
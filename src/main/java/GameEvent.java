@@ -0,0 +1,29 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * This class is the Flight Recorder event of a game played through GameLogic, lasting from the creation
+ * of the game logic to the end of the game, or to the moment it was abandoned.
+ * It is only recorded when a recording is running, and the counts of all the games are kept by GameMetrics.
+ */
+@Name("connectfour.Game")
+@Label("Game")
+@Category("Connect Four")
+@Description("A game from its start to its end")
+public class GameEvent extends jdk.jfr.Event {
+
+    // Fields
+    /** The variant of the board, see Board.getVariant. */
+    @Label("Variant")
+    public String variant;
+    /** The number of tokens on the board at the end. */
+    @Label("Tokens")
+    public int tokens;
+    /** How the game ended: WIN, DRAW or ABANDONED. */
+    @Label("Outcome")
+    public String outcome;
+
+
+}
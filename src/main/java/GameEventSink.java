@@ -0,0 +1,107 @@
+/**
+ * This interface receives the events of the games: the games started and ended, the moves played,
+ * the invalid moves, the moves taken back and the decisions of the robots. An event is given as a few numbers instead of an
+ * object or a message, so that recording it allocates nothing and a sink that ignores the events
+ * (see NoOpEventSink) costs almost nothing. The meaning of the numbers depends on the type of the event:
+ * <pre>
+ *   GAME_STARTED    side -1, column -1, row -1, value = rows &lt;&lt; 16 | columns &lt;&lt; 8 | connect length, score = tokens
+ *   MOVE            side, column, row, value = tokens on the board after the move, score 0
+ *   INVALID_MOVE    side, column, row -1, value 0, score 0
+ *   ROBOT_DECISION  side, column, row -1, value = detail &lt;&lt; 8 | kind of decision, score of the column
+ *   GAME_ENDED      side of the winner or -1, column -1, row -1, value = outcome, score = tokens on the board
+ *   MOVE_UNDONE     side of the player who made the move, column, row, value = tokens on the board after, score 0
+ * </pre>
+ * The sink of the program is kept by GameTrace. The sinks can be called from several threads at the same time.
+ */
+public interface GameEventSink extends AutoCloseable {
+
+    /** The type of the event of a game started. */
+    int GAME_STARTED = 1;
+    /** The type of the event of a move played. */
+    int MOVE = 2;
+    /** The type of the event of a column that could not be played. */
+    int INVALID_MOVE = 3;
+    /** The type of the event of a column chosen by a robot. */
+    int ROBOT_DECISION = 4;
+    /** The type of the event of a game won, drawn or abandoned. */
+    int GAME_ENDED = 5;
+    /** The type of the event of a move taken back. */
+    int MOVE_UNDONE = 6;
+
+    /** The decision of a robot playing the move of its opening book. */
+    int DECISION_BOOK = 0;
+    /** The decision of a robot playing the best column of its search, the detail being the depth searched. */
+    int DECISION_SEARCH = 1;
+    /** The decision of a robot playing a winning move. */
+    int DECISION_WIN = 2;
+    /** The decision of a robot blocking a winning move of its opponent. */
+    int DECISION_BLOCK = 3;
+    /** The decision of a robot playing at random. */
+    int DECISION_RANDOM = 4;
+    /** The decision of a robot finding no column to play. */
+    int DECISION_NONE = 5;
+    /** The decision of a Monte Carlo robot, the detail being the thousands of playouts and the score a percentage. */
+    int DECISION_PLAYOUTS = 6;
+    /** The decision of a robot giving up its opening book, which cannot be read, column -1. */
+    int DECISION_BOOK_UNREADABLE = 7;
+
+    /** The outcome of a game won by a player. */
+    int OUTCOME_WIN = 1;
+    /** The outcome of a drawn game. */
+    int OUTCOME_DRAW = 2;
+    /** The outcome of a game abandoned before it was over. */
+    int OUTCOME_ABANDONED = 3;
+
+    /**
+     * This method records an event.
+     * @param type the type of the event, GAME_STARTED, MOVE, INVALID_MOVE, ROBOT_DECISION, GAME_ENDED
+     *             or MOVE_UNDONE.
+     * @param game the number of the game, see GameTrace.nextGameNumber.
+     * @param side the player of the event, 0 for the first player and 1 for the second, -1 for none.
+     * @param column the column of the event, -1 for none.
+     * @param row the row of the event, -1 for none.
+     * @param value the first number of the event, see the description of the interface.
+     * @param score the second number of the event, see the description of the interface.
+     */
+    void record(int type, int game, int side, int column, int row, int value, int score);
+
+    /**
+     * This method records an event that happened earlier, for the sinks that are handed the events
+     * after a while, such as the back end of RingBufferEventSink. The sinks that keep the time of the
+     * events use the given time, the others ignore it.
+     * @param nanoTime the value of System.nanoTime when the event happened.
+     * @param type the type of the event.
+     * @param game the number of the game.
+     * @param side the player of the event, -1 for none.
+     * @param column the column of the event, -1 for none.
+     * @param row the row of the event, -1 for none.
+     * @param value the first number of the event.
+     * @param score the second number of the event.
+     */
+    default void recordAt(long nanoTime, int type, int game, int side, int column, int row, int value, int score) {
+        record(type, game, side, column, row, value, score);
+    }
+
+    /**
+     * This method checks if the events are kept, so that the caller can skip preparing an event.
+     * @return true if the events are kept, false if they are ignored.
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * This method writes the events recorded so far, for the sinks that keep them in a buffer.
+     */
+    default void flush() {
+    }
+
+    /**
+     * This method writes the events recorded so far and releases the resources of the sink,
+     * which must not be used afterwards.
+     */
+    @Override
+    default void close() {
+        flush();
+    }
+}
@@ -0,0 +1,325 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class reads a log of finished games, written by GameLogWriter.
+ * The file is mapped in memory a window at a time, so that a log of any size is read without
+ * loading it and without parsing text, and any game can be replayed into a Board or a GameLogic.
+ * <p>
+ * The file starts with a header, followed by one record per game:
+ * <pre>
+ *   header: magic (int), version (int)
+ *   record: columns - 1 (4 bits), rows - 1 (4 bits),
+ *           tokens in line to win (4 bits), result (2 bits), unused (2 bits),
+ *           number of moves (unsigned short),
+ *           the columns played, one per 4 bits starting with the high bits of each byte
+ * </pre>
+ * All the numbers are big-endian. A game of 7x6 connect four with 25 moves takes 17 bytes.
+ * Boards up to 16 columns and 16 rows, with up to 15 tokens in line to win, can be logged.
+ * Usage: java GameLog file [game]
+ * prints the number of games and their results, or the moves and the final board of a game (from 0).
+ */
+public class GameLog implements AutoCloseable {
+
+    // Fields
+    /** The magic number at the start of a log file, "C4GL" in ASCII. */
+    public static final int MAGIC = 0x4334474C;
+    /** The version of the file format. */
+    public static final int VERSION = 1;
+    /** The number of bytes of the file header. */
+    public static final int HEADER_BYTES = 8;
+    /** The number of bytes of the header of each record. */
+    public static final int RECORD_HEADER_BYTES = 4;
+    /** The result of a game won by the first player. */
+    public static final int FIRST_PLAYER_WINS = 0;
+    /** The result of a game won by the second player. */
+    public static final int SECOND_PLAYER_WINS = 1;
+    /** The result of a drawn game. */
+    public static final int DRAW = 2;
+    /** The result of a game that was stopped before the end. */
+    public static final int UNFINISHED = 3;
+    /** The largest number of columns, rows or tokens in line of a logged game. */
+    public static final int MAX_SIZE = 16;
+    /** The number of bytes mapped at a time. */
+    private static final long WINDOW_BYTES = 1L << 28;
+    /** The channel of the log file. */
+    private final FileChannel channel;
+    /** The size of the log file when it was opened. */
+    private final long size;
+    /** The window of the file mapped in memory. */
+    private MappedByteBuffer window;
+    /** The offset in the file of the start of the window. */
+    private long windowStart;
+    /** The offset in the file of the current record, or -1 before the first call to next. */
+    private long recordOffset = -1;
+    /** The offset in the file of the next record. */
+    private long nextOffset = HEADER_BYTES;
+    /** The position in the window of the moves of the current record. */
+    private int movesPosition;
+    /** The number of columns of the current game. */
+    private int numberColumns;
+    /** The number of rows of the current game. */
+    private int numberRows;
+    /** The number of tokens in line needed to win in the current game. */
+    private int connectLength;
+    /** The result of the current game. */
+    private int result;
+    /** The number of moves of the current game. */
+    private int numberMoves;
+
+    // Constructor
+    /**
+     * Constructor for the GameLog class.
+     * @param path the path of the log file.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if the file is not a game log.
+     */
+    public GameLog(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        if (size < HEADER_BYTES) {
+            channel.close();
+            throw new IllegalArgumentException("Not a game log: " + path);
+        }
+        map(0);
+        if (window.getInt(0) != MAGIC || window.getInt(4) != VERSION) {
+            channel.close();
+            throw new IllegalArgumentException("Not a game log: " + path);
+        }
+    }
+
+    // Methods
+    /**
+     * Prints the content of a log from the command line.
+     * @param args the path of the log file and, optionally, the index of a game to print.
+     * @throws IOException if the file cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java GameLog file [game]");
+            return;
+        }
+        try (GameLog log = new GameLog(Paths.get(args[0]))) {
+            if (args.length > 1) {
+                long index = Long.parseLong(args[1]);
+                for (long i = 0; i <= index; i++) {
+                    if (!log.next()) {
+                        System.out.println("The log only has " + i + " games");
+                        return;
+                    }
+                }
+                System.out.println(log.getVariant() + ", result " + log.getResult() + ", moves " + log.getMoves());
+                Board board = log.replay();
+                for (int row = 0; row < board.getNumberRows(); row++) {
+                    StringBuilder line = new StringBuilder();
+                    for (int col = 0; col < board.getNumberColumns(); col++) {
+                        Token token = board.getBoardItem(row, col);
+                        line.append((token != null) ? token.getSymbol() : ".");
+                    }
+                    System.out.println(line);
+                }
+                return;
+            }
+            long[] results = new long[4];
+            long games = 0;
+            long moves = 0;
+            while (log.next()) {
+                results[log.getResult()]++;
+                games++;
+                moves += log.getNumberMoves();
+            }
+            System.out.printf("%d games, %d moves, first player wins %d, second player wins %d, draws %d, unfinished %d%n",
+                    games, moves, results[FIRST_PLAYER_WINS], results[SECOND_PLAYER_WINS], results[DRAW], results[UNFINISHED]);
+        }
+    }
+
+    /**
+     * This method moves to the next game of the log.
+     * A record that was only partly written, for example because the program writing it stopped, ends the log.
+     * @return true if there is a next game, false at the end of the log.
+     * @throws IOException if the file cannot be read.
+     */
+    public boolean next() throws IOException {
+        long offset = nextOffset;
+        if (offset + RECORD_HEADER_BYTES > size) {
+            return false;
+        }
+        int maxRecordBytes = RECORD_HEADER_BYTES + (MAX_SIZE * MAX_SIZE + 1) / 2;
+        long windowEnd = windowStart + window.limit();
+        if (offset < windowStart || (offset + maxRecordBytes > windowEnd && windowEnd < size)) {
+            map(offset);
+        }
+        int position = (int) (offset - windowStart);
+        int sizes = window.get(position) & 0xFF;
+        int rules = window.get(position + 1) & 0xFF;
+        int moves = window.getShort(position + 2) & 0xFFFF;
+        if (offset + RECORD_HEADER_BYTES + (moves + 1) / 2 > size) {
+            return false;
+        }
+        numberColumns = (sizes >>> 4) + 1;
+        numberRows = (sizes & 0xF) + 1;
+        connectLength = rules >>> 4;
+        result = (rules >>> 2) & 0x3;
+        numberMoves = moves;
+        movesPosition = position + RECORD_HEADER_BYTES;
+        recordOffset = offset;
+        nextOffset = offset + RECORD_HEADER_BYTES + (moves + 1) / 2;
+        return true;
+    }
+
+    /**
+     * This method returns the offset in the file of the current game, which can be given to seek
+     * to come back to it later.
+     * @return the offset, or -1 before the first call to next.
+     */
+    public long getOffset() {
+        return recordOffset;
+    }
+
+    /**
+     * This method goes to a game of the log, so that the next call to next reads it.
+     * @param offset the offset of the game, as returned by getOffset.
+     */
+    public void seek(long offset) {
+        nextOffset = offset;
+    }
+
+    /**
+     * This method returns the number of columns of the board of the current game.
+     * @return the number of columns.
+     */
+    public int getNumberColumns() {
+        return numberColumns;
+    }
+
+    /**
+     * This method returns the number of rows of the board of the current game.
+     * @return the number of rows.
+     */
+    public int getNumberRows() {
+        return numberRows;
+    }
+
+    /**
+     * This method returns the number of tokens in line needed to win in the current game.
+     * @return the number of tokens in line.
+     */
+    public int getConnectLength() {
+        return connectLength;
+    }
+
+    /**
+     * This method returns the variant of the board of the current game, as read by Board.parse.
+     * @return the variant.
+     */
+    public String getVariant() {
+        return Board.variantName(numberRows, numberColumns, connectLength);
+    }
+
+    /**
+     * This method returns the result of the current game.
+     * @return FIRST_PLAYER_WINS, SECOND_PLAYER_WINS, DRAW or UNFINISHED.
+     */
+    public int getResult() {
+        return result;
+    }
+
+    /**
+     * This method returns the number of moves of the current game.
+     * @return the number of moves.
+     */
+    public int getNumberMoves() {
+        return numberMoves;
+    }
+
+    /**
+     * This method returns a move of the current game.
+     * @param index the index of the move, from 0 for the first move.
+     * @return the column played.
+     */
+    public int getMove(int index) {
+        int packed = window.get(movesPosition + index / 2);
+        return ((index % 2 == 0) ? packed >>> 4 : packed) & 0xF;
+    }
+
+    /**
+     * This method returns the moves of the current game as text, one column (from '0') per move,
+     * as used by BenchmarkPositions and by the command line tools.
+     * @return the moves.
+     */
+    public String getMoves() {
+        StringBuilder moves = new StringBuilder(numberMoves);
+        for (int i = 0; i < numberMoves; i++) {
+            moves.append((char) ('0' + getMove(i)));
+        }
+        return moves.toString();
+    }
+
+    /**
+     * This method creates an empty board of the variant of the current game.
+     * @return the new board.
+     */
+    public Board newBoard() {
+        return new Board(numberRows, numberColumns, connectLength);
+    }
+
+    /**
+     * This method replays all the moves of the current game on a new board,
+     * with the tokens of BoardGui, the human symbol moving first.
+     * @return the board at the end of the game.
+     */
+    public Board replay() {
+        Board board = newBoard();
+        Token first = new Token(BoardGui.humanPlayerSymbol);
+        Token second = new Token(BoardGui.robotPlayerSymbol);
+        board.getPlayerIndex(first);
+        board.getPlayerIndex(second);
+        for (int i = 0; i < numberMoves; i++) {
+            int col = getMove(i);
+            board.play(col, (i % 2 == 0) ? first : second);
+        }
+        return board;
+    }
+
+    /**
+     * This method replays the first moves of the current game through a game logic,
+     * whose current player must be the first player and whose board must be empty.
+     * @param gameLogic the game logic.
+     * @param moves the number of moves to replay, at most the number of moves of the game.
+     */
+    public void replay(GameLogic gameLogic, int moves) {
+        for (int i = 0; i < moves; i++) {
+            gameLogic.placeTokenOnBoard(getMove(i));
+            if (!gameLogic.isGameOver()) {
+                gameLogic.switchPlayer();
+            }
+        }
+    }
+
+    /**
+     * This method closes the log file.
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * This method maps a window of the file in memory.
+     * @param start the offset in the file of the start of the window.
+     * @throws IOException if the file cannot be mapped.
+     */
+    private void map(long start) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_BYTES, size - start));
+        window.order(ByteOrder.BIG_ENDIAN);
+        windowStart = start;
+    }
+
+
+}
@@ -0,0 +1,155 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class appends finished games to a game log, in the format described in GameLog.
+ * The records are collected in a buffer and written to the file through a FileChannel when
+ * the buffer is full, when flush is called and when the writer is closed, so that logging a game
+ * costs a copy of a few bytes. The writer can be shared by several threads.
+ */
+public class GameLogWriter implements AutoCloseable {
+
+    // Fields
+    /** The system property with the path of the game log, see fromProperty. */
+    public static final String GAME_LOG_PROPERTY = "connectfour.gameLog";
+    /** The number of bytes collected before they are written to the file. */
+    private static final int BATCH_BYTES = 64 * 1024;
+    /** The channel of the log file. */
+    private final FileChannel channel;
+    /** The records not written to the file yet. */
+    private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_BYTES);
+
+    // Constructor
+    /**
+     * Constructor for the GameLogWriter class. The file is created if it does not exist,
+     * otherwise the games are appended to the games already in the file.
+     * @param path the path of the log file.
+     * @throws IOException if the file cannot be opened.
+     * @throws IllegalArgumentException if the file exists and is not a game log.
+     */
+    public GameLogWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(GameLog.HEADER_BYTES);
+            header.putInt(GameLog.MAGIC).putInt(GameLog.VERSION).flip();
+            writeFully(header);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(GameLog.HEADER_BYTES);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < GameLog.HEADER_BYTES || header.getInt() != GameLog.MAGIC
+                    || header.getInt() != GameLog.VERSION) {
+                channel.close();
+                throw new IllegalArgumentException("Not a game log: " + path);
+            }
+            channel.position(channel.size());
+        }
+    }
+
+    // Methods
+    /**
+     * This method opens the game log at the path of the GAME_LOG_PROPERTY system property.
+     * @return the writer, or null if the property is not set.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static GameLogWriter fromProperty() throws IOException {
+        String path = System.getProperty(GAME_LOG_PROPERTY);
+        return (path != null) ? new GameLogWriter(Paths.get(path)) : null;
+    }
+
+    /**
+     * This method appends the game played through a game logic, started on an empty board.
+     * @param gameLogic the game logic of the game.
+     * @throws IOException if the file cannot be written.
+     */
+    public void append(GameLogic gameLogic) throws IOException {
+        Board board = gameLogic.getBoard();
+        int result;
+        if (gameLogic.isGameOver()) {
+            // the board gives index 0 to the token of the first player
+            Token winner = board.getBoardItem(gameLogic.getLastRow(), gameLogic.getLastCol());
+            result = (board.getPlayerIndex(winner) == 0) ? GameLog.FIRST_PLAYER_WINS : GameLog.SECOND_PLAYER_WINS;
+        } else {
+            result = gameLogic.isDraw() ? GameLog.DRAW : GameLog.UNFINISHED;
+        }
+        int[] moves = gameLogic.getPlayedMoves();
+        append(board, result, moves, moves.length);
+    }
+
+    /**
+     * This method appends a game.
+     * @param board a board of the variant of the game.
+     * @param result the result of the game, GameLog.FIRST_PLAYER_WINS, SECOND_PLAYER_WINS, DRAW or UNFINISHED.
+     * @param moves the columns played.
+     * @param numberMoves the number of moves of the game.
+     * @throws IOException if the file cannot be written.
+     * @throws IllegalArgumentException if the board is too large to be logged.
+     */
+    public synchronized void append(Board board, int result, int[] moves, int numberMoves) throws IOException {
+        int columns = board.getNumberColumns();
+        int rows = board.getNumberRows();
+        if (columns > GameLog.MAX_SIZE || rows > GameLog.MAX_SIZE || board.getConnectLength() >= GameLog.MAX_SIZE) {
+            throw new IllegalArgumentException("A " + board.getVariant() + " board is too large for the game log");
+        }
+        int recordBytes = GameLog.RECORD_HEADER_BYTES + (numberMoves + 1) / 2;
+        if (batch.remaining() < recordBytes) {
+            flushBatch();
+        }
+        batch.put((byte) (((columns - 1) << 4) | (rows - 1)));
+        batch.put((byte) ((board.getConnectLength() << 4) | (result << 2)));
+        batch.putShort((short) numberMoves);
+        for (int i = 0; i < numberMoves; i += 2) {
+            int high = moves[i] << 4;
+            int low = (i + 1 < numberMoves) ? moves[i + 1] : 0;
+            batch.put((byte) (high | low));
+        }
+    }
+
+    /**
+     * This method writes the games appended so far to the file.
+     * @throws IOException if the file cannot be written.
+     */
+    public synchronized void flush() throws IOException {
+        flushBatch();
+    }
+
+    /**
+     * This method writes the games appended so far to the file and closes it.
+     * @throws IOException if the file cannot be written.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flushBatch();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * This method writes the batch to the file and empties it.
+     * @throws IOException if the file cannot be written.
+     */
+    private void flushBatch() throws IOException {
+        batch.flip();
+        writeFully(batch);
+        batch.clear();
+    }
+
+    /**
+     * This method writes a buffer to the file at the current position.
+     * @param buffer the buffer.
+     * @throws IOException if the file cannot be written.
+     */
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+
+}
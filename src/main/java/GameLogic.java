@@ -1,7 +1,17 @@
+import java.util.Arrays;
+
 /**
  * This class is responsible for the game logic of the Connect Four game.
  * This involves switching players, placing tokens on the board,
  * checking if the game is over, and checking if the game is a draw.
+ * The end of the game is checked after each move, only looking at the lines through
+ * the last token placed, and a move counter tells when the board is full.
+ * A game is counted by GameMetrics from the creation of the game logic until it is over,
+ * or until abandon is called when it is left before the end.
+ * The moves are played on the board with Board.play, and while the game is in progress they can be
+ * taken back with undoMove and played again with redoMove, a new move forgetting the moves taken back.
+ * The start and the end of the game, the moves, the invalid moves and the moves taken back are recorded
+ * in the game event sink of the program (see GameTrace), under the number of the game.
  */
 public class GameLogic {
 
@@ -14,6 +24,28 @@ public class GameLogic {
     private final Player player2;
     /** The current player. */
     private Player currentPlayer;
+    /** The number of tokens on the board. */
+    private int moveCount;
+    /** The row of the last token placed, or -1 if no token was placed yet. */
+    private int lastRow = -1;
+    /** The column of the last token placed, or -1 if no token was placed yet. */
+    private int lastCol = -1;
+    /** The columns played through this game logic, in order. */
+    private final int[] playedMoves;
+    /** The number of columns played through this game logic. */
+    private int numberPlayedMoves = 0;
+    /** The columns taken back with undoMove, the last one taken back at the end. */
+    private final int[] undoneMoves;
+    /** The number of columns taken back that can be played again with redoMove. */
+    private int numberUndoneMoves = 0;
+    /** Whether the last token placed made enough tokens in a row to win. */
+    private boolean gameOver;
+    /** The number of the game in the game events. */
+    private final int gameNumber = GameTrace.nextGameNumber();
+    /** Whether the game is counted as in progress by GameMetrics. */
+    private boolean inProgress;
+    /** The Flight Recorder event of the game, begun when the game logic is created. */
+    private final GameEvent event = new GameEvent();
 
     // Constructor
     /**
@@ -27,6 +59,20 @@ public class GameLogic {
         this.player1 = player1;
         this.player2 = player2;
         this.currentPlayer = player1;
+        // the board may already contain tokens, so it is checked completely once
+        this.moveCount = board.getNumberTokens();
+        this.playedMoves = new int[board.getNumberRows() * board.getNumberColumns()];
+        this.undoneMoves = new int[playedMoves.length];
+        this.gameOver = board.checkHorizontally() || board.checkVertically() || board.checkDiagonally();
+        player1.joinGame(gameNumber, 0);
+        player2.joinGame(gameNumber, 1);
+        if (!isGameOver() && !isDraw()) {
+            inProgress = true;
+            event.begin();
+            GameMetrics.get().gameStarted();
+            int variant = (board.getNumberRows() << 16) | (board.getNumberColumns() << 8) | board.getConnectLength();
+            GameTrace.sink().record(GameEventSink.GAME_STARTED, gameNumber, -1, -1, -1, variant, moveCount);
+        }
     }
 
 
@@ -48,34 +94,195 @@ public class GameLogic {
 
     /**
      * This method places a token on the board in the given column.
+     * It records the cell of the token and checks if it made enough tokens in a row to win.
+     * The moves taken back with undoMove can no longer be played again with redoMove.
      * @param col the column where the token should be placed.
      */
     public void placeTokenOnBoard(int col) {
+        if (board.isValidMove(col)) {
+            numberUndoneMoves = 0;
+        }
+        playColumn(col);
+    }
+
+    /**
+     * This method takes back the last move played through this game logic, while the game is in progress,
+     * and gives the turn back to the player who made it. It is meant to be called when the turn has switched
+     * after the move, as it does after every move that does not end the game.
+     * @return true if a move was taken back, false if there is none or the game is not in progress.
+     */
+    public boolean undoMove() {
+        if (!canUndoMove()) {
+            return false;
+        }
+        int col = playedMoves[--numberPlayedMoves];
+        int row = board.getFirstAvailableRow(col) + 1;
+        board.undo();
+        undoneMoves[numberUndoneMoves++] = col;
+        moveCount--;
+        switchPlayer();
+        lastCol = (numberPlayedMoves > 0) ? playedMoves[numberPlayedMoves - 1] : -1;
+        lastRow = (lastCol >= 0) ? board.getFirstAvailableRow(lastCol) + 1 : -1;
+        GameTrace.sink().record(GameEventSink.MOVE_UNDONE, gameNumber, currentPlayer.getSide(), col, row, moveCount, 0);
+        return true;
+    }
+
+    /**
+     * This method plays again the last move taken back with undoMove, for the current player,
+     * as placeTokenOnBoard does. The turn is switched by the caller, as after any other move.
+     * @return the column played, or -1 if no move can be played again or the game is not in progress.
+     */
+    public int redoMove() {
+        if (!canRedoMove()) {
+            return -1;
+        }
+        int col = undoneMoves[--numberUndoneMoves];
+        playColumn(col);
+        return col;
+    }
+
+    /**
+     * This method checks if undoMove can take back a move.
+     * @return true if a move was played through this game logic and the game is in progress, false otherwise.
+     */
+    public boolean canUndoMove() {
+        return numberPlayedMoves > 0 && inProgress;
+    }
+
+    /**
+     * This method checks if redoMove can play a move again.
+     * @return true if a move was taken back since the last new move and the game is in progress, false otherwise.
+     */
+    public boolean canRedoMove() {
+        return numberUndoneMoves > 0 && inProgress;
+    }
+
+    /**
+     * This method plays a column for the current player, or records it as an invalid move if it cannot be played,
+     * and ends the game if the move wins or fills the board.
+     * @param col the column where the token should be placed.
+     */
+    private void playColumn(int col) {
         // it gets the token of the current player
         Token token = currentPlayer.getToken();
         if (board.isValidMove(col)) {
             int minRow = board.getFirstAvailableRow(col);
-            board.setToken(minRow, col, token);
+            boolean wins = board.play(col, token);
+            lastRow = minRow;
+            lastCol = col;
+            moveCount++;
+            playedMoves[numberPlayedMoves++] = col;
+            gameOver = gameOver || wins;
+            GameTrace.sink().record(GameEventSink.MOVE, gameNumber, currentPlayer.getSide(), col, minRow, moveCount, 0);
+            if (inProgress && (gameOver || isDraw())) {
+                end(gameOver ? GameEventSink.OUTCOME_WIN : GameEventSink.OUTCOME_DRAW);
+                GameMetrics.get().gameFinished();
+            }
         }
         else {
-            System.out.println("Invalid move!");
+            GameTrace.sink().record(GameEventSink.INVALID_MOVE, gameNumber, currentPlayer.getSide(), col, -1, 0, 0);
         }
     }
 
     /**
-     * This method checks if the game is over.
+     * This method tells that the game is left before it is over, for example when a new game is started
+     * in the GUI or when a remote player leaves, so that it is no longer counted as in progress.
+     * It does nothing if the game is over or was already abandoned.
+     */
+    public void abandon() {
+        if (inProgress) {
+            end(GameEventSink.OUTCOME_ABANDONED);
+            GameMetrics.get().gameAbandoned();
+        }
+    }
+
+    /**
+     * This method stops counting the game as in progress, records the end of the game in the game events
+     * and records its Flight Recorder event.
+     * @param outcome how the game ended, GameEventSink.OUTCOME_WIN, OUTCOME_DRAW or OUTCOME_ABANDONED.
+     */
+    private void end(int outcome) {
+        inProgress = false;
+        // the winner is the player who made the last move, the turn only switches after a move that does not win
+        int winner = (outcome == GameEventSink.OUTCOME_WIN) ? currentPlayer.getSide() : -1;
+        GameTrace.sink().record(GameEventSink.GAME_ENDED, gameNumber, winner, -1, -1, outcome, moveCount);
+        if (event.shouldCommit()) {
+            event.variant = board.getVariant();
+            event.tokens = moveCount;
+            event.outcome = switch (outcome) {
+                case GameEventSink.OUTCOME_WIN -> "WIN";
+                case GameEventSink.OUTCOME_DRAW -> "DRAW";
+                default -> "ABANDONED";
+            };
+            event.commit();
+        }
+    }
+
+    /**
+     * This method checks if the game is over, that is if a player made enough tokens in a row to win.
+     * The check is done when the token is placed, so this method does not scan the board.
      * @return true if the game is over, false otherwise.
      */
     public boolean isGameOver() {
-        return board.checkHorizontally() || board.checkVertically() || board.checkDiagonally();
+        return gameOver;
     }
 
     /**
-     * This method checks if the game is a draw.
+     * This method checks if the game is a draw, that is if the board is full
+     * and no player made enough tokens in a row to win.
      * @return true if the game is a draw, false otherwise.
      */
     public boolean isDraw() {
-        return (board.areAllColumnsFull() && !isGameOver());
+        return (moveCount == board.getNumberRows() * board.getNumberColumns() && !gameOver);
+    }
+
+    /**
+     * This method returns the number of tokens on the board.
+     * @return the number of tokens.
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * This method returns the columns played through this game logic, in order,
+     * which do not include the tokens already on the board when the game logic was created.
+     * @return a copy of the columns played.
+     */
+    public int[] getPlayedMoves() {
+        return Arrays.copyOf(playedMoves, numberPlayedMoves);
+    }
+
+    /**
+     * This method returns the number of the game in the game events.
+     * @return the number of the game.
+     */
+    public int getGameNumber() {
+        return gameNumber;
+    }
+
+    /**
+     * This method returns the board of the game.
+     * @return the board.
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * This method returns the row of the last token placed.
+     * @return the row, or -1 if no token was placed yet.
+     */
+    public int getLastRow() {
+        return lastRow;
+    }
+
+    /**
+     * This method returns the column of the last token placed.
+     * @return the column, or -1 if no token was placed yet.
+     */
+    public int getLastCol() {
+        return lastCol;
     }
 
 
@@ -0,0 +1,279 @@
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class counts what the robots and the games of the program do: the searches of PlayerRobot with the
+ * positions they visit, the depth they reach and how often they find their positions in the transposition
+ * table, the time the robots take to choose their moves, and the games started, finished and abandoned
+ * through GameLogic. There is one instance for the whole program, registered in the platform MBean server
+ * as ConnectFour:type=GameMetrics (see GameMetricsMXBean) the first time it is used.
+ * The counts are only updated once per search, move or game, with LongAdder and LatencyHistogram, so that
+ * the threads of the robots and of the games never wait for each other and the counts can always be on.
+ * The searches and the games are also recorded as Flight Recorder events, see SearchEvent and GameEvent.
+ */
+public class GameMetrics implements GameMetricsMXBean {
+
+    // Fields
+    /** The name of the instance in the platform MBean server. */
+    public static final String OBJECT_NAME = "ConnectFour:type=GameMetrics";
+    /** The instance of the program, registered when the class is initialized. */
+    private static final GameMetrics INSTANCE = register(new GameMetrics());
+    /** The number of searches. */
+    private final LongAdder searches = new LongAdder();
+    /** The number of positions visited by the searches. */
+    private final LongAdder nodes = new LongAdder();
+    /** The time spent searching, in nanoseconds. */
+    private final LongAdder searchNanos = new LongAdder();
+    /** The sum of the depths searched completely. */
+    private final LongAdder completedDepths = new LongAdder();
+    /** The greatest depth searched completely. */
+    private final LongAccumulator maxCompletedDepth = new LongAccumulator(Math::max, 0);
+    /** The number of positions looked up in the transposition tables. */
+    private final LongAdder tableProbes = new LongAdder();
+    /** The number of positions found in the transposition tables. */
+    private final LongAdder tableHits = new LongAdder();
+    /** The number of searches done while the opponent thinks. */
+    private final LongAdder ponderSearches = new LongAdder();
+    /** The number of positions visited while the opponent thinks. */
+    private final LongAdder ponderNodes = new LongAdder();
+    /** The number of moves of the robots found in the opening book. */
+    private final LongAdder bookMoves = new LongAdder();
+    /** The times taken by the robots to choose their moves. */
+    private final LatencyHistogram moveLatency = new LatencyHistogram();
+    /** The number of games started. */
+    private final LongAdder gamesStarted = new LongAdder();
+    /** The number of games won by a player or drawn. */
+    private final LongAdder gamesFinished = new LongAdder();
+    /** The number of games abandoned before they were over. */
+    private final LongAdder gamesAbandoned = new LongAdder();
+    /** The depth searched completely by the last search. */
+    private volatile int lastCompletedDepth;
+    /** The number of positions visited per second by the last search. */
+    private volatile long lastNodesPerSecond;
+
+    // Constructor
+    /**
+     * Constructor for the GameMetrics class, private as the program has one instance.
+     */
+    private GameMetrics() {
+    }
+
+    // Methods
+    /**
+     * This method returns the instance of the program.
+     * @return the instance.
+     */
+    public static GameMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * This method registers an instance in the platform MBean server. The counts still work if it fails,
+     * they are only not visible through JMX, which is reported on the console.
+     * @param metrics the instance.
+     * @return the instance.
+     */
+    private static GameMetrics register(GameMetrics metrics) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(OBJECT_NAME));
+        } catch (JMException | SecurityException e) {
+            System.out.println("The game metrics cannot be registered in JMX: " + e.getMessage());
+        }
+        return metrics;
+    }
+
+    /**
+     * This method counts a search of a robot.
+     * @param search the search, after it returned.
+     * @param nanos the time the search took, in nanoseconds.
+     * @param pondering whether the search was done while the opponent thinks.
+     */
+    public void recordSearch(ParallelSearch search, long nanos, boolean pondering) {
+        long searchNodes = search.getNodes();
+        int depth = search.getCompletedDepth();
+        searches.increment();
+        nodes.add(searchNodes);
+        searchNanos.add(nanos);
+        completedDepths.add(depth);
+        maxCompletedDepth.accumulate(depth);
+        tableProbes.add(search.getTableProbes());
+        tableHits.add(search.getTableHits());
+        if (pondering) {
+            ponderSearches.increment();
+            ponderNodes.add(searchNodes);
+        }
+        lastCompletedDepth = depth;
+        lastNodesPerSecond = perSecond(searchNodes, nanos);
+    }
+
+    /**
+     * This method counts a move of a robot.
+     * @param nanos the time the robot took to choose the move, in nanoseconds.
+     * @param fromBook whether the move was found in the opening book.
+     */
+    public void recordRobotMove(long nanos, boolean fromBook) {
+        moveLatency.record(nanos);
+        if (fromBook) {
+            bookMoves.increment();
+        }
+    }
+
+    /**
+     * This method counts a game started.
+     */
+    public void gameStarted() {
+        gamesStarted.increment();
+    }
+
+    /**
+     * This method counts a game won by a player or drawn.
+     */
+    public void gameFinished() {
+        gamesFinished.increment();
+    }
+
+    /**
+     * This method counts a game abandoned before it was over.
+     */
+    public void gameAbandoned() {
+        gamesAbandoned.increment();
+    }
+
+    @Override
+    public long getSearches() {
+        return searches.sum();
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    @Override
+    public long getSearchMillis() {
+        return searchNanos.sum() / 1_000_000;
+    }
+
+    @Override
+    public long getNodesPerSecond() {
+        return perSecond(nodes.sum(), searchNanos.sum());
+    }
+
+    @Override
+    public long getLastNodesPerSecond() {
+        return lastNodesPerSecond;
+    }
+
+    @Override
+    public double getMeanCompletedDepth() {
+        long count = searches.sum();
+        return (count > 0) ? (double) completedDepths.sum() / count : 0;
+    }
+
+    @Override
+    public long getMaxCompletedDepth() {
+        return maxCompletedDepth.get();
+    }
+
+    @Override
+    public int getLastCompletedDepth() {
+        return lastCompletedDepth;
+    }
+
+    @Override
+    public long getTableProbes() {
+        return tableProbes.sum();
+    }
+
+    @Override
+    public long getTableHits() {
+        return tableHits.sum();
+    }
+
+    @Override
+    public double getTableHitRate() {
+        long probes = tableProbes.sum();
+        return (probes > 0) ? (double) tableHits.sum() / probes : 0;
+    }
+
+    @Override
+    public long getPonderSearches() {
+        return ponderSearches.sum();
+    }
+
+    @Override
+    public long getPonderNodes() {
+        return ponderNodes.sum();
+    }
+
+    @Override
+    public long getRobotMoves() {
+        return moveLatency.getCount();
+    }
+
+    @Override
+    public long getBookMoves() {
+        return bookMoves.sum();
+    }
+
+    @Override
+    public double getMoveLatencyMeanMillis() {
+        return moveLatency.getMeanMillis();
+    }
+
+    @Override
+    public double getMoveLatencyP50Millis() {
+        return moveLatency.percentileMillis(0.5);
+    }
+
+    @Override
+    public double getMoveLatencyP99Millis() {
+        return moveLatency.percentileMillis(0.99);
+    }
+
+    @Override
+    public double getMoveLatencyMaxMillis() {
+        return moveLatency.getMaxMillis();
+    }
+
+    @Override
+    public long[] getMoveLatencyBuckets() {
+        return moveLatency.getBucketCounts();
+    }
+
+    @Override
+    public long getGamesInProgress() {
+        // the three counts are read one after the other, so the difference can be off while games end
+        return Math.max(gamesStarted.sum() - gamesFinished.sum() - gamesAbandoned.sum(), 0);
+    }
+
+    @Override
+    public long getGamesStarted() {
+        return gamesStarted.sum();
+    }
+
+    @Override
+    public long getGamesFinished() {
+        return gamesFinished.sum();
+    }
+
+    @Override
+    public long getGamesAbandoned() {
+        return gamesAbandoned.sum();
+    }
+
+    /**
+     * This method divides a number of positions by a time.
+     * @param count the number of positions.
+     * @param nanos the time in nanoseconds.
+     * @return the number of positions per second, 0 if the time is 0.
+     */
+    private static long perSecond(long count, long nanos) {
+        return (nanos > 0) ? (long) (count * 1e9 / nanos) : 0;
+    }
+
+
+}
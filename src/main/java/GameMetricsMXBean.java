@@ -0,0 +1,152 @@
+/**
+ * This interface is the management interface of GameMetrics, the attributes read through JMX,
+ * for example with JConsole, under the name ConnectFour:type=GameMetrics.
+ * The counts are totals since the program started, over all the robots and games of the program.
+ */
+public interface GameMetricsMXBean {
+
+    /**
+     * This method returns the number of searches of the robots, including the pondering.
+     * @return the number of searches.
+     */
+    long getSearches();
+
+    /**
+     * This method returns the number of positions visited by the searches of the robots, on all their threads.
+     * @return the number of positions.
+     */
+    long getNodes();
+
+    /**
+     * This method returns the time spent searching by the robots.
+     * @return the time in milliseconds, counted once for a search on several threads.
+     */
+    long getSearchMillis();
+
+    /**
+     * This method returns the number of positions visited per second of search since the program started.
+     * @return the number of positions per second, 0 before the first search.
+     */
+    long getNodesPerSecond();
+
+    /**
+     * This method returns the number of positions visited per second by the last search.
+     * @return the number of positions per second.
+     */
+    long getLastNodesPerSecond();
+
+    /**
+     * This method returns the mean depth searched completely by the searches.
+     * @return the mean depth, 0 before the first search.
+     */
+    double getMeanCompletedDepth();
+
+    /**
+     * This method returns the greatest depth searched completely by a search.
+     * @return the depth.
+     */
+    long getMaxCompletedDepth();
+
+    /**
+     * This method returns the depth searched completely by the last search.
+     * @return the depth.
+     */
+    int getLastCompletedDepth();
+
+    /**
+     * This method returns the number of positions looked up in the transposition tables.
+     * @return the number of positions.
+     */
+    long getTableProbes();
+
+    /**
+     * This method returns the number of positions found in the transposition tables.
+     * @return the number of positions.
+     */
+    long getTableHits();
+
+    /**
+     * This method returns the fraction of the positions looked up that were found in the transposition tables.
+     * @return the hit rate between 0 and 1, 0 before the first lookup.
+     */
+    double getTableHitRate();
+
+    /**
+     * This method returns the number of searches done while the opponent thinks (see PlayerRobot.setPondering).
+     * @return the number of searches.
+     */
+    long getPonderSearches();
+
+    /**
+     * This method returns the number of positions visited while the opponent thinks.
+     * @return the number of positions.
+     */
+    long getPonderNodes();
+
+    /**
+     * This method returns the number of moves played by the robots, found in the opening book or searched.
+     * @return the number of moves.
+     */
+    long getRobotMoves();
+
+    /**
+     * This method returns the number of moves of the robots found in the opening book.
+     * @return the number of moves.
+     */
+    long getBookMoves();
+
+    /**
+     * This method returns the mean time taken by the robots to choose a move.
+     * @return the mean time in milliseconds.
+     */
+    double getMoveLatencyMeanMillis();
+
+    /**
+     * This method returns the median of the times taken by the robots to choose a move.
+     * @return the median in milliseconds, known up to a factor of 2.
+     */
+    double getMoveLatencyP50Millis();
+
+    /**
+     * This method returns the 99th percentile of the times taken by the robots to choose a move.
+     * @return the percentile in milliseconds, known up to a factor of 2.
+     */
+    double getMoveLatencyP99Millis();
+
+    /**
+     * This method returns the longest time taken by a robot to choose a move.
+     * @return the time in milliseconds.
+     */
+    double getMoveLatencyMaxMillis();
+
+    /**
+     * This method returns the histogram of the times taken by the robots to choose a move,
+     * bucket i counting the moves under 2^i microseconds (see LatencyHistogram).
+     * @return the number of moves in each bucket.
+     */
+    long[] getMoveLatencyBuckets();
+
+    /**
+     * This method returns the number of games started and neither over nor abandoned.
+     * @return the number of games.
+     */
+    long getGamesInProgress();
+
+    /**
+     * This method returns the number of games started.
+     * @return the number of games.
+     */
+    long getGamesStarted();
+
+    /**
+     * This method returns the number of games won by a player or drawn.
+     * @return the number of games.
+     */
+    long getGamesFinished();
+
+    /**
+     * This method returns the number of games abandoned before they were over.
+     * @return the number of games.
+     */
+    long getGamesAbandoned();
+}
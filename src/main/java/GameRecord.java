@@ -0,0 +1,132 @@
+/**
+ * This class holds a copy of one game of a game log, so that it can be handed to another thread
+ * while the log goes on to the next game (see GameAnalyzer).
+ */
+public class GameRecord {
+
+    // Fields
+    /** The index of the game in the log, from 0. */
+    private final long index;
+    /** The offset of the game in the log file. */
+    private final long offset;
+    /** The number of rows of the board of the game. */
+    private final int numberRows;
+    /** The number of columns of the board of the game. */
+    private final int numberColumns;
+    /** The number of tokens in line needed to win the game. */
+    private final int connectLength;
+    /** The result of the game, as in GameLog. */
+    private final int result;
+    /** The columns played, one per character from '0'. */
+    private final String moves;
+
+    // Constructor
+    /**
+     * Constructor for the GameRecord class.
+     * @param index the index of the game in the log.
+     * @param offset the offset of the game in the log file.
+     * @param numberRows the number of rows of the board of the game.
+     * @param numberColumns the number of columns of the board of the game.
+     * @param connectLength the number of tokens in line needed to win the game.
+     * @param result the result of the game, GameLog.FIRST_PLAYER_WINS, SECOND_PLAYER_WINS, DRAW or UNFINISHED.
+     * @param moves the columns played, one per character from '0'.
+     */
+    public GameRecord(long index, long offset, int numberRows, int numberColumns, int connectLength,
+                      int result, String moves) {
+        this.index = index;
+        this.offset = offset;
+        this.numberRows = numberRows;
+        this.numberColumns = numberColumns;
+        this.connectLength = connectLength;
+        this.result = result;
+        this.moves = moves;
+    }
+
+    // Methods
+    /**
+     * This method copies the current game of a game log.
+     * @param log the game log.
+     * @param index the index of the current game in the log.
+     * @return the copy of the game.
+     */
+    public static GameRecord of(GameLog log, long index) {
+        return new GameRecord(index, log.getOffset(), log.getNumberRows(), log.getNumberColumns(),
+                log.getConnectLength(), log.getResult(), log.getMoves());
+    }
+
+    /**
+     * This method returns the index of the game in the log.
+     * @return the index, from 0.
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * This method returns the offset of the game in the log file, which can be given to GameLog.seek.
+     * @return the offset.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * This method returns the variant of the board of the game, as read by Board.parse.
+     * @return the variant.
+     */
+    public String getVariant() {
+        return Board.variantName(numberRows, numberColumns, connectLength);
+    }
+
+    /**
+     * This method checks if a board is of the variant of the game.
+     * @param board the board.
+     * @return true if the board has the size and the number of tokens in line of the game, false otherwise.
+     */
+    public boolean isVariantOf(Board board) {
+        return board.isVariant(numberRows, numberColumns, connectLength);
+    }
+
+    /**
+     * This method creates an empty board of the variant of the game.
+     * @return the new board.
+     */
+    public Board newBoard() {
+        return new Board(numberRows, numberColumns, connectLength);
+    }
+
+    /**
+     * This method returns the result of the game.
+     * @return GameLog.FIRST_PLAYER_WINS, SECOND_PLAYER_WINS, DRAW or UNFINISHED.
+     */
+    public int getResult() {
+        return result;
+    }
+
+    /**
+     * This method returns the columns played.
+     * @return the columns, one per character from '0'.
+     */
+    public String getMoves() {
+        return moves;
+    }
+
+    /**
+     * This method returns a column played.
+     * @param move the index of the move, from 0.
+     * @return the column.
+     */
+    public int getMove(int move) {
+        return moves.charAt(move) - '0';
+    }
+
+    /**
+     * This method returns the number of moves of the game.
+     * @return the number of moves.
+     */
+    public int getNumberMoves() {
+        return moves.length();
+    }
+
+
+}
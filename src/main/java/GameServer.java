@@ -0,0 +1,388 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class runs games against the robot for many remote players at the same time, without the GUI.
+ * Each connection is served by its own thread, a virtual thread when the JVM supports them
+ * (Java 21 and later) and a thread of a cached pool otherwise, and plays one game at a time in
+ * its own GameSession. The robot moves are searched on a fixed pool of threads, so that however
+ * many games are waiting for the robot, the threads reading and writing the connections are
+ * never busy searching. A connection beyond the maximum number of sessions is refused.
+ * <p>
+ * The protocol is made of text lines. Each request gets exactly one reply line:
+ * <pre>
+ *   NEW [first|second]  starts a new game, where the player moves first (default) or second
+ *                       reply: GAME variant robotColumn, with robotColumn -1 if the player moves first
+ *   PLAY column         plays a column (from 0) and lets the robot answer
+ *                       reply: MOVE robotColumn status, with robotColumn -1 if the game ended with
+ *                       the player's move, and status PLAYING, WIN, LOSS or DRAW for the player
+ *   BOARD               reply: BOARD rows, from the top row, separated by '/', with '.' for empty cells
+ *   QUIT                reply: BYE, then the connection is closed
+ * </pre>
+ * An invalid request gets the reply ERROR message and leaves the game unchanged.
+ * Usage: java GameServer [port] [robotThreads] [robot] [maxSessions]
+ * where the robot is described as in PlayerFactory.parse. The games are played on the board
+ * chosen with the connectfour.variant system property, and the finished games are appended
+ * to the game log given with the connectfour.gameLog property, if set.
+ */
+public class GameServer implements AutoCloseable {
+
+    // Fields
+    /** The default port of the server. */
+    public static final int DEFAULT_PORT = 4444;
+    /** The default description of the robot, see PlayerFactory.parse. */
+    public static final String DEFAULT_ROBOT = "robot:6:100:0";
+    /** The default maximum number of sessions at the same time. */
+    public static final int DEFAULT_MAX_SESSIONS = 10_000;
+    /** The number of connections waiting to be accepted that the operating system keeps. */
+    private static final int BACKLOG = 1024;
+    /** The socket accepting the connections. */
+    private final ServerSocket serverSocket;
+    /** The factory of the robot player of each game. */
+    private final PlayerFactory robotFactory;
+    /** The variant of the boards of the games, see Board.parse. */
+    private final String variant;
+    /** The maximum number of sessions at the same time. */
+    private final int maxSessions;
+    /** The executor running one task per connection. */
+    private final ExecutorService connectionExecutor;
+    /** The fixed pool of threads searching the robot moves. */
+    private final ExecutorService robotPool;
+    /** The thread accepting the connections. */
+    private final Thread acceptThread;
+    /** The number of connections being served. */
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    /** The number of games started since the server started. */
+    private final AtomicLong gamesStarted = new AtomicLong();
+    /** The number of connections refused because the server was full. */
+    private final AtomicLong refusedSessions = new AtomicLong();
+    /** The game log where the finished games are appended, or null. */
+    private volatile GameLogWriter gameLog;
+
+    // Constructor
+    /**
+     * Constructor for the GameServer class. The server listens on the loopback address
+     * as soon as it is built and accepts connections once start is called.
+     * @param port the port to listen to, 0 for any free port.
+     * @param robotThreads the number of threads searching the robot moves, at least 1.
+     * @param robotFactory the factory of the robot player of each game.
+     * @param variant the variant of the boards of the games, see Board.parse.
+     * @param maxSessions the maximum number of sessions at the same time.
+     * @throws IOException if the port cannot be opened.
+     */
+    public GameServer(int port, int robotThreads, PlayerFactory robotFactory, String variant, int maxSessions)
+            throws IOException {
+        Board.parse(variant);
+        this.serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+        this.robotFactory = robotFactory;
+        this.variant = variant;
+        this.maxSessions = maxSessions;
+        this.connectionExecutor = newConnectionExecutor("game-connection");
+        this.robotPool = Executors.newFixedThreadPool(robotThreads, daemonThreads("game-robot"));
+        this.acceptThread = new Thread(this::acceptConnections, "game-server-accept");
+    }
+
+    // Methods
+    /**
+     * Runs the server from the command line until the process is stopped.
+     * @param args the port (default 4444), the number of robot threads (default: the number of processors),
+     *             the description of the robot (default robot:6:100:0) and the maximum number of sessions
+     *             (default 10000).
+     * @throws IOException if the port cannot be opened.
+     * @throws InterruptedException if the server is interrupted.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int robotThreads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String robot = (args.length > 2) ? args[2] : DEFAULT_ROBOT;
+        int maxSessions = (args.length > 3) ? Integer.parseInt(args[3]) : DEFAULT_MAX_SESSIONS;
+        String variant = Board.fromVariantProperty().getVariant();
+
+        GameServer server = new GameServer(port, robotThreads, PlayerFactory.parse(robot), variant, maxSessions);
+        GameLogWriter gameLog = GameLogWriter.fromProperty();
+        server.setGameLog(gameLog);
+        if (gameLog != null) {
+            // the games still in the batch are written when the process is stopped
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    gameLog.close();
+                } catch (IOException e) {
+                    System.out.println("Cannot close the game log: " + e.getMessage());
+                }
+            }));
+        }
+        server.start();
+        System.out.println("Connect four server on port " + server.getPort() + ", " + variant + " board, "
+                + robot + " on " + robotThreads + " threads, up to " + maxSessions + " sessions");
+        while (true) {
+            Thread.sleep(10_000);
+            System.out.println(server.getActiveSessions() + " sessions, " + server.getGamesStarted()
+                    + " games started, " + server.getRefusedSessions() + " refused");
+            if (gameLog != null) {
+                gameLog.flush();
+            }
+        }
+    }
+
+    /**
+     * This method sets the game log where the finished games are appended.
+     * The log is written in batches, so it must be flushed or closed by the owner.
+     * @param gameLog the game log, or null to not log the games.
+     */
+    public void setGameLog(GameLogWriter gameLog) {
+        this.gameLog = gameLog;
+    }
+
+    /**
+     * This method starts accepting connections, on a thread of its own.
+     */
+    public void start() {
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    /**
+     * This method returns the port the server listens to.
+     * @return the port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * This method returns the number of connections being served.
+     * @return the number of sessions.
+     */
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * This method returns the number of games started since the server started.
+     * @return the number of games.
+     */
+    public long getGamesStarted() {
+        return gamesStarted.get();
+    }
+
+    /**
+     * This method returns the number of connections refused because the server was full.
+     * @return the number of connections refused.
+     */
+    public long getRefusedSessions() {
+        return refusedSessions.get();
+    }
+
+    /**
+     * This method stops the server: it stops accepting connections and closes the ones being served.
+     */
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // the server is stopping anyway
+        }
+        connectionExecutor.shutdownNow();
+        robotPool.shutdownNow();
+    }
+
+    /**
+     * This method creates an executor running each task on a new thread: a virtual thread when the JVM
+     * supports them, found by reflection so that the code still compiles for Java 17, or a thread of a
+     * cached pool otherwise. It is meant for tasks that spend most of their time waiting, like
+     * the connections of the server or of its load test.
+     * @param name the name of the threads of the cached pool.
+     * @return the executor.
+     */
+    static ExecutorService newConnectionExecutor(String name) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(daemonThreads(name));
+        }
+    }
+
+    /**
+     * This method accepts the connections until the server is closed.
+     */
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                if (activeSessions.incrementAndGet() > maxSessions) {
+                    activeSessions.decrementAndGet();
+                    refusedSessions.incrementAndGet();
+                    refuse(socket);
+                } else {
+                    try {
+                        connectionExecutor.execute(() -> serve(socket));
+                    } catch (RejectedExecutionException e) {
+                        activeSessions.decrementAndGet();
+                        socket.close();
+                    }
+                }
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.out.println("Cannot accept a connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * This method serves a connection: it reads the requests and writes the replies until
+     * the player quits or the connection is closed.
+     * @param socket the socket of the connection.
+     */
+    private void serve(Socket socket) {
+        GameSession session = null;
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] request = line.trim().split("\\s+");
+                String reply;
+                try {
+                    switch (request[0].toUpperCase()) {
+                        case "NEW" -> {
+                            boolean humanFirst = request.length < 2 || !request[1].equalsIgnoreCase("second");
+                            if (session != null) {
+                                session.close();
+                            }
+                            session = new GameSession(Board.parse(variant), robotFactory, humanFirst);
+                            gamesStarted.incrementAndGet();
+                            int robotColumn = session.isRobotTurn() ? playRobotMove(session) : -1;
+                            reply = "GAME " + variant + " " + robotColumn;
+                        }
+                        case "PLAY" -> {
+                            if (session == null) {
+                                throw new IllegalStateException("No game, send NEW first");
+                            }
+                            if (request.length < 2) {
+                                throw new IllegalArgumentException("Missing column");
+                            }
+                            session.playHumanMove(Integer.parseInt(request[1]));
+                            int robotColumn = session.isRobotTurn() ? playRobotMove(session) : -1;
+                            reply = "MOVE " + robotColumn + " " + session.getStatus();
+                            if (session.isOver()) {
+                                logGame(session);
+                            }
+                        }
+                        case "BOARD" -> reply = "BOARD " + ((session != null) ? session.describeBoard() : "");
+                        case "QUIT" -> reply = "BYE";
+                        default -> throw new IllegalArgumentException("Unknown request " + request[0]);
+                    }
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    reply = "ERROR " + e.getMessage();
+                }
+                out.write(reply);
+                out.newLine();
+                out.flush();
+                if (reply.equals("BYE")) {
+                    break;
+                }
+            }
+        } catch (SocketException e) {
+            // the player closed the connection
+        } catch (IOException e) {
+            System.out.println("Connection error: " + e.getMessage());
+        } catch (InterruptedException e) {
+            // the server is stopping
+            Thread.currentThread().interrupt();
+        } finally {
+            if (session != null) {
+                session.close();
+            }
+            activeSessions.decrementAndGet();
+        }
+    }
+
+    /**
+     * This method searches and plays the robot move of a session on the pool of robot threads,
+     * and waits for it. If the thread is interrupted while waiting, the robot move is cancelled,
+     * which stops its search, and GameSession.close waits for it to end before closing the session.
+     * @param session the session.
+     * @return the column played by the robot.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    private int playRobotMove(GameSession session) throws InterruptedException {
+        Future<Integer> move;
+        try {
+            move = robotPool.submit(session::playRobotMove);
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("The server is stopping", e);
+        }
+        try {
+            return move.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("The robot failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            move.cancel(true);
+            throw e;
+        }
+    }
+
+    /**
+     * This method appends a finished game to the game log, if there is one.
+     * A game that cannot be logged is only reported on the console, the session goes on.
+     * @param session the session of the game.
+     */
+    private void logGame(GameSession session) {
+        GameLogWriter log = gameLog;
+        if (log != null) {
+            try {
+                log.append(session.getGameLogic());
+            } catch (IOException e) {
+                System.out.println("Cannot log a game: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * This method refuses a connection because the server is full.
+     * @param socket the socket of the connection.
+     */
+    private static void refuse(Socket socket) {
+        try (socket; BufferedWriter out = new BufferedWriter(
+                new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            out.write("ERROR The server is full");
+            out.newLine();
+        } catch (IOException e) {
+            // the connection is refused anyway
+        }
+    }
+
+    /**
+     * This method returns a factory of daemon threads, so that the pools do not keep the program running.
+     * @param name the name of the threads.
+     * @return the thread factory.
+     */
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+
+}
@@ -0,0 +1,229 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class measures how many sessions a GameServer can hold and how long its players wait for
+ * each move. It opens the given number of connections at the same time, each one playing games
+ * with random columns until the time is over, and measures the time between sending each PLAY
+ * request and receiving its reply, which includes the search of the robot's answer.
+ * Without a host and a port, it starts a server in the same process on a free port, with the
+ * default robot (see GameServer.DEFAULT_ROBOT) on one thread per processor.
+ * It prints one CSV line, so that the results of several runs can be collected in one file.
+ * Usage: java GameServerLoadTest sessions seconds [host port]
+ */
+public class GameServerLoadTest {
+
+    // Fields
+    /** The host of the server. */
+    private final String host;
+    /** The port of the server. */
+    private final int port;
+    /** The time between each PLAY request and its reply. */
+    private final LatencyHistogram latency = new LatencyHistogram();
+    /** The number of games played to the end. */
+    private final LongAdder games = new LongAdder();
+    /** The number of ERROR replies and of connections lost. */
+    private final LongAdder errors = new LongAdder();
+    /** The number of sessions connected at the same time. */
+    private final AtomicInteger connected = new AtomicInteger();
+    /** The largest number of sessions connected at the same time. */
+    private final AtomicInteger maxConnected = new AtomicInteger();
+
+    // Constructor
+    /**
+     * Constructor for the GameServerLoadTest class.
+     * @param host the host of the server.
+     * @param port the port of the server.
+     */
+    public GameServerLoadTest(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    // Methods
+    /**
+     * Runs the load test from the command line.
+     * @param args the number of sessions, the duration in seconds and optionally the host and the port of the server.
+     * @throws IOException if the embedded server cannot be started.
+     * @throws InterruptedException if the test is interrupted.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println("Usage: java GameServerLoadTest sessions seconds [host port]");
+            return;
+        }
+        int sessions = Integer.parseInt(args[0]);
+        long seconds = Long.parseLong(args[1]);
+        GameServer server = null;
+        String host = "localhost";
+        int port;
+        if (args.length > 3) {
+            host = args[2];
+            port = Integer.parseInt(args[3]);
+        } else {
+            server = new GameServer(0, Runtime.getRuntime().availableProcessors(),
+                    PlayerFactory.parse(GameServer.DEFAULT_ROBOT), Board.fromVariantProperty().getVariant(),
+                    Math.max(sessions, GameServer.DEFAULT_MAX_SESSIONS));
+            server.start();
+            port = server.getPort();
+        }
+
+        GameServerLoadTest test = new GameServerLoadTest(host, port);
+        test.run(sessions, seconds * 1000);
+        System.out.println("sessions,maxConnected,games,moves,movesPerSecond,meanMillis,p50Millis,p99Millis,maxMillis,errors");
+        System.out.println(test.report(sessions, seconds));
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /**
+     * This method runs the sessions and waits for all of them to be over.
+     * @param sessions the number of sessions.
+     * @param millis the duration of the test in milliseconds.
+     * @throws InterruptedException if the thread is interrupted while waiting for the sessions.
+     */
+    public void run(int sessions, long millis) throws InterruptedException {
+        long deadline = System.nanoTime() + millis * 1_000_000;
+        ExecutorService executor = GameServer.newConnectionExecutor("load-test-session");
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < sessions; i++) {
+                futures.add(executor.submit(() -> runSession(deadline)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A session failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * This method returns the results of the test as a CSV line.
+     * @param sessions the number of sessions.
+     * @param seconds the duration of the test in seconds.
+     * @return the CSV line.
+     */
+    public String report(int sessions, long seconds) {
+        return String.format("%d,%d,%d,%d,%.0f,%.3f,%.3f,%.3f,%.3f,%d", sessions, maxConnected.get(), games.sum(),
+                latency.getCount(), latency.getCount() / (double) seconds, latency.getMeanMillis(),
+                latency.percentileMillis(0.50), latency.percentileMillis(0.99), latency.getMaxMillis(), errors.sum());
+    }
+
+    /**
+     * This method plays games on one connection until the deadline.
+     * @param deadline the value of System.nanoTime at which the session stops.
+     */
+    private void runSession(long deadline) {
+        try (Socket socket = new Socket(host, port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            maxConnected.accumulateAndGet(connected.incrementAndGet(), Math::max);
+            try {
+                while (System.nanoTime() < deadline) {
+                    if (!playGame(in, out, deadline)) {
+                        break;
+                    }
+                }
+                request(in, out, "QUIT");
+            } finally {
+                connected.decrementAndGet();
+            }
+        } catch (IOException e) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * This method plays one game with random columns, keeping a copy of the board of the server.
+     * @param in the reader of the replies.
+     * @param out the writer of the requests.
+     * @param deadline the value of System.nanoTime at which the session stops, even in the middle of a game.
+     * @return false if the server replied with an error, true otherwise.
+     * @throws IOException if the connection is lost.
+     */
+    private boolean playGame(BufferedReader in, BufferedWriter out, long deadline) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        boolean first = random.nextBoolean();
+        String[] reply = request(in, out, first ? "NEW first" : "NEW second").split(" ");
+        if (!reply[0].equals("GAME")) {
+            errors.increment();
+            return false;
+        }
+        Token human = new Token(BoardGui.humanPlayerSymbol);
+        Token robot = new Token(BoardGui.robotPlayerSymbol);
+        Board board = Board.parse(reply[1]);
+        drop(board, Integer.parseInt(reply[2]), robot);
+
+        while (System.nanoTime() < deadline) {
+            int col = random.nextInt(board.getNumberColumns());
+            while (!board.isValidMove(col)) {
+                col = random.nextInt(board.getNumberColumns());
+            }
+            drop(board, col, human);
+            long start = System.nanoTime();
+            reply = request(in, out, "PLAY " + col).split(" ");
+            latency.record(System.nanoTime() - start);
+            if (!reply[0].equals("MOVE")) {
+                errors.increment();
+                return false;
+            }
+            drop(board, Integer.parseInt(reply[1]), robot);
+            if (!reply[2].equals(GameSession.PLAYING)) {
+                games.increment();
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This method drops a token in a column of the copy of the board.
+     * @param board the copy of the board.
+     * @param col the column, or -1 for no move.
+     * @param token the token.
+     */
+    private static void drop(Board board, int col, Token token) {
+        if (col >= 0) {
+            board.play(col, token);
+        }
+    }
+
+    /**
+     * This method sends a request and reads its reply.
+     * @param in the reader of the replies.
+     * @param out the writer of the requests.
+     * @param request the request.
+     * @return the reply.
+     * @throws IOException if the connection is lost.
+     */
+    private static String request(BufferedReader in, BufferedWriter out, String request) throws IOException {
+        out.write(request);
+        out.newLine();
+        out.flush();
+        String reply = in.readLine();
+        if (reply == null) {
+            throw new IOException("The server closed the connection");
+        }
+        return reply;
+    }
+
+
+}
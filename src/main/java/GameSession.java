@@ -0,0 +1,172 @@
+/**
+ * This class represents one game between a remote human player and the robot, played through the
+ * GameServer. It owns its own board and game logic, so many sessions can be played at the same
+ * time on different threads, as long as each session is only used by one thread at a time.
+ * The only exception is close, which can be called while the robot moves: it waits for the move to end.
+ * The human player's moves are given by the server, while the robot's moves are searched by the
+ * robot player created for the session, which is closed with the session.
+ */
+public class GameSession {
+
+    // Fields
+    /** The status of a game that is not over. */
+    public static final String PLAYING = "PLAYING";
+    /** The status of a game won by the human player. */
+    public static final String WIN = "WIN";
+    /** The status of a game won by the robot. */
+    public static final String LOSS = "LOSS";
+    /** The status of a drawn game. */
+    public static final String DRAW = "DRAW";
+    /** The board of the game. */
+    private final Board board;
+    /** The remote human player. */
+    private final Player human;
+    /** The robot player. */
+    private final Player robot;
+    /** The game logic of the game. */
+    private final GameLogic gameLogic;
+
+    // Constructor
+    /**
+     * Constructor for the GameSession class.
+     * @param board the empty board of the game.
+     * @param robotFactory the factory of the robot player.
+     * @param humanFirst true if the human player moves first, false if the robot does.
+     */
+    public GameSession(Board board, PlayerFactory robotFactory, boolean humanFirst) {
+        this.board = board;
+        this.human = new PlayerHuman(new Token(BoardGui.humanPlayerSymbol));
+        this.robot = robotFactory.create(new Token(BoardGui.robotPlayerSymbol), board);
+        this.gameLogic = humanFirst ? new GameLogic(board, human, robot) : new GameLogic(board, robot, human);
+    }
+
+    // Methods
+    /**
+     * This method plays a move of the human player.
+     * @param col the column chosen by the human player.
+     * @throws IllegalStateException if the game is over or if it is the robot's turn.
+     * @throws IllegalArgumentException if the column cannot be played.
+     */
+    public void playHumanMove(int col) {
+        if (isOver() || gameLogic.getCurrentPlayer() != human) {
+            throw new IllegalStateException("It is not your turn");
+        }
+        if (!board.isValidMove(col)) {
+            throw new IllegalArgumentException("Invalid column " + col);
+        }
+        play(col);
+    }
+
+    /**
+     * This method lets the robot choose its column and plays it.
+     * It can take a while, so the server runs it on its pool of robot threads.
+     * @return the column played by the robot.
+     * @throws IllegalStateException if the game is over, if it is the human player's turn
+     *                               or if the robot chose a column that cannot be played.
+     */
+    public synchronized int playRobotMove() {
+        if (isOver() || gameLogic.getCurrentPlayer() != robot) {
+            throw new IllegalStateException("It is not the robot's turn");
+        }
+        int col = robot.chooseColumn();
+        if (!board.isValidMove(col)) {
+            throw new IllegalStateException("The robot chose an invalid column " + col);
+        }
+        play(col);
+        return col;
+    }
+
+    /**
+     * This method checks if the game is over.
+     * @return true if a player won or if the board is full, false otherwise.
+     */
+    public boolean isOver() {
+        return gameLogic.isGameOver() || gameLogic.isDraw();
+    }
+
+    /**
+     * This method tells that the remote player left the game, or started another one, before it was over.
+     * It does nothing if the game is over.
+     */
+    public void abandon() {
+        gameLogic.abandon();
+    }
+
+    /**
+     * This method ends the session: the game is abandoned if it is not over, and the robot is closed.
+     * If the robot is moving on another thread, it waits for the move to end first.
+     */
+    public synchronized void close() {
+        abandon();
+        robot.close();
+    }
+
+    /**
+     * This method checks if it is the robot's turn.
+     * @return true if the game is not over and the robot has to move, false otherwise.
+     */
+    public boolean isRobotTurn() {
+        return !isOver() && gameLogic.getCurrentPlayer() == robot;
+    }
+
+    /**
+     * This method returns the status of the game, from the point of view of the human player.
+     * @return PLAYING, WIN, LOSS or DRAW.
+     */
+    public String getStatus() {
+        if (gameLogic.isGameOver()) {
+            // the current player is the one who made the last move
+            return (gameLogic.getCurrentPlayer() == human) ? WIN : LOSS;
+        }
+        return gameLogic.isDraw() ? DRAW : PLAYING;
+    }
+
+    /**
+     * This method returns the game logic of the game, which holds the columns played.
+     * @return the game logic.
+     */
+    public GameLogic getGameLogic() {
+        return gameLogic;
+    }
+
+    /**
+     * This method returns the board of the game.
+     * @return the board.
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * This method describes the board on one line, from the top row to the bottom row,
+     * with the rows separated by '/', '.' for the empty cells and the symbols of the tokens.
+     * @return the description of the board.
+     */
+    public String describeBoard() {
+        StringBuilder description = new StringBuilder();
+        for (int row = 0; row < board.getNumberRows(); row++) {
+            if (row > 0) {
+                description.append('/');
+            }
+            for (int col = 0; col < board.getNumberColumns(); col++) {
+                Token token = board.getBoardItem(row, col);
+                description.append((token != null) ? token.getSymbol() : ".");
+            }
+        }
+        return description.toString();
+    }
+
+    /**
+     * This method plays a valid column for the current player and, unless the game is over,
+     * gives the turn to the other player.
+     * @param col the column.
+     */
+    private void play(int col) {
+        gameLogic.placeTokenOnBoard(col);
+        if (!isOver()) {
+            gameLogic.switchPlayer();
+        }
+    }
+
+
+}
@@ -0,0 +1,99 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class keeps the game event sink of the program (see GameEventSink), where GameLogic, the robots and the
+ * GUI record the events of the games, and it gives each game its number. The sink is chosen with the
+ * connectfour.trace system property:
+ * <ul>
+ *   <li>not set or "none": the events are ignored (see NoOpEventSink), except in the GUI, which prints them;</li>
+ *   <li>"console": the events are printed on the console (see ConsoleEventSink);</li>
+ *   <li>any other value: the path of a binary trace file, written on a thread of its own
+ *       (see RingBufferEventSink and BinaryFileEventSink) and closed when the program ends.</li>
+ * </ul>
+ */
+public class GameTrace {
+
+    // Fields
+    /** The system property choosing the sink, see the description of the class. */
+    public static final String TRACE_PROPERTY = "connectfour.trace";
+    /** The number given to the last game. */
+    private static final AtomicInteger lastGameNumber = new AtomicInteger();
+    /** The sink of the program. */
+    private static volatile GameEventSink sink = fromProperty();
+
+    // Constructor
+    /**
+     * Private constructor, as the class only holds static members.
+     */
+    private GameTrace() {
+    }
+
+    // Methods
+    /**
+     * This method returns the sink of the program.
+     * @return the sink.
+     */
+    public static GameEventSink sink() {
+        return sink;
+    }
+
+    /**
+     * This method replaces the sink of the program. The previous sink is not closed.
+     * @param newSink the new sink.
+     */
+    public static void setSink(GameEventSink newSink) {
+        sink = newSink;
+    }
+
+    /**
+     * This method checks if the sink was chosen with the TRACE_PROPERTY system property.
+     * @return true if the property is set, false otherwise.
+     */
+    public static boolean isChosen() {
+        return System.getProperty(TRACE_PROPERTY) != null;
+    }
+
+    /**
+     * This method gives a number to a new game, the games being numbered from 1 in the order they start.
+     * @return the number of the game.
+     */
+    public static int nextGameNumber() {
+        return lastGameNumber.incrementAndGet();
+    }
+
+    /**
+     * This method reports on the console a problem that the program goes on without,
+     * such as a trace file or an opening book that cannot be used, as the events only hold numbers.
+     * @param message the description of the problem.
+     */
+    public static void warn(String message) {
+        System.out.println(message);
+    }
+
+    /**
+     * This method creates the sink chosen with the TRACE_PROPERTY system property. A trace file that cannot be
+     * created is reported on the console and the events are ignored.
+     * @return the sink.
+     */
+    private static GameEventSink fromProperty() {
+        String trace = System.getProperty(TRACE_PROPERTY);
+        if (trace == null || trace.equals("none")) {
+            return NoOpEventSink.INSTANCE;
+        }
+        if (trace.equals("console")) {
+            return new ConsoleEventSink();
+        }
+        try {
+            GameEventSink fileSink = new RingBufferEventSink(new BinaryFileEventSink(Paths.get(trace)));
+            Runtime.getRuntime().addShutdownHook(new Thread(fileSink::close, "game-trace-close"));
+            return fileSink;
+        } catch (IOException e) {
+            warn("The trace file " + trace + " cannot be created: " + e.getMessage());
+            return NoOpEventSink.INSTANCE;
+        }
+    }
+
+
+}
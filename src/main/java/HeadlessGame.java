@@ -0,0 +1,191 @@
+/**
+ * This class plays a whole game between two players without the GUI, through GameLogic.
+ * It records the moves, the result and the time each player spent choosing its columns.
+ * A player choosing a column that cannot be played loses the game.
+ * The players are created for the game, so they are closed when it is over.
+ */
+public class HeadlessGame {
+
+    // Fields
+    /** The result of a game won by the first player. */
+    public static final int FIRST_PLAYER_WINS = 0;
+    /** The result of a game won by the second player. */
+    public static final int SECOND_PLAYER_WINS = 1;
+    /** The result of a drawn game. */
+    public static final int DRAW = 2;
+    /** The board of the game. */
+    private final Board board;
+    /** The first and the second player. */
+    private final Player[] players = new Player[2];
+    /** The game logic of the game. */
+    private final GameLogic gameLogic;
+    /** The columns played, one character (from '0') per move, as in GameLog.getMoves. */
+    private final StringBuilder moves = new StringBuilder();
+    /** The number of moves played. */
+    private int numberMoves = 0;
+    /** The time each player spent choosing its columns, in nanoseconds. */
+    private final long[] totalNanos = new long[2];
+    /** The longest time each player spent choosing a column, in nanoseconds. */
+    private final long[] maxNanos = new long[2];
+    /** The time spent choosing each column, in nanoseconds, in the order of the moves. */
+    private final long[] moveNanos;
+    /** The result of the game, or -1 while the game is not over. */
+    private int result = -1;
+    /** Whether the game was lost by playing a column that cannot be played. */
+    private boolean forfeit = false;
+
+    // Constructor
+    /**
+     * Constructor for the HeadlessGame class, on the board chosen with the connectfour.variant
+     * system property (see Board.fromVariantProperty).
+     * @param first the factory of the first player.
+     * @param firstToken the token of the first player.
+     * @param second the factory of the second player.
+     * @param secondToken the token of the second player.
+     */
+    public HeadlessGame(PlayerFactory first, Token firstToken, PlayerFactory second, Token secondToken) {
+        this(Board.fromVariantProperty(), first, firstToken, second, secondToken);
+    }
+
+    /**
+     * Constructor for the HeadlessGame class on a given board.
+     * @param board the empty board of the game.
+     * @param first the factory of the first player.
+     * @param firstToken the token of the first player.
+     * @param second the factory of the second player.
+     * @param secondToken the token of the second player.
+     */
+    public HeadlessGame(Board board, PlayerFactory first, Token firstToken, PlayerFactory second, Token secondToken) {
+        this.board = board;
+        players[0] = first.create(firstToken, board);
+        players[1] = second.create(secondToken, board);
+        gameLogic = new GameLogic(board, players[0], players[1]);
+        moveNanos = new long[board.getNumberRows() * board.getNumberColumns()];
+    }
+
+    // Methods
+    /**
+     * This method plays the game until it is over, and closes the players.
+     * @return the result of the game.
+     */
+    public int play() {
+        try {
+            playMoves();
+        } finally {
+            players[0].close();
+            players[1].close();
+        }
+        return result;
+    }
+
+    /**
+     * This method asks the players for their columns and plays them until the game is over.
+     */
+    private void playMoves() {
+        int side = 0;
+        while (result == -1) {
+            Player player = gameLogic.getCurrentPlayer();
+            long start = System.nanoTime();
+            int col = player.chooseColumn();
+            long elapsed = System.nanoTime() - start;
+            moveNanos[numberMoves] = elapsed;
+            totalNanos[side] += elapsed;
+            maxNanos[side] = Math.max(maxNanos[side], elapsed);
+
+            if (!board.isValidMove(col)) {
+                gameLogic.abandon();
+                forfeit = true;
+                result = (side == 0) ? SECOND_PLAYER_WINS : FIRST_PLAYER_WINS;
+                break;
+            }
+            gameLogic.placeTokenOnBoard(col);
+            moves.append((char) ('0' + col));
+            numberMoves++;
+            if (gameLogic.isGameOver()) {
+                result = (side == 0) ? FIRST_PLAYER_WINS : SECOND_PLAYER_WINS;
+            } else if (gameLogic.isDraw()) {
+                result = DRAW;
+            } else {
+                gameLogic.switchPlayer();
+                side = 1 - side;
+            }
+        }
+    }
+
+    /**
+     * This method returns the result of the game.
+     * @return FIRST_PLAYER_WINS, SECOND_PLAYER_WINS, DRAW, or -1 if the game was not played.
+     */
+    public int getResult() {
+        return result;
+    }
+
+    /**
+     * This method checks if the game was lost by playing a column that cannot be played.
+     * @return true if the game was lost by forfeit, false otherwise.
+     */
+    public boolean isForfeit() {
+        return forfeit;
+    }
+
+    /**
+     * This method returns the columns played, one character (from '0') per move.
+     * @return the moves of the game.
+     */
+    public String getMoves() {
+        return moves.toString();
+    }
+
+    /**
+     * This method returns the number of moves played by a player.
+     * @param side 0 for the first player, 1 for the second player.
+     * @return the number of moves.
+     */
+    public int getNumberMoves(int side) {
+        return (numberMoves + 1 - side) / 2;
+    }
+
+    /**
+     * This method returns the time a player spent choosing its columns.
+     * @param side 0 for the first player, 1 for the second player.
+     * @return the time in nanoseconds.
+     */
+    public long getTotalNanos(int side) {
+        return totalNanos[side];
+    }
+
+    /**
+     * This method returns the longest time a player spent choosing a column.
+     * @param side 0 for the first player, 1 for the second player.
+     * @return the time in nanoseconds.
+     */
+    public long getMaxNanos(int side) {
+        return maxNanos[side];
+    }
+
+    /**
+     * This method returns the time spent choosing a column.
+     * @param move the index of the move, from 0; the first player plays the even moves.
+     * @return the time in nanoseconds.
+     */
+    public long getMoveNanos(int move) {
+        return moveNanos[move];
+    }
+
+    /**
+     * This method returns the game logic of the game, which holds the columns played.
+     * @return the game logic.
+     */
+    public GameLogic getGameLogic() {
+        return gameLogic;
+    }
+
+    /**
+     * This method returns the number of columns chosen in the game,
+     * including a column that could not be played.
+     * @return the number of columns chosen.
+     */
+    public int getNumberChoices() {
+        return forfeit ? numberMoves + 1 : numberMoves;
+    }
+}
@@ -0,0 +1,95 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class records latencies in a histogram with one bucket per power of two microseconds,
+ * so that the mean, the maximum and the percentiles can be reported without keeping every value.
+ * Bucket i counts the latencies under 2^i microseconds, so a percentile is known up to a factor of 2.
+ * It can be updated from several threads at the same time without locks.
+ */
+public class LatencyHistogram {
+
+    // Fields
+    /** The number of buckets, bucket i counts the latencies under 2^i microseconds. */
+    private static final int BUCKETS = 40;
+    /** The number of latencies in each bucket. */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    /** The number of latencies recorded. */
+    private final LongAdder count = new LongAdder();
+    /** The sum of the latencies recorded, in nanoseconds. */
+    private final LongAdder totalNanos = new LongAdder();
+    /** The longest latency recorded, in nanoseconds. */
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    // Methods
+    /**
+     * This method records a latency.
+     * @param nanos the latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(nanos / 1000), BUCKETS - 1);
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * This method returns the number of latencies recorded.
+     * @return the number of latencies.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * This method returns the mean of the latencies recorded.
+     * @return the mean in milliseconds, 0 if no latency was recorded.
+     */
+    public double getMeanMillis() {
+        long recorded = count.sum();
+        return (recorded > 0) ? totalNanos.sum() / 1e6 / recorded : 0;
+    }
+
+    /**
+     * This method returns the longest latency recorded.
+     * @return the longest latency in milliseconds.
+     */
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    /**
+     * This method returns the number of latencies in each bucket, bucket i counting the latencies
+     * under 2^i microseconds and at least 2^(i-1) microseconds.
+     * @return a copy of the counts, one per bucket.
+     */
+    public long[] getBucketCounts() {
+        long[] counts = new long[BUCKETS];
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts[bucket] = buckets.get(bucket);
+        }
+        return counts;
+    }
+
+    /**
+     * This method estimates a percentile of the latencies recorded.
+     * @param fraction the percentile as a fraction, for example 0.99.
+     * @return the upper bound of the bucket containing the percentile, or the longest latency
+     *         if it is lower, in milliseconds.
+     */
+    public double percentileMillis(double fraction) {
+        long target = (long) Math.ceil(count.sum() * fraction);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += buckets.get(bucket);
+            if (seen >= target && seen > 0) {
+                return Math.min((1L << bucket) / 1000.0, getMaxMillis());
+            }
+        }
+        return 0;
+    }
+
+
+}
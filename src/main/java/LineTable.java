@@ -0,0 +1,165 @@
+/**
+ * This class holds the precomputed table of all the winning lines of a board:
+ * every horizontal, vertical and diagonal run of cells with the length needed to win.
+ * The cells are numbered row * columns + col, and the table is stored in integer arrays:
+ * the cells of each line, the direction of each line, and for each cell the lines going
+ * through it. On the standard 6x7 board with four in a row there are 69 lines:
+ * 24 horizontal, 21 vertical and 12 in each diagonal direction.
+ */
+public class LineTable {
+
+    // Fields
+    /** The direction of the horizontal lines. */
+    public static final int HORIZONTAL = 0;
+    /** The direction of the vertical lines. */
+    public static final int VERTICAL = 1;
+    /** The direction of the diagonal lines going down from left to right. */
+    public static final int DIAGONAL = 2;
+    /** The direction of the diagonal lines going down from right to left. */
+    public static final int ANTI_DIAGONAL = 3;
+    /** The row and column steps of each direction. */
+    private static final int[][] STEPS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+    /** The number of cells of each line. */
+    private final int lineLength;
+    /** The number of lines. */
+    private final int numberLines;
+    /** The cells of the lines, the cells of line i are at lineLength * i to lineLength * (i + 1) - 1. */
+    private final int[] lineCells;
+    /** The direction of each line. */
+    private final int[] lineDirections;
+    /** The start of the lines of each cell in cellLines, with one extra element at the end. */
+    private final int[] cellLinesStart;
+    /** The lines going through each cell, grouped by cell. */
+    private final int[] cellLines;
+
+    // Constructor
+    /**
+     * Constructor for the LineTable class.
+     * @param rows the number of rows of the board.
+     * @param columns the number of columns of the board.
+     * @param lineLength the number of tokens in a row needed to win.
+     */
+    public LineTable(int rows, int columns, int lineLength) {
+        this.lineLength = lineLength;
+        int count = 0;
+        for (int[] step : STEPS) {
+            count += countStarts(rows, step[0], lineLength) * countStarts(columns, Math.abs(step[1]), lineLength);
+        }
+        numberLines = count;
+        lineCells = new int[numberLines * lineLength];
+        lineDirections = new int[numberLines];
+        int[] linesPerCell = new int[rows * columns];
+
+        int line = 0;
+        for (int direction = 0; direction < STEPS.length; direction++) {
+            int rowStep = STEPS[direction][0];
+            int colStep = STEPS[direction][1];
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < columns; col++) {
+                    int lastRow = row + rowStep * (lineLength - 1);
+                    int lastCol = col + colStep * (lineLength - 1);
+                    if (lastRow < rows && lastCol >= 0 && lastCol < columns) {
+                        for (int i = 0; i < lineLength; i++) {
+                            int cell = (row + rowStep * i) * columns + col + colStep * i;
+                            lineCells[line * lineLength + i] = cell;
+                            linesPerCell[cell]++;
+                        }
+                        lineDirections[line] = direction;
+                        line++;
+                    }
+                }
+            }
+        }
+
+        cellLinesStart = new int[rows * columns + 1];
+        for (int cell = 0; cell < rows * columns; cell++) {
+            cellLinesStart[cell + 1] = cellLinesStart[cell] + linesPerCell[cell];
+        }
+        cellLines = new int[cellLinesStart[rows * columns]];
+        int[] filled = new int[rows * columns];
+        for (int i = 0; i < numberLines; i++) {
+            for (int j = 0; j < lineLength; j++) {
+                int cell = lineCells[i * lineLength + j];
+                cellLines[cellLinesStart[cell] + filled[cell]++] = i;
+            }
+        }
+    }
+
+    // Methods
+    /**
+     * This method returns the number of lines.
+     * @return the number of lines.
+     */
+    public int getNumberLines() {
+        return numberLines;
+    }
+
+    /**
+     * This method returns the number of cells of each line.
+     * @return the length of the lines.
+     */
+    public int getLineLength() {
+        return lineLength;
+    }
+
+    /**
+     * This method returns a cell of a line.
+     * @param line the line.
+     * @param i the position of the cell in the line, from 0 to the length of the lines - 1.
+     * @return the cell, numbered row * columns + col.
+     */
+    public int getLineCell(int line, int i) {
+        return lineCells[line * lineLength + i];
+    }
+
+    /**
+     * This method returns the direction of a line.
+     * @param line the line.
+     * @return HORIZONTAL, VERTICAL, DIAGONAL or ANTI_DIAGONAL.
+     */
+    public int getLineDirection(int line) {
+        return lineDirections[line];
+    }
+
+    /**
+     * This method returns the start of the lines going through a cell,
+     * to be used with getCellLine.
+     * @param cell the cell, numbered row * columns + col.
+     * @return the index of the first line of the cell.
+     */
+    public int getCellLinesStart(int cell) {
+        return cellLinesStart[cell];
+    }
+
+    /**
+     * This method returns the end of the lines going through a cell,
+     * to be used with getCellLine.
+     * @param cell the cell, numbered row * columns + col.
+     * @return the index after the last line of the cell.
+     */
+    public int getCellLinesEnd(int cell) {
+        return cellLinesStart[cell + 1];
+    }
+
+    /**
+     * This method returns a line going through a cell.
+     * @param index the index of the line, between getCellLinesStart and getCellLinesEnd of the cell.
+     * @return the line.
+     */
+    public int getCellLine(int index) {
+        return cellLines[index];
+    }
+
+    /**
+     * This method counts the positions where a line can start along one dimension of the board.
+     * @param size the size of the board along the dimension.
+     * @param step the step of the line along the dimension, 0 or 1.
+     * @param lineLength the number of cells of a line.
+     * @return the number of starting positions.
+     */
+    private static int countStarts(int size, int step, int lineLength) {
+        return Math.max(size - step * (lineLength - 1), 0);
+    }
+
+
+}
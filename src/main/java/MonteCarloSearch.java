@@ -0,0 +1,481 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class chooses a column with a Monte Carlo tree search, an alternative to the negamax search of
+ * SearchEngine that needs no evaluation and stops after any number of playouts with a usable answer.
+ * Each iteration walks down the tree from the root, choosing at each node the child with the best UCT
+ * value (its mean score plus EXPLORATION times the square root of the log of the visits of the parent over
+ * its own visits), plays a random game from the first position never visited before, and adds the result
+ * to every node of the path. A node is expanded the second time it is reached. When the player to move can
+ * win at once, the winning column is its only child, and when the opponent threatens to win at once, the
+ * blocking column is, so the tree does not waste playouts on moves that lose at once. The column chosen is
+ * the most visited child of the root.
+ * <p>
+ * Several threads grow the same tree (see MonteCarloTree) without locks. To keep them from all following
+ * the same path, a thread counts VIRTUAL_LOSS visits with no score on each node on its way down, which
+ * makes the path look worse to the others until the result of its playout is added on the way up.
+ * Each thread plays its moves and its random games on its own copy of the board and takes them back
+ * afterwards, with a random number generator kept in a long, so an iteration does not allocate any object.
+ * The calling thread searches too, and the other threads run on a pool of daemon threads, as in ParallelSearch.
+ */
+public class MonteCarloSearch {
+
+    // Fields
+    /** The default number of nodes of the tree, about 24 MB. */
+    public static final int DEFAULT_TREE_NODES = 1 << 20;
+    /** The weight of the exploration term of the UCT value. */
+    public static final double EXPLORATION = 1.0;
+    /** The number of visits counted on a node while a thread is searching below it. */
+    public static final int VIRTUAL_LOSS = 3;
+    /** The number of playouts a thread claims from the budget at a time, and between two checks of the time. */
+    private static final int PLAYOUTS_PER_CLAIM = 64;
+    /** The tree shared by the threads. */
+    private final MonteCarloTree tree;
+    /** The number of threads searching, including the calling thread. */
+    private final int threads;
+    /** The thread pool of the other threads, or null with one thread. */
+    private final ExecutorService helperPool;
+    /** The futures of the other threads while they search. */
+    private final Future<?>[] helperFutures;
+    /** The board of each thread, on which the moves are played and taken back. */
+    private final Board[] boards;
+    /** The nodes of the current path of each thread, from the root. */
+    private final int[][] paths;
+    /** The state of the random number generator of each thread. */
+    private final long[] randomStates;
+    /** The number of playouts of each thread in the last search. */
+    private final long[] threadPlayouts;
+    /** The tokens of the two players, indexed as in the boards of the threads. */
+    private final Token[] tokens = new Token[2];
+    /** The number of playouts claimed from the budget of the current search. */
+    private final AtomicLong playoutsClaimed = new AtomicLong();
+    /** The number of playouts allowed to the current search. */
+    private long playoutBudget;
+    /** The value of System.nanoTime at which the current search stops. */
+    private long deadlineNanos;
+    /** The index of the player to move at the root. */
+    private int rootSide;
+    /** The number of tokens on the board at the root. */
+    private int rootTokens;
+    /** The columns from the center to the sides, the order of the children of the nodes. */
+    private int[] columnOrder = new int[0];
+    /** Whether the threads must stop, set when a thread runs out of time. */
+    private volatile boolean stopRequested;
+    /** The number of playouts of the last search on all the threads. */
+    private long playouts;
+
+    // Constructor
+    /**
+     * Constructor for the MonteCarloSearch class with a tree of DEFAULT_TREE_NODES nodes.
+     * @param threads the number of threads searching, including the calling thread, at least 1.
+     */
+    public MonteCarloSearch(int threads) {
+        this(threads, DEFAULT_TREE_NODES);
+    }
+
+    /**
+     * Constructor for the MonteCarloSearch class.
+     * @param threads the number of threads searching, including the calling thread, at least 1.
+     * @param treeNodes the number of nodes of the tree, more than the number of columns of the boards searched.
+     *                  When the tree is full, the search goes on without growing it, with more playouts per leaf.
+     */
+    public MonteCarloSearch(int threads, int treeNodes) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of search threads must be at least 1");
+        }
+        this.threads = threads;
+        tree = new MonteCarloTree(treeNodes);
+        boards = new Board[threads];
+        paths = new int[threads][];
+        randomStates = new long[threads];
+        threadPlayouts = new long[threads];
+        helperFutures = new Future<?>[threads - 1];
+        for (int t = 0; t < threads; t++) {
+            // any non-zero seed works for xorshift
+            randomStates[t] = System.nanoTime() ^ (0x9E3779B97F4A7C15L * (t + 1));
+        }
+        if (threads > 1) {
+            helperPool = Executors.newFixedThreadPool(threads - 1, runnable -> {
+                Thread thread = new Thread(runnable, "robot-monte-carlo-helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            helperPool = null;
+        }
+    }
+
+    // Methods
+    /**
+     * This method searches the best column for a player, until the playout budget or the time budget runs out.
+     * @param board the board to search, which is left unchanged.
+     * @param token the token of the player to move.
+     * @param opponentToken the token of the opponent.
+     * @param playoutBudget the number of playouts on all the threads, 0 for no limit.
+     * @param timeBudgetMillis the time allowed for the search in milliseconds, 0 for no limit.
+     * @return the most visited column, or -1 if all the columns are full.
+     * @throws IllegalArgumentException if neither budget is set.
+     */
+    public int search(Board board, Token token, Token opponentToken, long playoutBudget, long timeBudgetMillis) {
+        if (playoutBudget <= 0 && timeBudgetMillis <= 0) {
+            throw new IllegalArgumentException("The search needs a playout budget or a time budget");
+        }
+        this.playoutBudget = (playoutBudget > 0) ? playoutBudget : Long.MAX_VALUE;
+        this.deadlineNanos = (timeBudgetMillis > 0)
+                ? System.nanoTime() + timeBudgetMillis * 1_000_000 : Long.MAX_VALUE;
+        prepareBoards(board, token, opponentToken);
+        playoutsClaimed.set(0);
+        stopRequested = false;
+        playouts = 0;
+
+        tree.clear();
+        if (!expand(0, boards[0], rootSide) || tree.getNumberChildren(0) == 1) {
+            // no column to play, or only one that does not lose at once
+            return bestColumn();
+        }
+        for (int t = 1; t < threads; t++) {
+            int thread = t;
+            helperFutures[t - 1] = helperPool.submit(() -> runThread(thread));
+        }
+        try {
+            runThread(0);
+        } finally {
+            stopRequested = true;
+            for (int t = 1; t < threads; t++) {
+                awaitHelper(t - 1);
+            }
+        }
+        for (long count : threadPlayouts) {
+            playouts += count;
+        }
+        return bestColumn();
+    }
+
+    /**
+     * This method returns the number of playouts of the last search on all the threads.
+     * @return the number of playouts.
+     */
+    public long getPlayouts() {
+        return playouts;
+    }
+
+    /**
+     * This method stops the helper threads. The object cannot be used to search after this call.
+     */
+    public void shutdown() {
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+        }
+    }
+
+    /**
+     * This method returns the number of nodes of the tree built by the last search.
+     * @return the number of nodes.
+     */
+    public int getTreeSize() {
+        return tree.getSize();
+    }
+
+    /**
+     * This method returns the number of visits of a column at the root of the last search.
+     * @param col the column.
+     * @return the number of visits, 0 if the column was not searched.
+     */
+    public int getColumnVisits(int col) {
+        int child = findRootChild(col);
+        return (child == -1) ? 0 : tree.getVisits(child);
+    }
+
+    /**
+     * This method returns the mean score of a column at the root of the last search.
+     * @param col the column.
+     * @return the mean score between 0 (always lost) and 1 (always won), a draw counting as 1/2,
+     *         or -1 if the column was not visited.
+     */
+    public double getColumnScore(int col) {
+        int child = findRootChild(col);
+        if (child == -1 || tree.getVisits(child) == 0) {
+            return -1;
+        }
+        return tree.getScore(child) / (2.0 * tree.getVisits(child));
+    }
+
+    /**
+     * This method sets the board of each thread to the position searched, creating the boards
+     * again when the variant changes, and finds the player to move.
+     * @param board the board to search.
+     * @param token the token of the player to move.
+     * @param opponentToken the token of the opponent.
+     */
+    private void prepareBoards(Board board, Token token, Token opponentToken) {
+        int cells = board.getNumberRows() * board.getNumberColumns();
+        for (int t = 0; t < threads; t++) {
+            if (boards[t] == null || !boards[t].isSameVariant(board)) {
+                boards[t] = new Board(board.getNumberRows(), board.getNumberColumns(), board.getConnectLength());
+                paths[t] = new int[cells + 2];
+            }
+            boards[t].copyFrom(board);
+            boards[t].getPlayerIndex(token);
+            boards[t].getPlayerIndex(opponentToken);
+            threadPlayouts[t] = 0;
+        }
+        if (columnOrder.length != board.getNumberColumns()) {
+            columnOrder = MoveOrderer.centerFirst(board.getNumberColumns());
+        }
+        rootSide = boards[0].getPlayerIndex(token);
+        rootTokens = board.getNumberTokens();
+        tokens[rootSide] = token;
+        tokens[1 - rootSide] = opponentToken;
+    }
+
+    /**
+     * This method waits for another thread to finish after it was asked to stop. The boards of the threads
+     * must not be used again until all of them are done, so the wait goes on when the calling thread is
+     * interrupted, and the interrupted flag is set again afterwards.
+     * @param helper the index of the other thread, from 0.
+     */
+    private void awaitHelper(int helper) {
+        boolean interrupted = false;
+        while (helperFutures[helper] != null) {
+            try {
+                helperFutures[helper].get();
+                helperFutures[helper] = null;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (ExecutionException e) {
+                helperFutures[helper] = null;
+                throw new IllegalStateException("A search thread failed", e.getCause());
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * This method runs the iterations of one thread until the budgets run out, another thread stops,
+     * or the calling thread is interrupted, which stops the search early with the best column found so far.
+     * @param thread the index of the thread.
+     */
+    private void runThread(int thread) {
+        while (!stopRequested) {
+            long first = playoutsClaimed.getAndAdd(PLAYOUTS_PER_CLAIM);
+            if (first >= playoutBudget) {
+                return;
+            }
+            if (System.nanoTime() >= deadlineNanos || Thread.currentThread().isInterrupted()) {
+                stopRequested = true;
+                return;
+            }
+            long count = Math.min(PLAYOUTS_PER_CLAIM, playoutBudget - first);
+            for (long i = 0; i < count; i++) {
+                iterate(thread);
+            }
+            threadPlayouts[thread] += count;
+        }
+    }
+
+    /**
+     * This method runs one iteration: it walks down the tree to a position never visited before
+     * or to the end of the game, plays a random game from there if needed, adds the result to the
+     * nodes of the path and takes all the moves back.
+     * @param thread the index of the thread.
+     */
+    private void iterate(int thread) {
+        Board board = boards[thread];
+        int[] path = paths[thread];
+        int length = 0;
+        int node = 0;
+        int side = rootSide;
+        int winner;
+        path[length++] = node;
+        tree.addVisits(node, VIRTUAL_LOSS);
+        while (true) {
+            int terminal = tree.getTerminal(node);
+            if (terminal != MonteCarloTree.NOT_TERMINAL) {
+                // the player who moved to the node won or filled the board
+                winner = (terminal == MonteCarloTree.WIN) ? 1 - side : -1;
+                break;
+            }
+            if (!tree.isExpanded(node) && !expand(node, board, side)) {
+                // another thread is expanding the node, or the tree is full
+                winner = playout(thread, side);
+                break;
+            }
+            int child = select(node);
+            boolean firstVisit = tree.getVisits(child) == 0;
+            tree.addVisits(child, VIRTUAL_LOSS);
+            path[length++] = child;
+            int col = tree.getMove(child);
+            if (tree.getTerminal(child) == MonteCarloTree.NOT_TERMINAL) {
+                board.play(col, tokens[side]);
+            }
+            side = 1 - side;
+            node = child;
+            if (firstVisit && tree.getTerminal(child) == MonteCarloTree.NOT_TERMINAL) {
+                winner = playout(thread, side);
+                break;
+            }
+        }
+
+        for (int i = 0; i < length; i++) {
+            // the root was reached by a move of the opponent of the player to move
+            int mover = (rootSide + i + 1) % 2;
+            tree.addScore(path[i], (winner == -1) ? 1 : (winner == mover) ? 2 : 0);
+            tree.addVisits(path[i], 1 - VIRTUAL_LOSS);
+        }
+        // the random game added its moves after the ones of the path
+        for (int played = board.getNumberTokens() - rootTokens; played > 0; played--) {
+            board.undo();
+        }
+    }
+
+    /**
+     * This method plays a random game to the end on the board of a thread, after the moves already
+     * played in the iteration, which takes them all back. A column that wins is not played.
+     * @param thread the index of the thread.
+     * @param side the index of the player to move.
+     * @return the index of the winner, or -1 for a draw.
+     */
+    private int playout(int thread, int side) {
+        Board board = boards[thread];
+        int numberColumns = board.getNumberColumns();
+        long random = randomStates[thread];
+        try {
+            while (!board.areAllColumnsFull()) {
+                int col;
+                do {
+                    random ^= random << 13;
+                    random ^= random >>> 7;
+                    random ^= random << 17;
+                    col = (int) (((random >>> 32) * numberColumns) >>> 32);
+                } while (board.isColumnFull(col));
+                if (board.isWinningMove(side, col)) {
+                    return side;
+                }
+                board.play(col, tokens[side]);
+                side = 1 - side;
+            }
+            return -1;
+        } finally {
+            randomStates[thread] = random;
+        }
+    }
+
+    /**
+     * This method expands a node, unless another thread is expanding it or the tree is full.
+     * The children are created in the order of MoveOrderer.centerFirst, so the central columns
+     * are visited first, and only the forced column is created when there is one.
+     * @param node the node.
+     * @param board the board of the position of the node.
+     * @param side the index of the player to move.
+     * @return true if the node is expanded, false otherwise.
+     */
+    private boolean expand(int node, Board board, int side) {
+        if (!tree.tryStartExpansion(node)) {
+            return tree.isExpanded(node);
+        }
+        int numberColumns = board.getNumberColumns();
+        int forced = -1;
+        int count = 0;
+        for (int col = 0; col < numberColumns; col++) {
+            if (board.isValidMove(col)) {
+                count++;
+                if (board.isWinningMove(side, col)) {
+                    forced = col;
+                    break;
+                }
+                if (forced == -1 && board.isWinningMove(1 - side, col)) {
+                    forced = col;
+                }
+            }
+        }
+        if (forced != -1) {
+            // a winning column found after a blocking one replaces it
+            count = 1;
+        }
+        int first = (count > 0) ? tree.allocate(count) : 0;
+        if (first == -1) {
+            tree.abandonExpansion(node);
+            return false;
+        }
+        boolean lastCell = board.getNumberTokens() + 1 == board.getNumberRows() * numberColumns;
+        int child = first;
+        for (int col : columnOrder) {
+            if (board.isValidMove(col) && (forced == -1 || col == forced)) {
+                int terminal = board.isWinningMove(side, col) ? MonteCarloTree.WIN
+                        : lastCell ? MonteCarloTree.DRAW : MonteCarloTree.NOT_TERMINAL;
+                tree.initNode(child++, col, terminal);
+            }
+        }
+        tree.finishExpansion(node, first, count);
+        return count > 0;
+    }
+
+    /**
+     * This method chooses the child of an expanded node with the best UCT value.
+     * A child that was never visited is chosen first.
+     * @param node the node, which has at least one child.
+     * @return the child.
+     */
+    private int select(int node) {
+        int first = tree.getFirstChild(node);
+        int end = first + tree.getNumberChildren(node);
+        double logVisits = Math.log(Math.max(tree.getVisits(node), 1));
+        int best = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = first; child < end; child++) {
+            int visits = tree.getVisits(child);
+            if (visits == 0) {
+                return child;
+            }
+            double value = tree.getScore(child) / (2.0 * visits) + EXPLORATION * Math.sqrt(logVisits / visits);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * This method returns the most visited column at the root.
+     * @return the column, or -1 if the root has no child.
+     */
+    private int bestColumn() {
+        int first = tree.getFirstChild(0);
+        int best = -1;
+        int bestVisits = -1;
+        for (int child = first; child < first + tree.getNumberChildren(0); child++) {
+            if (tree.getVisits(child) > bestVisits) {
+                bestVisits = tree.getVisits(child);
+                best = tree.getMove(child);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * This method finds the child of the root for a column.
+     * @param col the column.
+     * @return the child, or -1 if the column is not a child of the root.
+     */
+    private int findRootChild(int col) {
+        if (!tree.isExpanded(0)) {
+            return -1;
+        }
+        int first = tree.getFirstChild(0);
+        for (int child = first; child < first + tree.getNumberChildren(0); child++) {
+            if (tree.getMove(child) == col) {
+                return child;
+            }
+        }
+        return -1;
+    }
+
+
+}
@@ -0,0 +1,240 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * This class holds the tree of a Monte Carlo tree search (see MonteCarloSearch) in a pool of nodes
+ * of fixed size, backed by arrays of primitives, so that growing the tree does not allocate any object
+ * and the garbage collector never has to walk it. A node is an index in the arrays, node 0 being the root.
+ * <p>
+ * The children of a node are allocated together, in consecutive nodes, when the node is expanded: the node
+ * keeps the index of its first child and the number of its children. Each node keeps the column played to
+ * reach it, whether that move ends the game, the number of times it was visited, and its score in half
+ * points from the point of view of the player who played the move: 2 for a win, 1 for a draw, 0 for a loss.
+ * <p>
+ * The tree is shared by the threads of the search without locks. The visits, the scores and the state of
+ * expansion of the nodes are updated atomically. The other fields of the children are written by the only
+ * thread that expands their parent, before it publishes the expansion with a volatile write of the state,
+ * so they are safely read by any thread that sees the parent as expanded.
+ */
+public class MonteCarloTree {
+
+    // Fields
+    /** The terminal state of a node whose move does not end the game. */
+    public static final int NOT_TERMINAL = 0;
+    /** The terminal state of a node whose move wins the game. */
+    public static final int WIN = 1;
+    /** The terminal state of a node whose move fills the board without winning. */
+    public static final int DRAW = 2;
+    /** The state of a node whose children are not allocated. */
+    private static final int UNEXPANDED = 0;
+    /** The state of a node whose children are being allocated by a thread. */
+    private static final int EXPANDING = 1;
+    /** The state of a node whose children can be read. */
+    private static final int EXPANDED = 2;
+    /** The number of nodes of the pool. */
+    private final int capacity;
+    /** The number of nodes allocated, which can go beyond the capacity when an allocation fails. */
+    private final AtomicInteger size = new AtomicInteger();
+    /** The index of the first child of each node. */
+    private final int[] firstChild;
+    /** The number of children of each node. */
+    private final byte[] numberChildren;
+    /** The column played to reach each node, -1 for the root. */
+    private final byte[] moves;
+    /** The terminal state of each node, NOT_TERMINAL, WIN or DRAW. */
+    private final byte[] terminals;
+    /** The number of visits of each node, including the virtual losses of the visits in progress. */
+    private final AtomicIntegerArray visits;
+    /** The score of each node in half points, for the player who played its move. */
+    private final AtomicIntegerArray scores;
+    /** The state of expansion of each node. */
+    private final AtomicIntegerArray states;
+
+    // Constructor
+    /**
+     * Constructor for the MonteCarloTree class. The tree only holds an unexpanded root, see clear.
+     * @param capacity the number of nodes of the pool, at least 1.
+     * @throws IllegalArgumentException if the capacity is less than 1.
+     */
+    public MonteCarloTree(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The tree must hold at least one node");
+        }
+        this.capacity = capacity;
+        firstChild = new int[capacity];
+        numberChildren = new byte[capacity];
+        moves = new byte[capacity];
+        terminals = new byte[capacity];
+        visits = new AtomicIntegerArray(capacity);
+        scores = new AtomicIntegerArray(capacity);
+        states = new AtomicIntegerArray(capacity);
+        clear();
+    }
+
+    // Methods
+    /**
+     * This method empties the tree, leaving only an unexpanded root. The nodes are
+     * not cleared here but when they are allocated again, so this takes constant time.
+     */
+    public void clear() {
+        size.set(1);
+        initNode(0, -1, NOT_TERMINAL);
+    }
+
+    /**
+     * This method returns the number of nodes of the pool.
+     * @return the capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * This method returns the number of nodes in the tree.
+     * @return the number of nodes, at most the capacity.
+     */
+    public int getSize() {
+        return Math.min(size.get(), capacity);
+    }
+
+    /**
+     * This method gives a thread the right to expand a node. Only one thread gets it.
+     * @param node the node.
+     * @return true if the thread must now call finishExpansion or abandonExpansion, false if
+     *         the node is already expanded or being expanded by another thread.
+     */
+    public boolean tryStartExpansion(int node) {
+        return states.compareAndSet(node, UNEXPANDED, EXPANDING);
+    }
+
+    /**
+     * This method allocates consecutive nodes for the children of a node being expanded.
+     * @param count the number of children.
+     * @return the index of the first child, or -1 if the pool is full.
+     */
+    public int allocate(int count) {
+        if (size.get() + count > capacity) {
+            return -1;
+        }
+        int first = size.getAndAdd(count);
+        return (first + count <= capacity) ? first : -1;
+    }
+
+    /**
+     * This method sets a newly allocated node, with no visit and no child.
+     * @param node the node.
+     * @param move the column played to reach the node, -1 for the root.
+     * @param terminal NOT_TERMINAL, WIN or DRAW.
+     */
+    public void initNode(int node, int move, int terminal) {
+        moves[node] = (byte) move;
+        terminals[node] = (byte) terminal;
+        numberChildren[node] = 0;
+        visits.set(node, 0);
+        scores.set(node, 0);
+        states.set(node, UNEXPANDED);
+    }
+
+    /**
+     * This method publishes the children of a node, after they were set with initNode.
+     * @param node the node being expanded.
+     * @param first the index of the first child.
+     * @param count the number of children.
+     */
+    public void finishExpansion(int node, int first, int count) {
+        firstChild[node] = first;
+        numberChildren[node] = (byte) count;
+        states.set(node, EXPANDED);
+    }
+
+    /**
+     * This method gives up the expansion of a node, when the pool is full, so that it stays a leaf.
+     * @param node the node being expanded.
+     */
+    public void abandonExpansion(int node) {
+        states.set(node, UNEXPANDED);
+    }
+
+    /**
+     * This method checks if the children of a node can be read.
+     * @param node the node.
+     * @return true if the node is expanded, false otherwise.
+     */
+    public boolean isExpanded(int node) {
+        return states.get(node) == EXPANDED;
+    }
+
+    /**
+     * This method returns the index of the first child of an expanded node.
+     * @param node the node.
+     * @return the index of the first child.
+     */
+    public int getFirstChild(int node) {
+        return firstChild[node];
+    }
+
+    /**
+     * This method returns the number of children of an expanded node.
+     * @param node the node.
+     * @return the number of children.
+     */
+    public int getNumberChildren(int node) {
+        return numberChildren[node];
+    }
+
+    /**
+     * This method returns the column played to reach a node.
+     * @param node the node.
+     * @return the column, -1 for the root.
+     */
+    public int getMove(int node) {
+        return moves[node];
+    }
+
+    /**
+     * This method returns whether the move of a node ends the game.
+     * @param node the node.
+     * @return NOT_TERMINAL, WIN or DRAW.
+     */
+    public int getTerminal(int node) {
+        return terminals[node];
+    }
+
+    /**
+     * This method returns the number of visits of a node.
+     * @param node the node.
+     * @return the number of visits, including the virtual losses of the visits in progress.
+     */
+    public int getVisits(int node) {
+        return visits.get(node);
+    }
+
+    /**
+     * This method returns the score of a node.
+     * @param node the node.
+     * @return the score in half points, for the player who played the move of the node.
+     */
+    public int getScore(int node) {
+        return scores.get(node);
+    }
+
+    /**
+     * This method adds visits to a node, or removes them when the count is negative.
+     * @param node the node.
+     * @param count the number of visits.
+     */
+    public void addVisits(int node, int count) {
+        visits.addAndGet(node, count);
+    }
+
+    /**
+     * This method adds to the score of a node.
+     * @param node the node.
+     * @param halfPoints the half points won by the player who played the move of the node.
+     */
+    public void addScore(int node, int halfPoints) {
+        scores.addAndGet(node, halfPoints);
+    }
+
+
+}
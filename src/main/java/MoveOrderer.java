@@ -0,0 +1,252 @@
+import java.util.Arrays;
+
+/**
+ * This class chooses the order in which the search engine tries the columns of a position.
+ * Alpha-beta pruning cuts more of the tree when the best move is tried first, so the orderer
+ * combines several heuristics, each of which can be turned off to measure what it saves
+ * (see MoveOrderingReport):
+ * <ul>
+ *   <li>CENTER: the columns are tried from the center to the sides, as the central columns
+ *       take part in more lines, instead of from left to right.</li>
+ *   <li>WINS_AND_BLOCKS: a column that wins at once is the only one tried, and when the opponent
+ *       threatens to win at once, the column blocking the threat is the only one tried, as all the
+ *       others lose on the next move. This does not change the score of the position.</li>
+ *   <li>KILLERS: the last two columns that caused a cutoff at the same number of tokens on the board
+ *       are tried right after the move of the transposition table.</li>
+ *   <li>HISTORY: the other columns are sorted by how often they caused a cutoff for the same player,
+ *       weighted by the depth left, counted in a table of ints kept from one search to the next.</li>
+ * </ul>
+ * The orderer belongs to one engine, and all its arrays are allocated when it is prepared
+ * for a board of a new size, so ordering the moves does not allocate any object.
+ */
+public class MoveOrderer {
+
+    // Fields
+    /** The heuristic trying the columns from the center to the sides. */
+    public static final int CENTER = 1;
+    /** The heuristic playing the immediate wins and blocking the immediate threats of the opponent. */
+    public static final int WINS_AND_BLOCKS = 2;
+    /** The heuristic trying first the columns that caused a cutoff at the same ply. */
+    public static final int KILLERS = 4;
+    /** The heuristic sorting the columns by the cutoffs they caused in the whole search. */
+    public static final int HISTORY = 8;
+    /** All the heuristics. */
+    public static final int ALL = CENTER | WINS_AND_BLOCKS | KILLERS | HISTORY;
+    /**
+     * The heuristics used by the robot. With the move of the transposition table tried first and the
+     * iterative deepening of the robot, the killers and the history make the search visit more positions
+     * of BenchmarkPositions instead of fewer (see MoveOrderingReport), so they are left out.
+     */
+    public static final int DEFAULT = CENTER | WINS_AND_BLOCKS;
+    /** The number of killer columns kept per ply. */
+    private static final int KILLERS_PER_PLY = 2;
+    /** The heuristics used, a combination of the constants above. */
+    private final int heuristics;
+    /** The number of columns of the boards ordered, 0 before the first call to prepare. */
+    private int numberColumns = 0;
+    /** The number of cells of the boards ordered, which bounds the number of plies. */
+    private int numberCells = 0;
+    /** The static order of the columns, from the center to the sides or from left to right. */
+    private int[] staticOrder = new int[0];
+    /** The killer columns, indexed by ply * KILLERS_PER_PLY, -1 for none. */
+    private int[] killers = new int[0];
+    /** The history score of each column for each player, indexed by player * columns + column. */
+    private int[] history = new int[0];
+    /** The ordered columns of each ply, indexed by ply * columns + i. */
+    private int[] moves = new int[0];
+
+    // Constructor
+    /**
+     * Constructor for the MoveOrderer class with the DEFAULT heuristics.
+     */
+    public MoveOrderer() {
+        this(DEFAULT);
+    }
+
+    /**
+     * Constructor for the MoveOrderer class.
+     * @param heuristics the heuristics to use, a combination of CENTER, WINS_AND_BLOCKS, KILLERS and HISTORY.
+     */
+    public MoveOrderer(int heuristics) {
+        this.heuristics = heuristics;
+    }
+
+    // Methods
+    /**
+     * This method returns the columns of a board from the center to the sides,
+     * for example 3, 2, 4, 1, 5, 0, 6 for a board with 7 columns.
+     * @param numberColumns the number of columns.
+     * @return the columns in order.
+     */
+    public static int[] centerFirst(int numberColumns) {
+        int[] order = new int[numberColumns];
+        for (int i = 0; i < numberColumns; i++) {
+            order[i] = numberColumns / 2 + (1 - 2 * (i % 2)) * (i + 1) / 2;
+        }
+        return order;
+    }
+
+    /**
+     * This method prepares the orderer for a new search. The killers are forgotten and the history
+     * scores are halved, so that the columns that were good in the previous searches are still tried
+     * early without hiding what the new search finds. The arrays are only allocated again when the
+     * board has another size than the previous one.
+     * @param board the board to search.
+     */
+    public void prepare(Board board) {
+        int columns = board.getNumberColumns();
+        int cells = board.getNumberRows() * columns;
+        if (columns != numberColumns || cells != numberCells) {
+            numberColumns = columns;
+            numberCells = cells;
+            if ((heuristics & CENTER) != 0) {
+                staticOrder = centerFirst(columns);
+            } else {
+                staticOrder = new int[columns];
+                for (int col = 0; col < columns; col++) {
+                    staticOrder[col] = col;
+                }
+            }
+            killers = new int[(cells + 1) * KILLERS_PER_PLY];
+            history = new int[2 * columns];
+            moves = new int[(cells + 1) * columns];
+        }
+        Arrays.fill(killers, -1);
+        for (int i = 0; i < history.length; i++) {
+            history[i] >>= 1;
+        }
+    }
+
+    /**
+     * This method returns the static order of the columns, used by the engine at the root of the search.
+     * @return the columns in order, which must not be modified.
+     */
+    public int[] getStaticOrder() {
+        return staticOrder;
+    }
+
+    /**
+     * This method orders the columns that can be played in a position, after the move of the
+     * transposition table which the engine tries first. The ply is the number of tokens on the board,
+     * so the columns of each ply are kept apart and the engine can read them while it searches deeper.
+     * @param board the board of the position.
+     * @param side the index of the player to move.
+     * @param tableMove the column of the transposition table, -1 for none, which is left out.
+     * @return the number of columns to try, read with getMove.
+     */
+    public int orderMoves(Board board, int side, int tableMove) {
+        int ply = board.getNumberTokens();
+        int start = ply * numberColumns;
+        if ((heuristics & WINS_AND_BLOCKS) != 0) {
+            int forced = forcedMove(board, side);
+            if (forced != -1) {
+                if (forced == tableMove) {
+                    return 0;
+                }
+                moves[start] = forced;
+                return 1;
+            }
+        }
+
+        int count = 0;
+        if ((heuristics & KILLERS) != 0) {
+            for (int k = 0; k < KILLERS_PER_PLY; k++) {
+                int killer = killers[ply * KILLERS_PER_PLY + k];
+                if (killer != -1 && killer != tableMove && board.isValidMove(killer)) {
+                    moves[start + count++] = killer;
+                }
+            }
+        }
+        int killersEnd = count;
+        for (int col : staticOrder) {
+            if (col != tableMove && board.isValidMove(col) && !isKiller(ply, col, killersEnd)) {
+                // insertion sort by history score, stable so the static order breaks the ties
+                int i = start + count++;
+                if ((heuristics & HISTORY) != 0) {
+                    int score = history[side * numberColumns + col];
+                    while (i > start + killersEnd && history[side * numberColumns + moves[i - 1]] < score) {
+                        moves[i] = moves[i - 1];
+                        i--;
+                    }
+                }
+                moves[i] = col;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * This method returns a column ordered by the last call to orderMoves at a ply.
+     * @param ply the number of tokens on the board of the position.
+     * @param i the index of the column, from 0 to the number returned by orderMoves.
+     * @return the column.
+     */
+    public int getMove(int ply, int i) {
+        return moves[ply * numberColumns + i];
+    }
+
+    /**
+     * This method records a column that caused a cutoff, so that it is tried earlier in the
+     * positions with the same number of tokens and in the positions of the same player.
+     * @param ply the number of tokens on the board of the position.
+     * @param side the index of the player to move.
+     * @param col the column.
+     * @param depth the number of moves left to look ahead in the position.
+     */
+    public void recordCutoff(int ply, int side, int col, int depth) {
+        int first = ply * KILLERS_PER_PLY;
+        if (killers[first] != col) {
+            killers[first + 1] = killers[first];
+            killers[first] = col;
+        }
+        int index = side * numberColumns + col;
+        history[index] += depth * depth;
+        if (history[index] > Integer.MAX_VALUE / 2) {
+            // keep the scores in range, halving them all keeps their order
+            for (int i = 0; i < history.length; i++) {
+                history[i] >>= 1;
+            }
+        }
+    }
+
+    /**
+     * This method finds the column the player to move must play: a column winning at once, or else
+     * the column where the opponent would win at once. When the opponent has several such columns,
+     * the position is lost whatever the player does and the first one is returned.
+     * @param board the board of the position.
+     * @param side the index of the player to move.
+     * @return the column, or -1 if the player is free to choose.
+     */
+    private int forcedMove(Board board, int side) {
+        int block = -1;
+        for (int col : staticOrder) {
+            if (board.isValidMove(col)) {
+                if (board.isWinningMove(side, col)) {
+                    return col;
+                }
+                if (block == -1 && board.isWinningMove(1 - side, col)) {
+                    block = col;
+                }
+            }
+        }
+        return block;
+    }
+
+    /**
+     * This method checks if a column is one of the killers already placed at the start of a ply.
+     * @param ply the ply.
+     * @param col the column.
+     * @param killersPlaced the number of killers placed.
+     * @return true if the column was placed as a killer, false otherwise.
+     */
+    private boolean isKiller(int ply, int col, int killersPlaced) {
+        for (int k = 0; k < killersPlaced; k++) {
+            if (moves[ply * numberColumns + k] == col) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+}
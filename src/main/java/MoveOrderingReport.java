@@ -0,0 +1,103 @@
+import java.util.Arrays;
+
+/**
+ * This class measures how much each heuristic of MoveOrderer prunes the search of the robot.
+ * It searches all the positions of BenchmarkPositions with iterative deepening up to a fixed depth,
+ * as the robot does, first trying the columns from left to right and then adding the heuristics one
+ * at a time, each time with a fresh engine and transposition table. It prints one CSV line per set of heuristics with the positions visited,
+ * the time, the positions per second, the fraction of the positions saved compared to the first line,
+ * and whether the scores of all the columns are the same as on the previous line. Without a transposition
+ * table, only the wins and blocks can change them: at the last depth, where a threat is left to the
+ * evaluation, they see that it must be blocked. With a table, a search can also reuse the deeper
+ * results of the positions reached in another order, so the scores may change with any heuristic.
+ * A first pass is run and discarded, so that the code is compiled by the JIT before the measures start.
+ * Usage: java MoveOrderingReport [depth] [transpositionTableMb]
+ */
+public class MoveOrderingReport {
+
+    /** The sets of heuristics measured, each one adding a heuristic to the previous one. */
+    private static final int[] HEURISTICS = {
+            0,
+            MoveOrderer.CENTER,
+            MoveOrderer.CENTER | MoveOrderer.WINS_AND_BLOCKS,
+            MoveOrderer.CENTER | MoveOrderer.WINS_AND_BLOCKS | MoveOrderer.KILLERS,
+            MoveOrderer.ALL
+    };
+    /** The names of the sets of heuristics, as printed. */
+    private static final String[] NAMES = {"none", "center", "+winsAndBlocks", "+killers", "+history"};
+
+    /**
+     * Private constructor, as the class only holds static members.
+     */
+    private MoveOrderingReport() {
+    }
+
+    /**
+     * Runs the report.
+     * @param args the search depth (default 12) and the transposition table size in megabytes (default 64),
+     *             0 to search without a table.
+     */
+    public static void main(String[] args) {
+        int depth = (args.length > 0) ? Integer.parseInt(args[0]) : 12;
+        int transpositionTableMb = (args.length > 1) ? Integer.parseInt(args[1]) : 64;
+        Token first = new Token(BoardGui.humanPlayerSymbol);
+        Token second = new Token(BoardGui.robotPlayerSymbol);
+        int numberColumns = new Board().getNumberColumns();
+
+        searchAll(MoveOrderer.ALL, depth, transpositionTableMb, first, second,
+                new int[BenchmarkPositions.MID_GAME.length * numberColumns]);
+
+        System.out.println("heuristics,nodes,millis,nodesPerSecond,nodeReduction,sameScoresAsPrevious");
+        int[] previousScores = null;
+        long baselineNodes = 0;
+        for (int i = 0; i < HEURISTICS.length; i++) {
+            int[] scores = new int[BenchmarkPositions.MID_GAME.length * numberColumns];
+            long start = System.nanoTime();
+            long nodes = searchAll(HEURISTICS[i], depth, transpositionTableMb, first, second, scores);
+            double millis = (System.nanoTime() - start) / 1e6;
+            if (previousScores == null) {
+                previousScores = scores;
+                baselineNodes = nodes;
+            }
+            System.out.printf("%s,%d,%.1f,%.0f,%.3f,%b%n", NAMES[i], nodes, millis, nodes / (millis / 1000.0),
+                    1 - (double) nodes / baselineNodes, Arrays.equals(scores, previousScores));
+            previousScores = scores;
+        }
+    }
+
+    /**
+     * This method searches all the benchmark positions with one engine, deepening from 1 to the search depth.
+     * @param heuristics the heuristics of the move orderer of the engine.
+     * @param depth the search depth.
+     * @param transpositionTableMb the size of the transposition table in megabytes, 0 for none.
+     * @param first the token of the player who moves first.
+     * @param second the token of the other player.
+     * @param scores the array filled with the score of each column of each position at the search depth.
+     * @return the number of positions visited.
+     */
+    private static long searchAll(int heuristics, int depth, int transpositionTableMb, Token first, Token second,
+                                  int[] scores) {
+        TranspositionTable transpositionTable =
+                (transpositionTableMb > 0) ? new TranspositionTable(transpositionTableMb) : null;
+        SearchEngine engine = new SearchEngine(transpositionTable, new MoveOrderer(heuristics));
+        long nodes = 0;
+        for (int p = 0; p < BenchmarkPositions.MID_GAME.length; p++) {
+            String moves = BenchmarkPositions.MID_GAME[p];
+            Board board = BenchmarkPositions.boardOf(moves, first, second);
+            Token token = BenchmarkPositions.toMove(moves, first, second);
+            for (int d = 1; d <= depth; d++) {
+                if (transpositionTable != null) {
+                    transpositionTable.newSearch();
+                }
+                engine.search(board, token, (token == first) ? second : first, d);
+                nodes += engine.getNodes();
+            }
+            for (int col = 0; col < board.getNumberColumns(); col++) {
+                scores[p * board.getNumberColumns() + col] = engine.getColumnScore(col);
+            }
+        }
+        return nodes;
+    }
+
+
+}
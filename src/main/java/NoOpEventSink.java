@@ -0,0 +1,30 @@
+/**
+ * This class is the game event sink that ignores every event, used when the events are not traced.
+ * As it is the only implementation loaded in that case, the calls to record are inlined by the
+ * JIT compiler and disappear, so tracing costs nothing when it is off.
+ */
+public class NoOpEventSink implements GameEventSink {
+
+    // Fields
+    /** The only instance, as the sink has no state. */
+    public static final NoOpEventSink INSTANCE = new NoOpEventSink();
+
+    // Constructor
+    /**
+     * Constructor for the NoOpEventSink class, private as INSTANCE is the only instance.
+     */
+    private NoOpEventSink() {
+    }
+
+    // Methods
+    @Override
+    public void record(int type, int game, int side, int column, int row, int value, int score) {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+
+}
@@ -0,0 +1,154 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class represents the opening book of the robot player: a binary file with the best
+ * move and its score for the positions of the first moves of the game, built offline by
+ * OpeningBookGenerator. The file is mapped in memory the first time a position is looked up,
+ * so opening the book is instant and several programs using the same book share the same pages.
+ * <p>
+ * The file starts with a header, followed by the entries sorted by position key,
+ * so that a position is found with a binary search:
+ * <pre>
+ *   header: magic (int), version (int), rows (int), columns (int), tokens in line to win (int),
+ *           number of entries (int)
+ *   entry:  canonical position key (long), best move (byte), score (short)
+ * </pre>
+ * All the numbers are big-endian. A position and its mirror image share one entry, under their
+ * canonical key (see Board.getCanonicalKey), with the best move in the columns of the canonical
+ * position, so the book holds about half of the positions it covers.
+ * Version 3 introduced the canonical keys, the books of the older versions are not read.
+ */
+public class OpeningBook {
+
+    // Fields
+    /** The magic number at the start of a book file, "C4BK" in ASCII. */
+    public static final int MAGIC = 0x4334424B;
+    /** The version of the file format. */
+    public static final int VERSION = 3;
+    /** The number of bytes of the header. */
+    public static final int HEADER_BYTES = 24;
+    /** The number of bytes of each entry. */
+    public static final int ENTRY_BYTES = 11;
+    /** The path of the book file. */
+    private final Path path;
+    /** The content of the file mapped in memory, null until the first lookup. */
+    private volatile MappedByteBuffer buffer;
+    /** The number of entries in the book. */
+    private int numberEntries;
+
+    // Constructor
+    /**
+     * Constructor for the OpeningBook class. The file is only opened at the first lookup.
+     * @param path the path of the book file.
+     */
+    public OpeningBook(Path path) {
+        this.path = path;
+    }
+
+    // Methods
+    /**
+     * This method looks for a position in the book.
+     * @param key the canonical key of the position, as returned by Board.getCanonicalKey.
+     * @return the index of the entry of the position, or -1 if the position is not in the book.
+     */
+    public int find(long key) {
+        MappedByteBuffer entries = entries();
+        int low = 0;
+        int high = numberEntries - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = entries.getLong(HEADER_BYTES + middle * ENTRY_BYTES);
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * This method returns the best move of an entry, in the columns of the canonical position.
+     * @param index the index of the entry, as returned by find.
+     * @return the best move, to be turned into a column of the position with Board.canonicalColumn.
+     */
+    public int getMove(int index) {
+        return entries().get(HEADER_BYTES + index * ENTRY_BYTES + 8);
+    }
+
+    /**
+     * This method returns the score of the best move of an entry,
+     * from the point of view of the player to move.
+     * @param index the index of the entry, as returned by find.
+     * @return the score.
+     */
+    public int getScore(int index) {
+        return entries().getShort(HEADER_BYTES + index * ENTRY_BYTES + 9);
+    }
+
+    /**
+     * This method returns the number of entries in the book.
+     * @return the number of entries.
+     */
+    public int getNumberEntries() {
+        entries();
+        return numberEntries;
+    }
+
+    /**
+     * This method checks if the book was built for boards of the same variant as a given board,
+     * that is with the same size and the same number of tokens in line to win.
+     * @param board the board.
+     * @return true if the book can be used with the board, false otherwise.
+     */
+    public boolean matches(Board board) {
+        MappedByteBuffer entries = entries();
+        return entries.getInt(8) == board.getNumberRows() && entries.getInt(12) == board.getNumberColumns()
+                && entries.getInt(16) == board.getConnectLength();
+    }
+
+    /**
+     * This method returns the content of the book file, mapping it in memory the first time.
+     * @return the content of the file.
+     */
+    private MappedByteBuffer entries() {
+        MappedByteBuffer entries = buffer;
+        return (entries != null) ? entries : map();
+    }
+
+    /**
+     * This method maps the book file in memory, unless another thread already did it.
+     * @return the content of the file.
+     * @throws IllegalArgumentException if the file is not an opening book or is truncated.
+     * @throws UncheckedIOException if the file cannot be opened.
+     */
+    private synchronized MappedByteBuffer map() {
+        if (buffer == null) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                mapped.order(ByteOrder.BIG_ENDIAN);
+                if (mapped.limit() < HEADER_BYTES || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+                    throw new IllegalArgumentException("Not an opening book: " + path);
+                }
+                numberEntries = mapped.getInt(20);
+                if (numberEntries < 0 || mapped.limit() < HEADER_BYTES + (long) numberEntries * ENTRY_BYTES) {
+                    throw new IllegalArgumentException("Truncated opening book: " + path);
+                }
+                buffer = mapped;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open the opening book " + path, e);
+            }
+        }
+        return buffer;
+    }
+
+
+}
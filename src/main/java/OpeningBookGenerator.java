@@ -0,0 +1,138 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class builds the opening book of the robot player offline.
+ * It enumerates all the positions reachable in less than the given number of moves,
+ * without repetitions, counting a position and its mirror image once,
+ * and without the positions where the game is already over,
+ * searches each of them with the robot's search, and writes the best move and its score
+ * to a book file in the format described in OpeningBook.
+ * The book is built for the board chosen with the connectfour.variant system property
+ * (see Board.fromVariantProperty), the default board if it is not set.
+ * Usage: java OpeningBookGenerator output [plies] [depth] [transpositionTableMb] [threads]
+ */
+public class OpeningBookGenerator {
+
+    /**
+     * Private constructor, as the class only holds static members.
+     */
+    private OpeningBookGenerator() {
+    }
+
+    /**
+     * Runs the generator.
+     * @param args the path of the book file, the number of moves covered by the book (default 6),
+     *             the search depth (default 12), the transposition table size in megabytes (default 64)
+     *             and the number of search threads (default 1).
+     * @throws IOException if the book file cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java OpeningBookGenerator output [plies] [depth] [transpositionTableMb] [threads]");
+            return;
+        }
+        Path output = Paths.get(args[0]);
+        int plies = (args.length > 1) ? Integer.parseInt(args[1]) : 6;
+        int depth = (args.length > 2) ? Integer.parseInt(args[2]) : 12;
+        int transpositionTableMb = (args.length > 3) ? Integer.parseInt(args[3]) : 64;
+        int threads = (args.length > 4) ? Integer.parseInt(args[4]) : 1;
+
+        Token first = new Token(BoardGui.humanPlayerSymbol);
+        Token second = new Token(BoardGui.robotPlayerSymbol);
+        Board board = BenchmarkPositions.boardOf(Board.fromVariantProperty(), "", first, second);
+        Set<Long> seen = new HashSet<>();
+        List<String> sequences = new ArrayList<>();
+        collectPositions(board, new Token[] {first, second}, plies, seen, new StringBuilder(), sequences);
+        int numberPositions = sequences.size();
+        System.out.println("Searching " + numberPositions + " positions " + depth + " moves ahead...");
+
+        ParallelSearch search = new ParallelSearch(new TranspositionTable(transpositionTableMb), threads);
+        long[] keys = new long[numberPositions];
+        long[] entries = new long[numberPositions];
+        long start = System.nanoTime();
+        for (int i = 0; i < numberPositions; i++) {
+            Board position = BenchmarkPositions.boardOf(Board.parse(board.getVariant()), sequences.get(i), first, second);
+            Token token = BenchmarkPositions.toMove(sequences.get(i), first, second);
+            int move = search.searchIterative(position, token, (token == first) ? second : first, depth, 0, 0);
+            keys[i] = position.getCanonicalKey();
+            entries[i] = ((long) position.canonicalColumn(move) << 16) | (search.getColumnScore(move) & 0xFFFF);
+            if ((i + 1) % 1000 == 0) {
+                System.out.printf("%d/%d positions, %.0f s%n", i + 1, numberPositions, (System.nanoTime() - start) / 1e9);
+            }
+        }
+        search.shutdown();
+        write(output, board, keys, entries);
+        System.out.println("Wrote " + numberPositions + " positions to " + output);
+    }
+
+    /**
+     * This method collects the move sequences of all the positions reachable in less than
+     * the given number of moves, keeping only the first sequence reaching each position or its mirror image.
+     * @param board the board of the current position, restored before returning.
+     * @param tokens the tokens of the first and the second player.
+     * @param plies the number of moves left.
+     * @param seen the canonical keys of the positions already collected.
+     * @param moves the move sequence of the current position.
+     * @param positions the collected move sequences.
+     */
+    private static void collectPositions(Board board, Token[] tokens, int plies, Set<Long> seen,
+                                         StringBuilder moves, List<String> positions) {
+        if (plies == 0 || !seen.add(board.getCanonicalKey())) {
+            return;
+        }
+        positions.add(moves.toString());
+        Token token = tokens[moves.length() % 2];
+        for (int col = 0; col < board.getNumberColumns(); col++) {
+            if (board.isValidMove(col)) {
+                if (!board.play(col, token)) {
+                    moves.append(col);
+                    collectPositions(board, tokens, plies - 1, seen, moves, positions);
+                    moves.setLength(moves.length() - 1);
+                }
+                board.undo();
+            }
+        }
+    }
+
+    /**
+     * This method writes the book file, with the entries sorted by key.
+     * @param output the path of the book file.
+     * @param board a board of the variant covered by the book.
+     * @param keys the canonical keys of the positions.
+     * @param entries the best move, in the columns of the canonical position, and its score of each position,
+     *                packed as move << 16 | score.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void write(Path output, Board board, long[] keys, long[] entries) throws IOException {
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output)))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(OpeningBook.VERSION);
+            out.writeInt(board.getNumberRows());
+            out.writeInt(board.getNumberColumns());
+            out.writeInt(board.getConnectLength());
+            out.writeInt(keys.length);
+            for (int i : order) {
+                out.writeLong(keys[i]);
+                out.writeByte((int) (entries[i] >>> 16));
+                out.writeShort((short) entries[i]);
+            }
+        }
+    }
+
+
+}
@@ -0,0 +1,306 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class runs the search of the robot player on several threads using Lazy SMP.
+ * The calling thread runs the main search, while the helper threads search the same
+ * position at the same or a greater depth. All the engines share one transposition table,
+ * which is lock-free, so the helpers fill it with results that the main search reuses
+ * instead of searching the same positions again. The result is the one of the main search,
+ * and the helpers are stopped as soon as the main search is over.
+ * With one thread, the search runs on the calling thread only.
+ * The search can also deepen iteratively within a time or node budget, in which case
+ * the result is the one of the last depth that was searched completely.
+ */
+public class ParallelSearch {
+
+    // Fields
+    /** The engine of the main search, run on the calling thread. */
+    private final SearchEngine mainEngine;
+    /** The engines of the helper searches, one per helper thread. */
+    private final SearchEngine[] helperEngines;
+    /** The futures of the helper searches that are running. */
+    private final Future<?>[] helperFutures;
+    /** The thread pool of the helper searches, or null with one thread. */
+    private final ExecutorService helperPool;
+    /** The number of positions visited by the last search on all the threads. */
+    private long nodes;
+    /** The number of positions of the last search looked up in the transposition table on all the threads. */
+    private long tableProbes;
+    /** The number of positions of the last search found in the transposition table on all the threads. */
+    private long tableHits;
+    /** The score of each column at the last depth searched completely. */
+    private int[] columnScores;
+    /** The last depth searched completely by the last iterative search. */
+    private int completedDepth;
+
+    // Constructor
+    /**
+     * Constructor for the ParallelSearch class.
+     * @param transpositionTable the transposition table shared by all the threads, or null.
+     * @param threads the number of threads searching, including the calling thread, at least 1.
+     */
+    public ParallelSearch(TranspositionTable transpositionTable, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of search threads must be at least 1");
+        }
+        mainEngine = new SearchEngine(transpositionTable);
+        columnScores = new int[mainEngine.getNumberColumns()];
+        helperEngines = new SearchEngine[threads - 1];
+        helperFutures = new Future<?>[threads - 1];
+        for (int i = 0; i < helperEngines.length; i++) {
+            helperEngines[i] = new SearchEngine(transpositionTable);
+        }
+        if (helperEngines.length > 0) {
+            helperPool = Executors.newFixedThreadPool(helperEngines.length, runnable -> {
+                Thread thread = new Thread(runnable, "robot-search-helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            helperPool = null;
+        }
+    }
+
+    // Methods
+    /**
+     * This method searches the best column for a player on all the threads, at a fixed depth.
+     * @param board the board to search, which is left unchanged.
+     * @param token the token of the player to move.
+     * @param opponentToken the token of the opponent.
+     * @param depth the number of moves to look ahead, at least 1.
+     * @return the best column found by the main search, or -1 if all the columns are full.
+     */
+    public int search(Board board, Token token, Token opponentToken, int depth) {
+        startSearch(board);
+        int bestColumn = searchDepth(board, token, opponentToken, depth);
+        saveColumnScores();
+        completedDepth = depth;
+        return bestColumn;
+    }
+
+    /**
+     * This method searches the best column for a player with iterative deepening:
+     * it searches 1 move ahead, then 2 moves ahead and so on, until the maximum depth,
+     * the end of the game or a forced win is reached, or the budget runs out.
+     * Thanks to the transposition table, each depth starts from the best moves of the previous one.
+     * When the budget runs out, the unfinished depth is discarded and the best column of the
+     * last completed depth is returned. The first depth is always completed, so that a column
+     * is returned even with a very small budget.
+     * @param board the board to search, which is left unchanged.
+     * @param token the token of the player to move.
+     * @param opponentToken the token of the opponent.
+     * @param maxDepth the maximum number of moves to look ahead, at least 1.
+     * @param timeBudgetMillis the time allowed for the search in milliseconds, 0 for no limit.
+     * @param nodeBudget the number of positions the main search can visit, 0 for no limit.
+     * @return the best column of the last completed depth, or -1 if all the columns are full.
+     */
+    public int searchIterative(Board board, Token token, Token opponentToken, int maxDepth,
+                               long timeBudgetMillis, long nodeBudget) {
+        return searchIterative(board, token, opponentToken, maxDepth, timeBudgetMillis, nodeBudget, true);
+    }
+
+    /**
+     * This method searches the best column for a player with iterative deepening, as the method above,
+     * optionally going on after a forced win is found. The search that stops at a forced win leaves the
+     * other columns with the scores of the depth where the win was found, often 1, which are not proofs
+     * that they do not win: a search going on scores every column at the full depth, to compare them.
+     * @param board the board to search, which is left unchanged.
+     * @param token the token of the player to move.
+     * @param opponentToken the token of the opponent.
+     * @param maxDepth the maximum number of moves to look ahead, at least 1.
+     * @param timeBudgetMillis the time allowed for the search in milliseconds, 0 for no limit.
+     * @param nodeBudget the number of positions the main search can visit, 0 for no limit.
+     * @param stopAtWin true to stop at the first depth where a player forces a win, false to go on.
+     * @return the best column of the last completed depth, or -1 if all the columns are full.
+     */
+    public int searchIterative(Board board, Token token, Token opponentToken, int maxDepth,
+                               long timeBudgetMillis, long nodeBudget, boolean stopAtWin) {
+        long deadlineNanos = (timeBudgetMillis > 0)
+                ? System.nanoTime() + timeBudgetMillis * 1_000_000 : Long.MAX_VALUE;
+        int emptyCells = board.getNumberRows() * board.getNumberColumns() - board.getNumberTokens();
+        maxDepth = Math.min(maxDepth, emptyCells);
+        startSearch(board);
+        completedDepth = 0;
+        int bestColumn = -1;
+        long mainNodes = 0;
+
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            int column = searchDepth(board, token, opponentToken, depth);
+            mainNodes += mainEngine.getNodes();
+            if (mainEngine.isStopRequested()) {
+                break;
+            }
+            bestColumn = column;
+            completedDepth = depth;
+            saveColumnScores();
+            if (bestColumn == -1 || (stopAtWin && SearchEngine.isWinScore(columnScores[bestColumn]))) {
+                break;
+            }
+            long nodeLimit = (nodeBudget > 0) ? Math.max(nodeBudget - mainNodes, 1) : Long.MAX_VALUE;
+            mainEngine.setLimits(deadlineNanos, nodeLimit);
+        }
+        return bestColumn;
+    }
+
+    /**
+     * This method returns the score of a column at the last depth searched completely.
+     * @param col the column.
+     * @return the score of the column, or SearchEngine.NO_SCORE if it could not be played.
+     */
+    public int getColumnScore(int col) {
+        return columnScores[col];
+    }
+
+    /**
+     * This method returns the last depth searched completely by the last search.
+     * @return the depth.
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * This method runs one search at a fixed depth on all the threads.
+     * Helper i searches depth + (i + 1) / 2 moves ahead, so that half of the helpers
+     * store deeper results than the main search needs.
+     * @param board the board to search, which is left unchanged.
+     * @param token the token of the player to move.
+     * @param opponentToken the token of the opponent.
+     * @param depth the number of moves to look ahead.
+     * @return the best column found by the main search.
+     */
+    private int searchDepth(Board board, Token token, Token opponentToken, int depth) {
+        for (int i = 0; i < helperEngines.length; i++) {
+            SearchEngine helper = helperEngines[i];
+            int helperDepth = depth + (i + 1) / 2;
+            helper.clearStop();
+            helperFutures[i] = helperPool.submit(() -> helper.search(board, token, opponentToken, helperDepth));
+        }
+
+        int bestColumn = mainEngine.search(board, token, opponentToken, depth);
+
+        nodes += mainEngine.getNodes();
+        tableProbes += mainEngine.getTableProbes();
+        tableHits += mainEngine.getTableHits();
+        for (int i = 0; i < helperEngines.length; i++) {
+            helperEngines[i].requestStop();
+        }
+        for (int i = 0; i < helperEngines.length; i++) {
+            awaitHelper(i);
+            nodes += helperEngines[i].getNodes();
+            tableProbes += helperEngines[i].getTableProbes();
+            tableHits += helperEngines[i].getTableHits();
+        }
+        return bestColumn;
+    }
+
+    /**
+     * This method prepares the main engine and the transposition table for a new search.
+     * @param board the board to search, whose number of columns may differ from the previous search.
+     */
+    private void startSearch(Board board) {
+        if (columnScores.length != board.getNumberColumns()) {
+            columnScores = new int[board.getNumberColumns()];
+        }
+        TranspositionTable transpositionTable = mainEngine.getTranspositionTable();
+        if (transpositionTable != null) {
+            transpositionTable.newSearch();
+        }
+        mainEngine.clearStop();
+        mainEngine.setLimits(Long.MAX_VALUE, Long.MAX_VALUE);
+        nodes = 0;
+        tableProbes = 0;
+        tableHits = 0;
+    }
+
+    /**
+     * This method copies the scores of the columns found by the main search.
+     */
+    private void saveColumnScores() {
+        for (int col = 0; col < columnScores.length; col++) {
+            columnScores[col] = mainEngine.getColumnScore(col);
+        }
+    }
+
+    /**
+     * This method returns the engine of the main search,
+     * which holds the score of each column found by the last search.
+     * @return the main engine.
+     */
+    public SearchEngine getMainEngine() {
+        return mainEngine;
+    }
+
+    /**
+     * This method returns the number of threads searching, including the calling thread.
+     * @return the number of threads.
+     */
+    public int getThreads() {
+        return helperEngines.length + 1;
+    }
+
+    /**
+     * This method returns the number of positions visited by the last search on all the threads.
+     * @return the number of positions.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * This method returns the number of positions of the last search looked up in the transposition table
+     * on all the threads.
+     * @return the number of positions, 0 without a table.
+     */
+    public long getTableProbes() {
+        return tableProbes;
+    }
+
+    /**
+     * This method returns the number of positions of the last search found in the transposition table
+     * on all the threads.
+     * @return the number of positions.
+     */
+    public long getTableHits() {
+        return tableHits;
+    }
+
+    /**
+     * This method stops the helper threads. The object cannot be used to search after this call.
+     */
+    public void shutdown() {
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+        }
+    }
+
+    /**
+     * This method waits for a helper search to finish after it was asked to stop.
+     * The board given to the search must not change until all the helpers are done, so the wait
+     * goes on when the calling thread is interrupted, which only stops its own search, and the
+     * interrupted flag is set again afterwards. The helper stops within 1024 positions.
+     * @param i the index of the helper.
+     */
+    private void awaitHelper(int i) {
+        boolean interrupted = false;
+        while (helperFutures[i] != null) {
+            try {
+                helperFutures[i].get();
+                helperFutures[i] = null;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (ExecutionException e) {
+                helperFutures[i] = null;
+                throw new IllegalStateException("A helper search failed", e.getCause());
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+}
@@ -0,0 +1,129 @@
+/**
+ * This class counts the move sequences of the game up to a given depth (a "perft" count),
+ * starting from the empty board or from a given move sequence.
+ * At each depth it reports the number of positions reached and the number of games that end
+ * at that depth, split into wins of the first player, wins of the second player and draws.
+ * A game ends when a player has enough tokens in line or when the board is full, as in GameLogic,
+ * and a game that has ended is not continued. The counts are a correctness check for any change
+ * to the board, and the positions per second measure the speed of the move and undo path
+ * (Board.play and Board.undo) that every search depends on.
+ * The count is done on the board chosen with the connectfour.variant system property.
+ * Usage: java Perft depth [moves]
+ */
+public class Perft {
+
+    // Fields
+    /** The tokens of the first and the second player. */
+    private final Token[] tokens = {new Token(BoardGui.humanPlayerSymbol), new Token(BoardGui.robotPlayerSymbol)};
+    /** The board the moves are played on. */
+    private final Board board;
+    /** The number of positions reached at each depth. */
+    private final long[] nodes;
+    /** The number of wins of each player at each depth, indexed by player * (depth + 1) + depth. */
+    private final long[] wins;
+    /** The number of draws at each depth. */
+    private final long[] draws;
+
+    // Constructor
+    /**
+     * Constructor for the Perft class.
+     * @param moves the move sequence of the starting position, one column (from 0) per character.
+     * @param maxDepth the maximum depth to count.
+     */
+    public Perft(String moves, int maxDepth) {
+        this.board = BenchmarkPositions.boardOf(Board.fromVariantProperty(), moves, tokens[0], tokens[1]);
+        this.nodes = new long[maxDepth + 1];
+        this.wins = new long[2 * (maxDepth + 1)];
+        this.draws = new long[maxDepth + 1];
+    }
+
+    // Methods
+    /**
+     * Runs the count and prints one line per depth.
+     * @param args the depth and, optionally, the move sequence of the starting position.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: java Perft depth [moves]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        String moves = (args.length > 1) ? args[1] : "";
+        Perft perft = new Perft(moves, depth);
+
+        long start = System.nanoTime();
+        perft.count(moves.length() % 2, depth);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long total = 0;
+        System.out.println("depth,nodes,firstPlayerWins,secondPlayerWins,draws");
+        for (int i = 1; i <= depth; i++) {
+            System.out.println(i + "," + perft.getNodes(i) + "," + perft.getWins(0, i) + ","
+                    + perft.getWins(1, i) + "," + perft.getDraws(i));
+            total += perft.getNodes(i);
+        }
+        System.out.printf("%d positions in %.3f s, %.0f positions per second%n", total, seconds, total / seconds);
+    }
+
+    /**
+     * This method counts the move sequences from the starting position.
+     * @param side the index of the player to move in the starting position, 0 for the first player.
+     * @param depth the maximum depth to count.
+     */
+    public void count(int side, int depth) {
+        count(side, 1, depth);
+    }
+
+    /**
+     * This method returns the number of positions reached at a depth.
+     * @param depth the depth, from 1.
+     * @return the number of positions.
+     */
+    public long getNodes(int depth) {
+        return nodes[depth];
+    }
+
+    /**
+     * This method returns the number of games won by a player at a depth.
+     * @param player 0 for the first player, 1 for the second player.
+     * @param depth the depth, from 1.
+     * @return the number of wins.
+     */
+    public long getWins(int player, int depth) {
+        return wins[player * nodes.length + depth];
+    }
+
+    /**
+     * This method returns the number of games drawn at a depth.
+     * @param depth the depth, from 1.
+     * @return the number of draws.
+     */
+    public long getDraws(int depth) {
+        return draws[depth];
+    }
+
+    /**
+     * This method plays every valid move, counts the resulting position and,
+     * unless the game is over, continues with the moves of the other player.
+     * @param side the index of the player to move.
+     * @param ply the depth of the positions reached by the moves.
+     * @param maxDepth the maximum depth to count.
+     */
+    private void count(int side, int ply, int maxDepth) {
+        for (int col = 0; col < board.getNumberColumns(); col++) {
+            if (board.isValidMove(col)) {
+                nodes[ply]++;
+                if (board.play(col, tokens[side])) {
+                    wins[side * nodes.length + ply]++;
+                } else if (board.areAllColumnsFull()) {
+                    draws[ply]++;
+                } else if (ply < maxDepth) {
+                    count(1 - side, ply + 1, maxDepth);
+                }
+                board.undo();
+            }
+        }
+    }
+
+
+}
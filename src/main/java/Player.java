@@ -5,13 +5,18 @@
  * of this class is to generalise the behaviour of a player.
  * An abstract method is included as the behaviour of the player will depend
  * on the type of player (i.e., human or robot).
+ * A player is closed when the games it was created for are over, so that a robot can stop its threads.
  */
 
-public abstract class Player {
+public abstract class Player implements AutoCloseable {
 
     // Fields
     /** The token of the player. */
     private final Token token;
+    /** The number of the game of the player in the game events, 0 before the game starts (see GameTrace). */
+    private int gameNumber = 0;
+    /** The order of the player in its game, 0 for the first player and 1 for the second, -1 before the game starts. */
+    private int side = -1;
 
     // Constructor
     /**
@@ -31,6 +36,41 @@ public abstract class Player {
         return token;
     }
 
+    /**
+     * This method tells the player the game it plays, so that it can record the events of the game
+     * (see GameEventSink). It is called by GameLogic.
+     * @param gameNumber The number of the game.
+     * @param side The order of the player in the game, 0 for the first player and 1 for the second.
+     */
+    public void joinGame(int gameNumber, int side) {
+        this.gameNumber = gameNumber;
+        this.side = side;
+    }
+
+    /**
+     * Getter for the number of the game of the player.
+     * @return The number of the game, 0 before the game starts.
+     */
+    public int getGameNumber() {
+        return gameNumber;
+    }
+
+    /**
+     * Getter for the order of the player in its game.
+     * @return 0 for the first player, 1 for the second, -1 before the game starts.
+     */
+    public int getSide() {
+        return side;
+    }
+
+    /**
+     * This method releases the threads held by the player once its games are over.
+     * The player must not choose a column after this call. There is nothing to release by default.
+     */
+    @Override
+    public void close() {
+    }
+
     // Abstract method
     /**
      * Abstract method to represent how to choose a column.
@@ -0,0 +1,51 @@
+/**
+ * This interface creates the players of a game that is not played through the GUI.
+ * A new player is created for every game, as the robot players keep a reference to the board.
+ */
+@FunctionalInterface
+public interface PlayerFactory {
+
+    /**
+     * This method creates a player.
+     * @param token the token of the player.
+     * @param board the board of the game.
+     * @return the new player.
+     */
+    Player create(Token token, Board board);
+
+    /**
+     * This method creates a factory from a textual description, used by the command line tools:
+     * <pre>
+     *   robot:depth[:timeBudgetMillis[:transpositionTableMb]]   a PlayerRobot
+     *   mcts:playouts[:timeBudgetMillis[:threads]]               a PlayerMonteCarlo
+     * </pre>
+     * A robot with depth 0 only looks one move ahead and otherwise moves at random.
+     * A Monte Carlo robot with 0 playouts thinks for its time budget only.
+     * @param description the description of the players.
+     * @return the factory.
+     */
+    static PlayerFactory parse(String description) {
+        String[] parts = description.split(":");
+        if (parts[0].equals("robot") && parts.length >= 2) {
+            int depth = Integer.parseInt(parts[1]);
+            long timeBudgetMillis = (parts.length > 2) ? Long.parseLong(parts[2]) : 0;
+            int transpositionTableMb = (parts.length > 3) ? Integer.parseInt(parts[3]) : 4;
+            return (token, board) -> {
+                PlayerRobot robot = new PlayerRobot(token, board, depth, (depth > 0) ? transpositionTableMb : 0);
+                robot.setTimeBudgetMillis(timeBudgetMillis);
+                return robot;
+            };
+        }
+        if (parts[0].equals("mcts") && parts.length >= 2) {
+            long playouts = Long.parseLong(parts[1]);
+            long timeBudgetMillis = (parts.length > 2) ? Long.parseLong(parts[2]) : 0;
+            int threads = (parts.length > 3) ? Integer.parseInt(parts[3]) : 1;
+            return (token, board) -> {
+                PlayerMonteCarlo robot = new PlayerMonteCarlo(token, board, playouts, threads);
+                robot.setTimeBudgetMillis(timeBudgetMillis);
+                return robot;
+            };
+        }
+        throw new IllegalArgumentException("Unknown player: " + description);
+    }
+}
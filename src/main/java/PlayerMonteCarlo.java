@@ -0,0 +1,110 @@
+/**
+ * This class represents a robot player choosing its columns with a Monte Carlo tree search
+ * (see MonteCarloSearch) instead of the negamax search of PlayerRobot. It needs no evaluation of the
+ * positions, so it plays the same way on the boards of every size, and it thinks for a number of random
+ * games, or playouts, or for a fixed time, always answering with the best column found so far.
+ */
+public class PlayerMonteCarlo extends Player {
+
+    // Fields
+    /** The default number of playouts to choose a column. */
+    public static final long DEFAULT_PLAYOUT_BUDGET = 200_000;
+    /** The board object that the robot can access. */
+    private final Board board;
+    /** The search used to choose the columns, on one or more threads. */
+    private final MonteCarloSearch search;
+    /** The number of playouts to choose a column, 0 for no limit. */
+    private final long playoutBudget;
+    /** The time allowed to choose a column in milliseconds, 0 for no limit. */
+    private long timeBudgetMillis = 0;
+    /** The token of the opponent. */
+    private final Token opponentToken;
+
+    // Constructor
+    /**
+     * Constructor for the PlayerMonteCarlo class.
+     * The robot plays DEFAULT_PLAYOUT_BUDGET playouts on one thread to choose a column.
+     * @param token The token of the robot player.
+     * @param board The board object that the robot can access.
+     */
+    public PlayerMonteCarlo(Token token, Board board) {
+        this(token, board, DEFAULT_PLAYOUT_BUDGET);
+    }
+
+    /**
+     * Constructor for the PlayerMonteCarlo class with a given playout budget, searching on one thread.
+     * @param token The token of the robot player.
+     * @param board The board object that the robot can access.
+     * @param playoutBudget The number of playouts to choose a column, 0 for no limit when a time budget is set.
+     */
+    public PlayerMonteCarlo(Token token, Board board, long playoutBudget) {
+        this(token, board, playoutBudget, 1);
+    }
+
+    /**
+     * Constructor for the PlayerMonteCarlo class with a given playout budget and number of search threads.
+     * @param token The token of the robot player.
+     * @param board The board object that the robot can access.
+     * @param playoutBudget The number of playouts to choose a column on all the threads,
+     *                      0 for no limit when a time budget is set.
+     * @param searchThreads The number of threads searching, at least 1.
+     */
+    public PlayerMonteCarlo(Token token, Board board, long playoutBudget, int searchThreads) {
+        super(token);
+        this.board = board;
+        this.playoutBudget = playoutBudget;
+        // the robot can also play with the human symbol, for example against another robot
+        this.opponentToken = new Token(BoardGui.humanPlayerSymbol.equals(token.getSymbol())
+                ? BoardGui.robotPlayerSymbol : BoardGui.humanPlayerSymbol);
+        this.search = new MonteCarloSearch(searchThreads);
+    }
+
+    // Methods
+    /**
+     * This method is used to choose a column for the robot player, with a Monte Carlo tree search
+     * that stops when the playout budget or the time budget runs out. The decision is recorded
+     * in the game events (see GameTrace).
+     * This method implements the abstract method from the Player class.
+     * @return The column chosen by the robot player, or -1 if all the columns are full.
+     */
+    @Override
+    public int chooseColumn() {
+        int bestMove = search.search(board, getToken(), opponentToken, playoutBudget, timeBudgetMillis);
+        if (bestMove != -1) {
+            // the decision holds the thousands of playouts and the percentage of them won by the column
+            int thousands = (int) Math.min(search.getPlayouts() / 1000, 0xFF_FFFF);
+            int percent = (int) Math.round(100 * Math.max(search.getColumnScore(bestMove), 0));
+            GameTrace.sink().record(GameEventSink.ROBOT_DECISION, getGameNumber(), getSide(), bestMove, -1,
+                    (thousands << 8) | GameEventSink.DECISION_PLAYOUTS, percent);
+        }
+        return bestMove;
+    }
+
+    /**
+     * This method sets the time allowed to the robot to choose a column.
+     * When the time runs out, the robot plays the best column found so far.
+     * @param timeBudgetMillis The time budget in milliseconds, 0 for no limit.
+     */
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * This method returns the search used by the robot player,
+     * which holds the visits and the score of each column found by the last search.
+     * @return The search.
+     */
+    public MonteCarloSearch getSearch() {
+        return search;
+    }
+
+    /**
+     * This method stops the helper threads of the search.
+     */
+    @Override
+    public void close() {
+        search.shutdown();
+    }
+
+
+}
@@ -1,50 +1,196 @@
-import java.util.ArrayList;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class represents the robot player, and hence it extends the Player class.
  * The robot player needs access to the board to be able to make strategic moves.
  * Therefore, it contains more methods than the PlayerHuman class.
+ * When the search depth is greater than 0 the robot chooses its columns with a
+ * negamax search (see SearchEngine), otherwise it only looks one move ahead.
+ * <p>
+ * The transposition table is kept from one move to the next. When pondering is turned on, the robot goes on
+ * searching while the opponent thinks: as soon as it has chosen a column, it searches the position after that
+ * column on a thread of its own, from the point of view of the opponent, one move deeper than its own search
+ * depth, with a search of its own sharing the transposition table, so that getSearch still gives the results
+ * of the search of the robot. Every reply of the opponent is then already in the table, searched as deep as the robot searches,
+ * so the next search of the robot finds most of its positions there: it answers faster at a fixed depth,
+ * and it gets deeper within a time budget. The pondering stops when the robot is asked for its next column,
+ * or when stopPondering is called, for example when the game is abandoned. Closing the robot stops the threads
+ * of both searches and of the pondering.
+ * <p>
+ * Every search and the time taken to choose every column are counted by GameMetrics,
+ * and every search is recorded as a SearchEvent when a Flight Recorder recording is running.
  */
 public class PlayerRobot extends Player {
 
     // Fields
+    /** The default number of moves the robot looks ahead. */
+    public static final int DEFAULT_SEARCH_DEPTH = 8;
+    /** The default size of the transposition table in megabytes. */
+    public static final int DEFAULT_TRANSPOSITION_TABLE_MB = 16;
+    /** The default number of threads searching. */
+    public static final int DEFAULT_SEARCH_THREADS = 1;
+    /** The system property with the path of the opening book used by default. */
+    public static final String OPENING_BOOK_PROPERTY = "connectfour.openingBook";
+    /** The time after which the thread of the pondering ends when the robot does not ponder, in seconds. */
+    private static final long PONDER_THREAD_IDLE_SECONDS = 60;
     /** The board object that the robot can access. */
     private Board board;
     /** The random object used to generate random numbers. */
     private final Random random = new Random();
+    /** The number of moves the robot looks ahead, 0 to only look one move ahead. */
+    private final int searchDepth;
+    /** The search used to choose the columns, on one or more threads. */
+    private final ParallelSearch search;
+    /** The time allowed to choose a column in milliseconds, 0 for no limit. */
+    private long timeBudgetMillis = 0;
+    /** The number of positions the robot can search to choose a column, 0 for no limit. */
+    private long nodeBudget = 0;
+    /** The opening book looked up before searching, or null to always search. */
+    private OpeningBook openingBook;
+    /** The token of the opponent, the symbols in BoardGui were made static to be accessible outside the class. */
+    private final Token opponentToken;
+    /** The columns from the center to the sides, the order in which the winning and blocking moves are looked for. */
+    private final int[] columnOrder;
+    /** Whether the robot searches while the opponent thinks. */
+    private boolean pondering = false;
+    /** The search of the pondering, on one thread and sharing the transposition table, created with its thread. */
+    private ParallelSearch ponderSearch;
+    /** The thread on which the robot ponders, created the first time it ponders and ended when idle for a while. */
+    private ThreadPoolExecutor ponderExecutor;
+    /** The search of the pondering in progress, or null when the robot is not pondering. */
+    private Future<?> ponderTask;
+    /** The position searched by the pondering, the board after the column chosen by the robot. */
+    private Board ponderBoard;
+    /** Whether the last column chosen was found in the opening book. */
+    private boolean playedBookMove = false;
+    /** The number of positions searched by the last pondering, written by the thread of the pondering. */
+    private volatile long ponderNodes = 0;
+    /** Whether the robot was closed, after which it does not start pondering again. */
+    private boolean closed = false;
 
     // Constructor
     /**
      * Constructor for the PlayerRobot class.
+     * The robot searches DEFAULT_SEARCH_DEPTH moves ahead.
      * @param token The token of the robot player.
      * @param board The board object that the robot can access.
      */
     public PlayerRobot(Token token, Board board) {
+        this(token, board, DEFAULT_SEARCH_DEPTH);
+    }
+
+    /**
+     * Constructor for the PlayerRobot class with a given search depth.
+     * The robot uses a transposition table of DEFAULT_TRANSPOSITION_TABLE_MB megabytes.
+     * @param token The token of the robot player.
+     * @param board The board object that the robot can access.
+     * @param searchDepth The number of moves the robot looks ahead, 0 to only look one move ahead.
+     */
+    public PlayerRobot(Token token, Board board, int searchDepth) {
+        this(token, board, searchDepth, DEFAULT_TRANSPOSITION_TABLE_MB);
+    }
+
+    /**
+     * Constructor for the PlayerRobot class with a given search depth and transposition table size.
+     * The transposition table is allocated here and kept for all the moves of the robot.
+     * @param token The token of the robot player.
+     * @param board The board object that the robot can access.
+     * @param searchDepth The number of moves the robot looks ahead, 0 to only look one move ahead.
+     * @param transpositionTableMb The size of the transposition table in megabytes, 0 to search without it.
+     */
+    public PlayerRobot(Token token, Board board, int searchDepth, int transpositionTableMb) {
+        this(token, board, searchDepth, transpositionTableMb, DEFAULT_SEARCH_THREADS);
+    }
+
+    /**
+     * Constructor for the PlayerRobot class with a given search depth, transposition table size
+     * and number of search threads. With more than one thread, the threads share the
+     * transposition table (see ParallelSearch).
+     * @param token The token of the robot player.
+     * @param board The board object that the robot can access.
+     * @param searchDepth The number of moves the robot looks ahead, 0 to only look one move ahead.
+     * @param transpositionTableMb The size of the transposition table in megabytes, 0 to search without it.
+     * @param searchThreads The number of threads searching, at least 1.
+     */
+    public PlayerRobot(Token token, Board board, int searchDepth, int transpositionTableMb, int searchThreads) {
         super(token);
         this.board = board;
+        this.searchDepth = searchDepth;
+        // the robot can also play with the human symbol, for example against another robot
+        this.opponentToken = new Token(BoardGui.humanPlayerSymbol.equals(token.getSymbol())
+                ? BoardGui.robotPlayerSymbol : BoardGui.humanPlayerSymbol);
+        TranspositionTable transpositionTable =
+                (transpositionTableMb > 0) ? new TranspositionTable(transpositionTableMb) : null;
+        this.search = new ParallelSearch(transpositionTable, searchThreads);
+        this.columnOrder = MoveOrderer.centerFirst(board.getNumberColumns());
+        String openingBookPath = System.getProperty(OPENING_BOOK_PROPERTY);
+        if (openingBookPath != null) {
+            this.openingBook = new OpeningBook(Paths.get(openingBookPath));
+        }
     }
 
     // Methods
     /**
      * This method is used to choose a column for the robot player.
-     * The robot player will try to find a winning move, a blocking move, or choose a random move.
+     * If the search depth is greater than 0, the robot player plays the move of the opening book
+     * if the position is in the book, otherwise it searches the best column with iterative
+     * deepening, up to the search depth or until the time or node budget runs out.
+     * Otherwise, it will try to find a winning move, a blocking move, or choose a random move.
      * This method implements the abstract method from the Player class.
      * @return The column chosen by the robot player.
      */
     @Override
     public int chooseColumn() {
+        long start = System.nanoTime();
+        stopPondering();
+        int column = selectColumn();
+        GameMetrics.get().recordRobotMove(System.nanoTime() - start, playedBookMove);
+        if (pondering) {
+            startPondering(column);
+        }
+        return column;
+    }
+
+    /**
+     * This method chooses a column as described in chooseColumn.
+     * @return The column chosen by the robot player.
+     */
+    private int selectColumn() {
+        playedBookMove = false;
+        if (searchDepth > 0) {
+            int bookMove = findBookMove();
+            if (bookMove != -1) {
+                report(GameEventSink.DECISION_BOOK, 0, bookMove, 0);
+                playedBookMove = true;
+                return bookMove;
+            }
+            int bestMove = runSearch(search, board, getToken(), opponentToken, searchDepth,
+                    timeBudgetMillis, nodeBudget, true, false);
+            if (bestMove != -1) {
+                report(GameEventSink.DECISION_SEARCH, search.getCompletedDepth(), bestMove,
+                        search.getColumnScore(bestMove));
+                return bestMove;
+            }
+        }
+
         // find if there is a winning move with 3 tokens in line
         int winningMove = findWinningMove();
         if (winningMove != -1) {
-            System.out.println("Robot: 'I am about to win!'");
+            report(GameEventSink.DECISION_WIN, 0, winningMove, 0);
             return winningMove;
         }
 
         // find if the opponent has 3 tokens in line and block it
         int blockMove = blockOpponentWinningMove();
         if (blockMove != -1) {
-            System.out.println("Robot: 'I am blocking you haha'");
+            report(GameEventSink.DECISION_BLOCK, 0, blockMove, 0);
             return blockMove;
         }
 
@@ -53,28 +199,245 @@ public class PlayerRobot extends Player {
     }
 
 
+    /**
+     * This method searches the current position as chooseColumn does, without looking up the opening book,
+     * so that the score of every column can be read from getSearch afterwards, for example to comment a game.
+     * Unlike chooseColumn, the search does not stop when it finds a forced win, so that every column
+     * is scored at the same depth.
+     * @return The best column, or -1 if all the columns are full.
+     * @throws IllegalStateException if the robot does not search, because its search depth is 0.
+     */
+    public int evaluateColumns() {
+        if (searchDepth <= 0) {
+            throw new IllegalStateException("A robot with search depth 0 cannot evaluate the columns");
+        }
+        stopPondering();
+        return runSearch(search, board, getToken(), opponentToken, searchDepth, timeBudgetMillis, nodeBudget,
+                false, false);
+    }
+
+    /**
+     * This method sets the time allowed to the robot to choose a column.
+     * When the time runs out, the robot plays the best column of the last depth it
+     * searched completely, so a large search depth can be used together with a budget.
+     * @param timeBudgetMillis The time budget in milliseconds, 0 for no limit.
+     */
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * This method turns pondering on or off, see the description of the class. It is off by default,
+     * and a robot without transposition table never ponders. Turning it off stops the pondering in progress.
+     * @param pondering True to search while the opponent thinks, false otherwise.
+     */
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+        if (!pondering) {
+            stopPondering();
+        }
+    }
+
+    /**
+     * This method stops the pondering in progress, if any, and waits until its thread
+     * is done with the search, which takes at most the time to search 1024 positions.
+     * It can be called from any thread.
+     * The number of positions it searched is then given by getPonderNodes.
+     */
+    public synchronized void stopPondering() {
+        if (ponderTask == null) {
+            return;
+        }
+        // a pondering cancelled before it started searched no position
+        ponderNodes = 0;
+        // interrupting the thread stops the search, see SearchEngine.setLimits
+        ponderTask.cancel(true);
+        ponderTask = null;
+        // the executor has a single thread, so this task runs once the pondering is over
+        Future<?> done = ponderExecutor.submit(() -> { });
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.get();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("The pondering failed", e.getCause());
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * This method returns the number of positions searched by the last pondering, once it was stopped.
+     * @return The number of positions.
+     */
+    public long getPonderNodes() {
+        return ponderNodes;
+    }
+
+    /**
+     * This method stops the pondering in progress and the threads of the searches and of the pondering.
+     * It can be called from any thread, but the robot must not be choosing a column.
+     */
+    @Override
+    public synchronized void close() {
+        stopPondering();
+        closed = true;
+        search.shutdown();
+        if (ponderExecutor != null) {
+            ponderSearch.shutdown();
+            ponderExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * This method sets the opening book looked up before searching.
+     * By default, the book at the path of the OPENING_BOOK_PROPERTY system property is used, if set.
+     * @param openingBook The opening book, or null to always search.
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * This method sets the number of positions the robot can search to choose a column.
+     * @param nodeBudget The node budget, 0 for no limit.
+     */
+    public void setNodeBudget(long nodeBudget) {
+        this.nodeBudget = nodeBudget;
+    }
+
+    /**
+     * This method returns the search used by the robot player,
+     * which holds the score of each column found by the last search.
+     * @return The search.
+     */
+    public ParallelSearch getSearch() {
+        return search;
+    }
+
+    /**
+     * This method starts to ponder the position after a column chosen by the robot, on the thread of the robot.
+     * The position is copied first, as the board changes while the opponent thinks.
+     * @param column The column chosen by the robot, -1 if it could not play.
+     */
+    private synchronized void startPondering(int column) {
+        TranspositionTable transpositionTable = search.getMainEngine().getTranspositionTable();
+        // a thread interrupted while choosing the column belongs to a game that was abandoned
+        if (closed || searchDepth <= 0 || transpositionTable == null || !board.isValidMove(column)
+                || Thread.currentThread().isInterrupted()) {
+            return;
+        }
+        if (ponderBoard == null || !ponderBoard.isSameVariant(board)) {
+            ponderBoard = new Board(board.getNumberRows(), board.getNumberColumns(), board.getConnectLength());
+        }
+        ponderBoard.copyFrom(board);
+        if (ponderBoard.play(column, getToken()) || ponderBoard.areAllColumnsFull()) {
+            return;
+        }
+        if (ponderExecutor == null) {
+            ponderExecutor = new ThreadPoolExecutor(1, 1, PONDER_THREAD_IDLE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "robot-ponder");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            // the thread of a robot whose game was abandoned does not stay around
+            ponderExecutor.allowCoreThreadTimeOut(true);
+            ponderSearch = new ParallelSearch(transpositionTable, 1);
+        }
+        ponderTask = ponderExecutor.submit(() -> {
+            runSearch(ponderSearch, ponderBoard, opponentToken, getToken(), searchDepth + 1, 0, 0, true, true);
+            ponderNodes = ponderSearch.getNodes();
+        });
+    }
+
+    /**
+     * This method runs an iterative search, counts it in GameMetrics and records its Flight Recorder event.
+     * @param search The search to run.
+     * @param board The board to search.
+     * @param token The token of the player to move.
+     * @param opponentToken The token of the opponent.
+     * @param maxDepth The maximum number of moves to look ahead.
+     * @param timeBudgetMillis The time allowed for the search in milliseconds, 0 for no limit.
+     * @param nodeBudget The number of positions the search can visit, 0 for no limit.
+     * @param stopAtWin Whether the search stops at the first depth where a player forces a win.
+     * @param pondering Whether the search is done while the opponent thinks.
+     * @return The best column found, see ParallelSearch.searchIterative.
+     */
+    private static int runSearch(ParallelSearch search, Board board, Token token, Token opponentToken, int maxDepth,
+                                 long timeBudgetMillis, long nodeBudget, boolean stopAtWin, boolean pondering) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int column = search.searchIterative(board, token, opponentToken, maxDepth, timeBudgetMillis, nodeBudget,
+                stopAtWin);
+        GameMetrics.get().recordSearch(search, System.nanoTime() - start, pondering);
+        if (event.shouldCommit()) {
+            event.tokens = board.getNumberTokens();
+            event.completedDepth = search.getCompletedDepth();
+            event.column = column;
+            event.nodes = search.getNodes();
+            event.tableProbes = search.getTableProbes();
+            event.tableHits = search.getTableHits();
+            event.pondering = pondering;
+            event.commit();
+        }
+        return column;
+    }
+
+    /**
+     * This method looks up the current position in the opening book.
+     * A book that was built for another board size is ignored. A book that cannot be read is reported
+     * once, with the reason on the console (see GameTrace.warn) and as a decision in the game events,
+     * and the robot goes on without it.
+     * @return The column of the book, or -1 if the position is not in the book.
+     */
+    private int findBookMove() {
+        if (openingBook == null) {
+            return -1;
+        }
+        int bookMove;
+        try {
+            if (!openingBook.matches(board)) {
+                return -1;
+            }
+            int index = openingBook.find(board.getCanonicalKey());
+            if (index == -1) {
+                return -1;
+            }
+            bookMove = openingBook.getMove(index);
+        } catch (UncheckedIOException | IllegalArgumentException e) {
+            // reported once, the book is not looked up again
+            GameTrace.warn("The robot cannot read its opening book: " + e.getMessage());
+            report(GameEventSink.DECISION_BOOK_UNREADABLE, 0, -1, 0);
+            openingBook = null;
+            return -1;
+        }
+        // the book move is in the columns of the canonical position
+        int move = board.canonicalColumn(bookMove);
+        return board.isValidMove(move) ? move : -1;
+    }
+
     /**
      * This method is used to block the opponent's winning move.
-     * It checks if the opponent can win by entering a token in a specific column.
-     * Hence, it represents a brute force approach to block the opponent, by checking
-     * all the available options. If no winning move for the opponent is found, the
+     * It checks if the opponent can win by entering a token in a specific column,
+     * trying the columns from the center to the sides, without changing the board
+     * (see Board.isWinningMove). If no winning move for the opponent is found, the
      * method returns -1.
      *
      * @return The column to block the opponent's winning move or -1.
      */
     private int blockOpponentWinningMove() {
-        // the tokens in BoardGui were made static to be accessible outside the class
-        Token opponentToken = new Token(BoardGui.humanPlayerSymbol);
         // checking the opponents moves for a win
-        for (int col = 0; col < board.getNumberColumns(); col++) {
-            if (board.isValidMove(col)) {
-                int row = board.getFirstAvailableRow(col);
-                board.setToken(row, col, opponentToken);
-                if (areFourInLine()) {
-                    board.removeToken(row, col);
-                    return col;
-                }
-                board.removeToken(row, col);
+        int opponentIndex = board.getPlayerIndex(opponentToken);
+        for (int col : columnOrder) {
+            if (board.isValidMove(col) && board.isWinningMove(opponentIndex, col)) {
+                return col;
             }
         }
         return -1;
@@ -82,24 +445,19 @@ public class PlayerRobot extends Player {
 
     /**
      * This method is used to find a winning move for the robot player.
-     * It checks if the robot can win by entering a token in a specific column.
-     * Hence, it represents a brute force approach to find a winning move, by checking
-     * all the available options. If a winning move is found, the method returns the column,
+     * It checks if the robot can win by entering a token in a specific column,
+     * trying the columns from the center to the sides, without changing the board
+     * (see Board.isWinningMove). If a winning move is found, the method returns the column,
      * otherwise it returns -1.
      *
      * @return The column to make a winning move or -1.
      */
     private int findWinningMove() {
         // checking all the available moves for a win
-        for (int col = 0; col < board.getNumberColumns(); col++) {
-            if (board.isValidMove(col)) {
-                int row = board.getFirstAvailableRow(col);
-                board.setToken(row, col, this.getToken());
-                if (areFourInLine()) {
-                    board.removeToken(row, col);
-                    return col;
-                }
-                board.removeToken(row, col);
+        int playerIndex = board.getPlayerIndex(getToken());
+        for (int col : columnOrder) {
+            if (board.isValidMove(col) && board.isWinningMove(playerIndex, col)) {
+                return col;
             }
         }
         return -1;
@@ -110,38 +468,47 @@ public class PlayerRobot extends Player {
      * The robot player will choose a random column to place its token.
      * The method selects a random column among the available columns.
      * If a column is full, it is not available for selection.
+     * The available columns are counted and the chosen one is found by counting again,
+     * so that no list is allocated for every move.
      *
-     * @return The random column chosen by the robot player.
+     * @return The random column chosen by the robot player, or -1 if all the columns are full.
      */
     private int randomMove() {
-        System.out.println("Robot: 'I am moving at random...'");
-
-        // Create a list of available columns
-        ArrayList<Integer> availableColumns = new ArrayList<>();
+        // count the available columns
+        int availableColumns = 0;
         for (int col = 0; col < board.getNumberColumns(); col++) {
             if (!board.isColumnFull(col)) {
-                availableColumns.add(col);
+                availableColumns++;
             }
         }
-        // handle the empty available columns list
-        if (availableColumns.isEmpty()) {
-            System.out.println("Robot: 'Oh no... I have no available columns to use.");
+        // handle the case where no column is available
+        if (availableColumns == 0) {
+            report(GameEventSink.DECISION_NONE, 0, -1, 0);
             return -1;
         }
 
         // randomly choose one of the available columns
-        int randomIndex = random.nextInt(availableColumns.size());
-        return availableColumns.get(randomIndex);
+        int randomIndex = random.nextInt(availableColumns);
+        for (int col = 0; col < board.getNumberColumns(); col++) {
+            if (!board.isColumnFull(col) && randomIndex-- == 0) {
+                report(GameEventSink.DECISION_RANDOM, 0, col, 0);
+                return col;
+            }
+        }
+        return -1;
     }
 
     /**
-     * This method is used to check if there are four tokens in line.
-     * It checks if there are four tokens in line vertically, horizontally, or diagonally.
-     *
-     * @return True if there are four tokens in line, false otherwise.
+     * This method records the decision of the robot in the game events (see GameTrace),
+     * where ConsoleEventSink prints it in the robot's own words.
+     * @param kind The kind of decision, one of the DECISION constants of GameEventSink.
+     * @param detail The depth searched for a decision of the search, 0 otherwise.
+     * @param column The column chosen, -1 for none.
+     * @param score The score of the column for a decision of the search, 0 otherwise.
      */
-    private boolean areFourInLine() {
-        return (board.checkVertically() || board.checkHorizontally() || board.checkDiagonally());
+    private void report(int kind, int detail, int column, int score) {
+        GameTrace.sink().record(GameEventSink.ROBOT_DECISION, getGameNumber(), getSide(), column, -1,
+                (detail << 8) | kind, score);
     }
 
 
@@ -0,0 +1,156 @@
+/**
+ * This class measures what pondering (see PlayerRobot.setPondering) gives to the robot player.
+ * Two robots with the same settings, one pondering and the other not, answer the same positions: each game
+ * starts with two tokens in the middle columns, a different pair for each game, the column of the robot without
+ * pondering is played, and the opponent is a robot of depth 10 that stands for a human player by waiting a fixed
+ * time before each of its moves, while the pondering robot searches. It prints one CSV line per robot with the
+ * number of moves, the mean and the longest time taken to answer, the number of moves where the robot found no
+ * forced win or loss and the mean depth it searched completely at those moves (once a win is found the search
+ * stops, whatever the depth), and the mean number of positions searched by the pondering before each answer.
+ * With a fixed depth the pondering shortens the answers, and with a time budget it deepens them.
+ * Usage: java PonderReport [games] [opponentMillis] [depth] [timeBudgetMillis]
+ */
+public class PonderReport {
+
+    /** The search depth of the opponent. */
+    private static final int OPPONENT_DEPTH = 10;
+
+    /**
+     * Private constructor, as the class only holds static members.
+     */
+    private PonderReport() {
+    }
+
+    /**
+     * Runs the report.
+     * @param args the number of games (default 4), the time the opponent waits before each move in
+     *             milliseconds (default 1000), the search depth of the robots (default 12) and their time
+     *             budget in milliseconds (default 0, no limit), with which the depth is only a maximum.
+     * @throws InterruptedException if the thread is interrupted while the opponent waits.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int games = (args.length > 0) ? Integer.parseInt(args[0]) : 4;
+        long opponentMillis = (args.length > 1) ? Long.parseLong(args[1]) : 1000;
+        int depth = (args.length > 2) ? Integer.parseInt(args[2]) : 12;
+        long timeBudgetMillis = (args.length > 3) ? Long.parseLong(args[3]) : 0;
+
+        // the totals of each robot: moves, sum and maximum of the answer times in nanoseconds,
+        // undecided moves, sum of the depths of the undecided moves and sum of the positions pondered
+        long[] plain = new long[6];
+        long[] pondering = new long[6];
+        for (int game = 0; game < games; game++) {
+            playGame(game, opponentMillis, depth, timeBudgetMillis, plain, pondering);
+        }
+        System.out.println("pondering,robotMoves,meanMillis,maxMillis,undecidedMoves,meanUndecidedDepth,meanPonderNodes");
+        printTotals(false, plain);
+        printTotals(true, pondering);
+    }
+
+    /**
+     * This method plays a game between the robot without pondering and the opponent, from two tokens in the
+     * middle columns, and asks the pondering robot for its column in the same positions.
+     * @param game the index of the game, which chooses the columns of the first two tokens.
+     * @param opponentMillis the time the opponent waits before each of its moves, in milliseconds.
+     * @param depth the search depth of the robots.
+     * @param timeBudgetMillis the time budget of the robots in milliseconds, 0 for no limit.
+     * @param plain the totals of the robot without pondering, added to.
+     * @param pondering the totals of the pondering robot, added to.
+     * @throws InterruptedException if the thread is interrupted while the opponent waits.
+     */
+    private static void playGame(int game, long opponentMillis, int depth, long timeBudgetMillis,
+                                 long[] plain, long[] pondering) throws InterruptedException {
+        Token first = new Token(BoardGui.humanPlayerSymbol);
+        Token second = new Token(BoardGui.robotPlayerSymbol);
+        // the first moves are in the middle columns, and differ from one game to the next
+        String opening = "" + (2 + game % 3) + (2 + (game / 3) % 3);
+        Board board = BenchmarkPositions.boardOf(opening, first, second);
+        Board ponderingBoard = BenchmarkPositions.boardOf(opening, first, second);
+        Token robotToken = BenchmarkPositions.toMove(opening, first, second);
+        Token opponentToken = (robotToken == first) ? second : first;
+        PlayerRobot robot = createRobot(robotToken, board, depth, timeBudgetMillis, false);
+        PlayerRobot ponderingRobot = createRobot(robotToken, ponderingBoard, depth, timeBudgetMillis, true);
+        PlayerRobot opponent = new PlayerRobot(opponentToken, board, OPPONENT_DEPTH);
+
+        try {
+            while (true) {
+                int col = answer(robot, plain);
+                answer(ponderingRobot, pondering);
+                if (play(board, ponderingBoard, col, robotToken)) {
+                    return;
+                }
+                Thread.sleep(opponentMillis);
+                if (play(board, ponderingBoard, opponent.chooseColumn(), opponentToken)) {
+                    return;
+                }
+            }
+        } finally {
+            robot.close();
+            ponderingRobot.close();
+            opponent.close();
+        }
+    }
+
+    /**
+     * This method creates a robot.
+     * @param token the token of the robot.
+     * @param board the board of the robot.
+     * @param depth the search depth of the robot.
+     * @param timeBudgetMillis the time budget of the robot in milliseconds, 0 for no limit.
+     * @param pondering whether the robot ponders.
+     * @return the new robot.
+     */
+    private static PlayerRobot createRobot(Token token, Board board, int depth, long timeBudgetMillis,
+                                           boolean pondering) {
+        PlayerRobot robot = new PlayerRobot(token, board, depth);
+        robot.setTimeBudgetMillis(timeBudgetMillis);
+        robot.setPondering(pondering);
+        return robot;
+    }
+
+    /**
+     * This method asks a robot for its column and adds the time it took and the depth it searched to its totals.
+     * @param robot the robot.
+     * @param totals the totals of the robot, added to.
+     * @return the column chosen by the robot.
+     */
+    private static int answer(PlayerRobot robot, long[] totals) {
+        long start = System.nanoTime();
+        int col = robot.chooseColumn();
+        long nanos = System.nanoTime() - start;
+        totals[0]++;
+        totals[1] += nanos;
+        totals[2] = Math.max(totals[2], nanos);
+        if (!SearchEngine.isWinScore(robot.getSearch().getColumnScore(col))) {
+            totals[3]++;
+            totals[4] += robot.getSearch().getCompletedDepth();
+        }
+        totals[5] += robot.getPonderNodes();
+        return col;
+    }
+
+    /**
+     * This method drops a token in the same column of both boards.
+     * @param board the board of the game.
+     * @param ponderingBoard the board of the pondering robot.
+     * @param col the column.
+     * @param token the token.
+     * @return true if the game is over, false otherwise.
+     */
+    private static boolean play(Board board, Board ponderingBoard, int col, Token token) {
+        ponderingBoard.play(col, token);
+        return board.play(col, token) || board.areAllColumnsFull();
+    }
+
+    /**
+     * This method prints the CSV line of a robot.
+     * @param pondering whether the robot ponders.
+     * @param totals the totals of the robot.
+     */
+    private static void printTotals(boolean pondering, long[] totals) {
+        long moves = Math.max(totals[0], 1);
+        System.out.printf("%b,%d,%.1f,%.1f,%d,%.2f,%d%n", pondering, totals[0], totals[1] / 1e6 / moves,
+                totals[2] / 1e6, totals[3], (double) totals[4] / Math.max(totals[3], 1), totals[5] / moves);
+    }
+
+
+}
@@ -0,0 +1,184 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class is the game event sink that hands the events to another sink, its back end, on a thread of its own,
+ * so that the threads of the games never wait for the back end to write. The events are kept in a ring of a fixed
+ * number of slots, three longs each, allocated once: a thread recording an event claims the next slot with a
+ * compare-and-set on a counter, writes the event in it and publishes the slot, and the writer thread reads the
+ * published slots in order and passes them to the back end with the time they were recorded (see recordAt).
+ * No lock is taken and nothing is allocated. When the writer falls behind and the ring is full, the new events
+ * are dropped and counted instead of blocking the games. When it has nothing to read, the writer flushes the
+ * back end and sleeps for a millisecond.
+ */
+public class RingBufferEventSink implements GameEventSink {
+
+    // Fields
+    /** The default number of slots of the ring. */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    /** The number of longs of a slot. */
+    private static final int LONGS_PER_EVENT = 3;
+    /** The time the writer sleeps when it has nothing to read, in nanoseconds. */
+    private static final long IDLE_NANOS = 1_000_000;
+    /** The greatest number of events the writer reads before it frees their slots. */
+    private static final int RELEASE_BATCH = 256;
+    /** The sink the events are handed to. */
+    private final GameEventSink backEnd;
+    /** The number of slots of the ring, a power of two. */
+    private final int capacity;
+    /** The number of events the writer reads before it frees their slots, a power of two. */
+    private final int releaseBatch;
+    /** The events of the slots: time, game and type with the side, column and row, value and score. */
+    private final AtomicLongArray events;
+    /** For each slot, the sequence number of the event written in it plus one, once it can be read. */
+    private final AtomicLongArray published;
+    /** The number of slots claimed by the threads recording events. */
+    private final AtomicLong claimed = new AtomicLong();
+    /** The number of events read by the writer whose slots can be used again. */
+    private volatile long consumed = 0;
+    /** The number of events read by the writer and flushed by the back end. */
+    private volatile long flushed = 0;
+    /** The number of events dropped because the ring was full. */
+    private final LongAdder dropped = new LongAdder();
+    /** Whether the sink was closed. */
+    private volatile boolean closed = false;
+    /** The thread handing the events to the back end. */
+    private final Thread writer;
+
+    // Constructor
+    /**
+     * Constructor for the RingBufferEventSink class with DEFAULT_CAPACITY slots.
+     * @param backEnd the sink the events are handed to, only called by the writer thread.
+     */
+    public RingBufferEventSink(GameEventSink backEnd) {
+        this(backEnd, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for the RingBufferEventSink class. The writer thread is started at once.
+     * @param backEnd the sink the events are handed to, only called by the writer thread.
+     * @param capacity the number of slots of the ring, a power of two.
+     */
+    public RingBufferEventSink(GameEventSink backEnd, int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("The capacity must be a power of two, not " + capacity);
+        }
+        this.backEnd = backEnd;
+        this.capacity = capacity;
+        this.releaseBatch = Math.max(Math.min(RELEASE_BATCH, capacity / 4), 1);
+        this.events = new AtomicLongArray(capacity * LONGS_PER_EVENT);
+        this.published = new AtomicLongArray(capacity);
+        this.writer = new Thread(this::write, "game-event-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Methods
+    @Override
+    public void record(int type, int game, int side, int column, int row, int value, int score) {
+        recordAt(System.nanoTime(), type, game, side, column, row, value, score);
+    }
+
+    @Override
+    public void recordAt(long nanoTime, int type, int game, int side, int column, int row, int value, int score) {
+        if (closed) {
+            return;
+        }
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= capacity) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+        int slot = (int) sequence & (capacity - 1);
+        int index = slot * LONGS_PER_EVENT;
+        events.setPlain(index, nanoTime);
+        events.setPlain(index + 1, ((long) game << 32) | ((long) (type & 0xFF) << 24)
+                | ((side & 0xFF) << 16) | ((column & 0xFF) << 8) | (row & 0xFF));
+        events.setPlain(index + 2, ((long) value << 32) | (score & 0xFFFFFFFFL));
+        // the release makes the writes of the event visible to the writer before the slot is seen as published
+        published.setRelease(slot, sequence + 1);
+    }
+
+    /**
+     * This method waits until the writer has handed all the events recorded so far to the back end,
+     * and flushes the back end.
+     */
+    @Override
+    public void flush() {
+        long target = claimed.get();
+        // the writer thread flushes the back end when it has nothing left to read
+        while (flushed < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(IDLE_NANOS / 10);
+        }
+    }
+
+    /**
+     * This method hands the events recorded so far to the back end, stops the writer thread and closes the back end.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        backEnd.close();
+    }
+
+    /**
+     * This method returns the number of events dropped because the ring was full.
+     * @return the number of events.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * This method is run by the writer thread: it reads the published slots in order and hands
+     * their events to the back end, until the sink is closed and every claimed slot was read.
+     */
+    private void write() {
+        long next = 0;
+        while (true) {
+            int slot = (int) next & (capacity - 1);
+            if (published.getAcquire(slot) == next + 1) {
+                int index = slot * LONGS_PER_EVENT;
+                long header = events.getPlain(index + 1);
+                long numbers = events.getPlain(index + 2);
+                backEnd.recordAt(events.getPlain(index), (byte) (header >>> 24), (int) (header >>> 32),
+                        (byte) (header >>> 16), (byte) (header >>> 8), (byte) header,
+                        (int) (numbers >>> 32), (int) numbers);
+                next++;
+                if ((next & (releaseBatch - 1)) == 0) {
+                    consumed = next;
+                }
+                continue;
+            }
+            if (next != flushed) {
+                backEnd.flush();
+                flushed = next;
+            }
+            consumed = next;
+            if (closed && claimed.get() == next) {
+                return;
+            }
+            LockSupport.parkNanos(IDLE_NANOS);
+        }
+    }
+
+
+}
@@ -0,0 +1,359 @@
+/**
+ * This class represents the search engine used by the robot player.
+ * It implements a negamax search with alpha-beta pruning up to a configurable depth,
+ * and it assigns a score to each column of the board.
+ * A position is scored from the point of view of the player to move: a win is worth
+ * WIN_SCORE minus the number of tokens on the board, so that faster wins score higher,
+ * a loss is worth the opposite and a draw is worth 0. A position where the depth runs out is
+ * scored by an Evaluator, which counts the threats built by each player and stays far below the
+ * scores of the wins, so that the search still prefers a sure win to any threat.
+ * The search is done on a private copy of the board, and all the arrays it needs are
+ * allocated once in the constructor, so that a search does not allocate any object.
+ * They are only allocated again when the engine is given a board of another variant
+ * (see Board.isSameVariant), so the same engine can search boards of any size.
+ * The columns of each position are tried in the order chosen by a MoveOrderer, after the
+ * move stored in the transposition table for the position, if any.
+ * When a transposition table is given, the engine stores the result of every position it
+ * searches and reuses it when the same position, or its mirror image, is reached again,
+ * also in later searches (see Board.getCanonicalKey).
+ * The table can be shared by several engines searching on different threads, and it is up
+ * to the owner of the table to call newSearch on it before each search.
+ */
+public class SearchEngine {
+
+    // Fields
+    /** The score of a win on an empty board. */
+    public static final int WIN_SCORE = 10_000;
+    /** The score given to the columns that cannot be played. */
+    public static final int NO_SCORE = Integer.MIN_VALUE;
+    /** The mask of the node count that decides how often the limits of the search are checked. */
+    private static final long LIMIT_CHECK_MASK = 1023;
+    /** The board used to try the moves during the search. */
+    private Board searchBoard = new Board();
+    /** The tokens of the two players, indexed as in the search board. */
+    private final Token[] tokens = new Token[2];
+    /** The order in which the columns are tried, which learns from the cutoffs of the search. */
+    private final MoveOrderer moveOrderer;
+    /** The static evaluation of the positions of the search board, updated with every move tried. */
+    private Evaluator evaluator = new Evaluator(searchBoard);
+    /** The score of each column found by the last search. */
+    private int[] columnScores;
+    /** The transposition table shared by the searches, or null to search without it. */
+    private final TranspositionTable transpositionTable;
+    /** The number of positions visited by the last search. */
+    private long nodes;
+    /** The number of positions of the last search looked up in the transposition table. */
+    private long tableProbes;
+    /** The number of positions of the last search found in the transposition table. */
+    private long tableHits;
+    /** Whether the current search has been asked to stop, it can be set from another thread. */
+    private volatile boolean stopRequested = false;
+    /** The value of System.nanoTime at which the search stops, Long.MAX_VALUE for no deadline. */
+    private long deadlineNanos = Long.MAX_VALUE;
+    /** The number of positions after which the search stops, Long.MAX_VALUE for no limit. */
+    private long nodeLimit = Long.MAX_VALUE;
+
+    // Constructor
+    /**
+     * Constructor for the SearchEngine class without a transposition table.
+     */
+    public SearchEngine() {
+        this(null);
+    }
+
+    /**
+     * Constructor for the SearchEngine class, ordering the moves with the default heuristics of MoveOrderer.
+     * @param transpositionTable the transposition table to use, or null to search without it.
+     */
+    public SearchEngine(TranspositionTable transpositionTable) {
+        this(transpositionTable, new MoveOrderer());
+    }
+
+    /**
+     * Constructor for the SearchEngine class with a given move orderer.
+     * @param transpositionTable the transposition table to use, or null to search without it.
+     * @param moveOrderer the move orderer, used by this engine only.
+     */
+    public SearchEngine(TranspositionTable transpositionTable, MoveOrderer moveOrderer) {
+        this.transpositionTable = transpositionTable;
+        this.moveOrderer = moveOrderer;
+        prepareColumns();
+    }
+
+    // Methods
+    /**
+     * This method searches the best column for a player.
+     * Each column is searched with a full window so that its score is exact,
+     * while alpha-beta pruning is applied to all the positions below the root.
+     * @param board the board to search, which is left unchanged.
+     * @param token the token of the player to move.
+     * @param opponentToken the token of the opponent.
+     * @param depth the number of moves to look ahead, at least 1.
+     * @return the best column, or -1 if all the columns are full.
+     *         If the search was stopped, the best column among the ones searched so far.
+     */
+    public int search(Board board, Token token, Token opponentToken, int depth) {
+        if (!searchBoard.isSameVariant(board)) {
+            searchBoard = new Board(board.getNumberRows(), board.getNumberColumns(), board.getConnectLength());
+            evaluator = new Evaluator(searchBoard);
+            prepareColumns();
+        }
+        searchBoard.copyFrom(board);
+        moveOrderer.prepare(searchBoard);
+        evaluator.reset(searchBoard);
+        int side = searchBoard.getPlayerIndex(token);
+        tokens[side] = token;
+        tokens[searchBoard.getPlayerIndex(opponentToken)] = opponentToken;
+        nodes = 0;
+        tableProbes = 0;
+        tableHits = 0;
+
+        int bestColumn = -1;
+        int bestScore = NO_SCORE;
+        for (int col = 0; col < columnScores.length; col++) {
+            columnScores[col] = NO_SCORE;
+        }
+        for (int col : moveOrderer.getStaticOrder()) {
+            if (searchBoard.isValidMove(col)) {
+                int score = scoreMove(col, side, depth, -WIN_SCORE, WIN_SCORE);
+                if (stopRequested) {
+                    break;
+                }
+                columnScores[col] = score;
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestColumn = col;
+                }
+            }
+        }
+        return bestColumn;
+    }
+
+    /**
+     * This method returns the score of a column found by the last search.
+     * @param col the column.
+     * @return the score of the column, or NO_SCORE if the column could not be played.
+     */
+    public int getColumnScore(int col) {
+        return columnScores[col];
+    }
+
+    /**
+     * This method prepares the array of the scores of the columns of the search board.
+     */
+    private void prepareColumns() {
+        columnScores = new int[searchBoard.getNumberColumns()];
+    }
+
+    /**
+     * This method returns the number of columns of the boards searched by the engine.
+     * @return the number of columns.
+     */
+    public int getNumberColumns() {
+        return columnScores.length;
+    }
+
+    /**
+     * This method returns the number of positions visited by the last search.
+     * @return the number of positions.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * This method returns the number of positions of the last search looked up in the transposition table.
+     * @return the number of positions, 0 when the engine searches without a table.
+     */
+    public long getTableProbes() {
+        return tableProbes;
+    }
+
+    /**
+     * This method returns the number of positions of the last search found in the transposition table,
+     * whether or not their entry was deep enough to give their score.
+     * @return the number of positions.
+     */
+    public long getTableHits() {
+        return tableHits;
+    }
+
+    /**
+     * This method sets the limits of the next searches. When a limit is reached the search
+     * stops as if requestStop had been called. The limits are checked every 1024 positions,
+     * and so is the interrupted flag of the thread, so that interrupting the thread stops the search too.
+     * @param deadlineNanos the value of System.nanoTime at which the search stops, Long.MAX_VALUE for no deadline.
+     * @param nodeLimit the number of positions after which the search stops, Long.MAX_VALUE for no limit.
+     */
+    public void setLimits(long deadlineNanos, long nodeLimit) {
+        this.deadlineNanos = deadlineNanos;
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * This method checks if a score means that one of the players can force a win.
+     * @param score the score of a position.
+     * @return true if the score is a win or a loss, false otherwise.
+     */
+    public static boolean isWinScore(int score) {
+        return score != NO_SCORE && Math.abs(score) > WIN_SCORE / 2;
+    }
+
+    /**
+     * This method asks the current search to stop as soon as possible.
+     * It can be called from another thread, and the engine keeps ignoring
+     * its searches until clearStop is called.
+     */
+    public void requestStop() {
+        stopRequested = true;
+    }
+
+    /**
+     * This method allows the engine to search again after a stop was requested.
+     */
+    public void clearStop() {
+        stopRequested = false;
+    }
+
+    /**
+     * This method checks if a stop was requested, in which case the result
+     * of the last search is incomplete.
+     * @return true if a stop was requested, false otherwise.
+     */
+    public boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    /**
+     * This method returns the transposition table used by the engine.
+     * @return the transposition table, or null if the engine searches without it.
+     */
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    /**
+     * This method scores a position with negamax and alpha-beta pruning.
+     * If the position is in the transposition table and it was searched deep enough,
+     * its stored score is used to narrow the window or returned directly. Otherwise
+     * the stored best move is tried first, as it is the most likely to cause a cutoff.
+     * @param side the index of the player to move.
+     * @param depth the number of moves left to look ahead.
+     * @param alpha the score the player to move is already guaranteed.
+     * @param beta the score the opponent is already guaranteed.
+     * @return the score of the position for the player to move.
+     */
+    private int negamax(int side, int depth, int alpha, int beta) {
+        nodes++;
+        if ((nodes & LIMIT_CHECK_MASK) == 0 && (nodes >= nodeLimit || System.nanoTime() >= deadlineNanos
+                || Thread.currentThread().isInterrupted())) {
+            stopRequested = true;
+        }
+        if (stopRequested) {
+            return 0;
+        }
+        if (searchBoard.areAllColumnsFull()) {
+            return 0;
+        }
+        if (depth == 0) {
+            return evaluator.evaluate(side);
+        }
+
+        // a position and its mirror image share their entry, the moves are stored in the columns of the canonical one
+        long key = searchBoard.getCanonicalKey();
+        int tableMove = -1;
+        if (transpositionTable != null) {
+            long entry = transpositionTable.probe(key);
+            tableProbes++;
+            if (entry != 0) {
+                tableHits++;
+                tableMove = searchBoard.canonicalColumn(TranspositionTable.moveOf(entry));
+                if (TranspositionTable.depthOf(entry) >= depth) {
+                    int tableScore = TranspositionTable.scoreOf(entry);
+                    int bound = TranspositionTable.boundOf(entry);
+                    if (bound == TranspositionTable.EXACT) {
+                        return tableScore;
+                    } else if (bound == TranspositionTable.LOWER_BOUND) {
+                        alpha = Math.max(alpha, tableScore);
+                    } else {
+                        beta = Math.min(beta, tableScore);
+                    }
+                    if (alpha >= beta) {
+                        return tableScore;
+                    }
+                }
+            }
+        }
+
+        int originalAlpha = alpha;
+        int bestScore = -WIN_SCORE;
+        int bestMove = -1;
+        if (tableMove != -1 && searchBoard.isValidMove(tableMove)) {
+            bestScore = scoreMove(tableMove, side, depth, alpha, beta);
+            bestMove = tableMove;
+            alpha = Math.max(alpha, bestScore);
+        }
+        if (alpha < beta) {
+            int ply = searchBoard.getNumberTokens();
+            int numberMoves = moveOrderer.orderMoves(searchBoard, side, tableMove);
+            for (int i = 0; i < numberMoves; i++) {
+                int col = moveOrderer.getMove(ply, i);
+                int score = scoreMove(col, side, depth, alpha, beta);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestMove = col;
+                    if (score > alpha) {
+                        alpha = score;
+                        if (alpha >= beta) {
+                            moveOrderer.recordCutoff(ply, side, col, depth);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (stopRequested) {
+            // the score is incomplete and must not be stored
+            return 0;
+        }
+        if (transpositionTable != null) {
+            int bound;
+            if (bestScore <= originalAlpha) {
+                bound = TranspositionTable.UPPER_BOUND;
+            } else if (bestScore >= beta) {
+                bound = TranspositionTable.LOWER_BOUND;
+            } else {
+                bound = TranspositionTable.EXACT;
+            }
+            transpositionTable.store(key, depth, bestScore, bound, searchBoard.canonicalColumn(bestMove));
+        }
+        return bestScore;
+    }
+
+    /**
+     * This method plays a column, scores the resulting position and takes the move back.
+     * @param col the column to play, which must be a valid move.
+     * @param side the index of the player to move.
+     * @param depth the number of moves left to look ahead, including this one.
+     * @param alpha the score the player to move is already guaranteed.
+     * @param beta the score the opponent is already guaranteed.
+     * @return the score of the move for the player to move.
+     */
+    private int scoreMove(int col, int side, int depth, int alpha, int beta) {
+        int row = searchBoard.getFirstAvailableRow(col);
+        int score;
+        if (searchBoard.play(col, tokens[side])) {
+            nodes++;
+            score = WIN_SCORE - searchBoard.getNumberTokens();
+        } else {
+            evaluator.play(side, row, col);
+            score = -negamax(1 - side, depth - 1, -beta, -alpha);
+            evaluator.undo(side, row, col);
+        }
+        searchBoard.undo();
+        return score;
+    }
+
+
+}
@@ -0,0 +1,42 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * This class is the Flight Recorder event of a search of a robot (see PlayerRobot), lasting as long as the
+ * search, with the positions it visited, the depth it reached and its use of the transposition table.
+ * It is only recorded when a recording is running, for example with -XX:StartFlightRecording, and it
+ * costs almost nothing otherwise. The counts of all the searches are kept by GameMetrics.
+ */
+@Name("connectfour.Search")
+@Label("Robot Search")
+@Category("Connect Four")
+@Description("A search of the robot to choose a column, or to ponder while the opponent thinks")
+public class SearchEvent extends jdk.jfr.Event {
+
+    // Fields
+    /** The number of tokens on the board searched. */
+    @Label("Tokens")
+    public int tokens;
+    /** The depth searched completely. */
+    @Label("Completed Depth")
+    public int completedDepth;
+    /** The column found, or -1. */
+    @Label("Column")
+    public int column;
+    /** The number of positions visited on all the threads. */
+    @Label("Nodes")
+    public long nodes;
+    /** The number of positions looked up in the transposition table. */
+    @Label("Table Probes")
+    public long tableProbes;
+    /** The number of positions found in the transposition table. */
+    @Label("Table Hits")
+    public long tableHits;
+    /** Whether the search was done while the opponent thinks. */
+    @Label("Pondering")
+    public boolean pondering;
+
+
+}
@@ -0,0 +1,258 @@
+/**
+ * This class weakly solves a position: it finds whether the player to move can force a win, can only
+ * force a draw, or loses against the best play of the opponent, without finding how fast the game ends.
+ * The scores of the search are only WIN, DRAW and LOSS, so two null-window searches are enough:
+ * the first one asks whether the position is a win, and when it is not, the second one asks whether
+ * it is at least a draw. With a window that narrow, most of the positions are cut off after their first
+ * good move, and far fewer positions are visited than by a search of the exact score (see SearchEngine),
+ * which has to tell the fast wins from the slow ones.
+ * The search goes to the end of the game, so there is no evaluation and no depth limit. The positions
+ * are stored in a transposition table of their own, a position and its mirror image sharing one entry,
+ * and the columns are tried in the order of a MoveOrderer, after a column that wins at once.
+ * Usage: java Solver moves [transpositionTableMb]
+ * where moves is the move sequence of the position, one column (from 0) per character, "" for the empty
+ * board, played on the board chosen with the connectfour.variant system property.
+ */
+public class Solver {
+
+    // Fields
+    /** The outcome of a position that the player to move wins. */
+    public static final int WIN = 1;
+    /** The outcome of a position that ends in a draw. */
+    public static final int DRAW = 0;
+    /** The outcome of a position that the player to move loses. */
+    public static final int LOSS = -1;
+    /** The size of the transposition table used when none is given, in megabytes. */
+    public static final int DEFAULT_TRANSPOSITION_TABLE_MB = 64;
+    /** The largest depth stored in the transposition table. */
+    private static final int MAX_STORED_DEPTH = 255;
+    /** The board used to try the moves during the search. */
+    private Board searchBoard = new Board();
+    /** The tokens of the two players, indexed as in the search board. */
+    private final Token[] tokens = new Token[2];
+    /** The order in which the columns are tried. */
+    private final MoveOrderer moveOrderer = new MoveOrderer();
+    /** The transposition table of the solver, which only holds outcomes. */
+    private final TranspositionTable transpositionTable;
+    /** The number of positions visited by the last solve. */
+    private long nodes;
+    /** The time taken by the last solve, in nanoseconds. */
+    private long elapsedNanos;
+
+    // Constructor
+    /**
+     * Constructor for the Solver class with a transposition table of the default size.
+     */
+    public Solver() {
+        this(DEFAULT_TRANSPOSITION_TABLE_MB);
+    }
+
+    /**
+     * Constructor for the Solver class.
+     * @param transpositionTableMb the size of the transposition table in megabytes, at least 1.
+     */
+    public Solver(int transpositionTableMb) {
+        this.transpositionTable = new TranspositionTable(transpositionTableMb);
+    }
+
+    // Methods
+    /**
+     * Solves a position from the command line and prints its outcome, the positions visited and the time taken.
+     * @param args the move sequence of the position and, optionally, the size of the transposition table in megabytes.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: java Solver moves [transpositionTableMb]");
+            return;
+        }
+        String moves = args[0];
+        int transpositionTableMb = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_TRANSPOSITION_TABLE_MB;
+        Token first = new Token(BoardGui.humanPlayerSymbol);
+        Token second = new Token(BoardGui.robotPlayerSymbol);
+        Board board = BenchmarkPositions.boardOf(Board.fromVariantProperty(), moves, first, second);
+        Token token = BenchmarkPositions.toMove(moves, first, second);
+
+        Solver solver = new Solver(transpositionTableMb);
+        int outcome = solver.solve(board, token, (token == first) ? second : first);
+        double millis = solver.getElapsedNanos() / 1e6;
+        System.out.println("moves,outcome,nodes,millis,nodesPerSecond");
+        System.out.printf("%s,%s,%d,%.1f,%.0f%n", moves, outcomeName(outcome), solver.getNodes(), millis,
+                solver.getNodes() / (millis / 1000.0));
+    }
+
+    /**
+     * This method returns the name of an outcome.
+     * @param outcome WIN, DRAW or LOSS.
+     * @return "win", "draw" or "loss".
+     */
+    public static String outcomeName(int outcome) {
+        if (outcome == WIN) {
+            return "win";
+        } else if (outcome == DRAW) {
+            return "draw";
+        } else {
+            return "loss";
+        }
+    }
+
+    /**
+     * This method solves a position for the player to move. The entries of the transposition
+     * table are kept from one solve to the next, as an outcome does not depend on the search.
+     * @param board the board of the position, which is left unchanged.
+     * @param token the token of the player to move.
+     * @param opponentToken the token of the opponent.
+     * @return WIN, DRAW or LOSS, for the player to move.
+     * @throws IllegalArgumentException if a player already has enough tokens in line.
+     */
+    public int solve(Board board, Token token, Token opponentToken) {
+        long start = System.nanoTime();
+        if (!searchBoard.isSameVariant(board)) {
+            searchBoard = new Board(board.getNumberRows(), board.getNumberColumns(), board.getConnectLength());
+            transpositionTable.clear();
+        }
+        searchBoard.copyFrom(board);
+        moveOrderer.prepare(searchBoard);
+        int side = searchBoard.getPlayerIndex(token);
+        tokens[side] = token;
+        tokens[searchBoard.getPlayerIndex(opponentToken)] = opponentToken;
+        if (searchBoard.hasFourInLine(0) || searchBoard.hasFourInLine(1)) {
+            throw new IllegalArgumentException("The game is already over");
+        }
+        nodes = 0;
+
+        int outcome;
+        if (negamax(side, DRAW, WIN) > DRAW) {
+            outcome = WIN;
+        } else if (negamax(side, LOSS, DRAW) >= DRAW) {
+            outcome = DRAW;
+        } else {
+            outcome = LOSS;
+        }
+        elapsedNanos = System.nanoTime() - start;
+        return outcome;
+    }
+
+    /**
+     * This method returns the number of positions visited by the last solve.
+     * @return the number of positions.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * This method returns the time taken by the last solve.
+     * @return the time, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * This method returns the transposition table of the solver.
+     * @return the transposition table.
+     */
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    /**
+     * This method finds the outcome of a position with negamax and alpha-beta pruning, within a window
+     * of outcomes. The depth stored with the entries of the transposition table is the number of empty
+     * cells, so that the depth-preferred slots keep the positions with the largest trees below them.
+     * @param side the index of the player to move.
+     * @param alpha the outcome the player to move is already guaranteed.
+     * @param beta the outcome the opponent is already guaranteed.
+     * @return the outcome for the player to move if it is strictly between alpha and beta,
+     *         otherwise a bound on the outcome on the same side of the window.
+     */
+    private int negamax(int side, int alpha, int beta) {
+        nodes++;
+        if (searchBoard.areAllColumnsFull()) {
+            return DRAW;
+        }
+        int numberColumns = searchBoard.getNumberColumns();
+        for (int col = 0; col < numberColumns; col++) {
+            if (searchBoard.isValidMove(col) && searchBoard.isWinningMove(side, col)) {
+                return WIN;
+            }
+        }
+
+        long key = searchBoard.getCanonicalKey();
+        int tableMove = -1;
+        long entry = transpositionTable.probe(key);
+        if (entry != 0) {
+            tableMove = searchBoard.canonicalColumn(TranspositionTable.moveOf(entry));
+            int tableOutcome = TranspositionTable.scoreOf(entry);
+            int bound = TranspositionTable.boundOf(entry);
+            if (bound == TranspositionTable.EXACT) {
+                return tableOutcome;
+            } else if (bound == TranspositionTable.LOWER_BOUND) {
+                alpha = Math.max(alpha, tableOutcome);
+            } else {
+                beta = Math.min(beta, tableOutcome);
+            }
+            if (alpha >= beta) {
+                return tableOutcome;
+            }
+        }
+
+        int originalAlpha = alpha;
+        int bestOutcome = LOSS;
+        int bestMove = -1;
+        if (tableMove != -1 && searchBoard.isValidMove(tableMove)) {
+            bestOutcome = solveMove(tableMove, side, alpha, beta);
+            bestMove = tableMove;
+            alpha = Math.max(alpha, bestOutcome);
+        }
+        if (alpha < beta) {
+            int ply = searchBoard.getNumberTokens();
+            int numberMoves = moveOrderer.orderMoves(searchBoard, side, tableMove);
+            for (int i = 0; i < numberMoves; i++) {
+                int col = moveOrderer.getMove(ply, i);
+                int outcome = solveMove(col, side, alpha, beta);
+                if (outcome > bestOutcome || bestMove == -1) {
+                    bestOutcome = outcome;
+                    bestMove = col;
+                    if (outcome > alpha) {
+                        alpha = outcome;
+                        if (alpha >= beta) {
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        int bound;
+        if (bestOutcome <= originalAlpha) {
+            bound = TranspositionTable.UPPER_BOUND;
+        } else if (bestOutcome >= beta) {
+            bound = TranspositionTable.LOWER_BOUND;
+        } else {
+            bound = TranspositionTable.EXACT;
+        }
+        int emptyCells = searchBoard.getNumberRows() * numberColumns - searchBoard.getNumberTokens();
+        transpositionTable.store(key, Math.min(emptyCells, MAX_STORED_DEPTH), bestOutcome, bound,
+                searchBoard.canonicalColumn(bestMove));
+        return bestOutcome;
+    }
+
+    /**
+     * This method plays a column, finds the outcome of the resulting position and takes the move back.
+     * The column cannot win at once, as negamax returns before trying the columns when one does.
+     * @param col the column to play, which must be a valid move.
+     * @param side the index of the player to move.
+     * @param alpha the outcome the player to move is already guaranteed.
+     * @param beta the outcome the opponent is already guaranteed.
+     * @return the outcome of the move for the player to move.
+     */
+    private int solveMove(int col, int side, int alpha, int beta) {
+        searchBoard.play(col, tokens[side]);
+        int outcome = -negamax(1 - side, -beta, -alpha);
+        searchBoard.undo();
+        return outcome;
+    }
+
+
+}
@@ -0,0 +1,68 @@
+/**
+ * This class measures how the parallel search of the robot scales with the number of threads.
+ * For every number of threads from 1 to the given maximum, it searches all the positions of
+ * BenchmarkPositions with a fresh transposition table and prints one line with the total time,
+ * the number of positions visited, the positions per second and the speedup over one thread.
+ * A first single-thread pass is run and discarded, so that the code is compiled by the JIT
+ * before the measures start.
+ * Usage: java SpeedupReport [maxThreads] [depth] [transpositionTableMb]
+ */
+public class SpeedupReport {
+
+    /**
+     * Private constructor, as the class only holds static members.
+     */
+    private SpeedupReport() {
+    }
+
+    /**
+     * Runs the report.
+     * @param args the maximum number of threads (default: the available processors),
+     *             the search depth (default 12) and the transposition table size in megabytes (default 64).
+     */
+    public static void main(String[] args) {
+        int maxThreads = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int depth = (args.length > 1) ? Integer.parseInt(args[1]) : 12;
+        int transpositionTableMb = (args.length > 2) ? Integer.parseInt(args[2]) : 64;
+        Token first = new Token(BoardGui.humanPlayerSymbol);
+        Token second = new Token(BoardGui.robotPlayerSymbol);
+
+        searchAll(new ParallelSearch(new TranspositionTable(transpositionTableMb), 1), depth, first, second);
+
+        System.out.println("threads,millis,nodes,nodesPerSecond,speedup");
+        double singleThreadMillis = 0;
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            ParallelSearch search = new ParallelSearch(new TranspositionTable(transpositionTableMb), threads);
+            long start = System.nanoTime();
+            long nodes = searchAll(search, depth, first, second);
+            double millis = (System.nanoTime() - start) / 1e6;
+            search.shutdown();
+            if (threads == 1) {
+                singleThreadMillis = millis;
+            }
+            System.out.printf("%d,%.1f,%d,%.0f,%.2f%n", threads, millis, nodes,
+                    nodes / (millis / 1000.0), singleThreadMillis / millis);
+        }
+    }
+
+    /**
+     * This method searches all the benchmark positions.
+     * @param search the search to use.
+     * @param depth the search depth.
+     * @param first the token of the player who moves first.
+     * @param second the token of the other player.
+     * @return the number of positions visited on all the threads.
+     */
+    private static long searchAll(ParallelSearch search, int depth, Token first, Token second) {
+        long nodes = 0;
+        for (String moves : BenchmarkPositions.MID_GAME) {
+            Board board = BenchmarkPositions.boardOf(moves, first, second);
+            Token token = BenchmarkPositions.toMove(moves, first, second);
+            search.search(board, token, (token == first) ? second : first, depth);
+            nodes += search.getNodes();
+        }
+        return nodes;
+    }
+
+
+}
@@ -0,0 +1,199 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class plays a batch of games between two players without the GUI, spread over a thread pool.
+ * The players take turns in moving first. Each game is written to the output file as one JSON
+ * line as soon as it is over, and at the end the tool prints the wins, draws and losses, the
+ * length of the games and the time the players spent choosing their columns.
+ * Usage: java Tournament games threads playerA playerB [output]
+ * where the players are described as in PlayerFactory.parse, for example robot:8 or robot:42:100.
+ * The games are played on the board chosen with the connectfour.variant system property,
+ * and they are also appended to the game log given with the connectfour.gameLog property, if set.
+ */
+public class Tournament {
+
+    // Fields
+    /** The factories of player A and player B. */
+    private final PlayerFactory[] factories;
+    /** The number of games won by player A and player B. */
+    private final long[] wins = new long[2];
+    /** The number of drawn games. */
+    private long draws = 0;
+    /** The number of games lost by playing a column that cannot be played. */
+    private long forfeits = 0;
+    /** The number of games played. */
+    private long gamesPlayed = 0;
+    /** The number of moves of all the games. */
+    private long totalMoves = 0;
+    /** The time player A and player B spent choosing each column. */
+    private final LatencyHistogram[] latencies = {new LatencyHistogram(), new LatencyHistogram()};
+    /** The writer of the results, one JSON line per game. */
+    private final Writer output;
+    /** The game log where the games are appended, or null. */
+    private GameLogWriter gameLog;
+
+    // Constructor
+    /**
+     * Constructor for the Tournament class.
+     * @param playerA the factory of player A.
+     * @param playerB the factory of player B.
+     * @param output the writer of the results, one JSON line per game.
+     */
+    public Tournament(PlayerFactory playerA, PlayerFactory playerB, Writer output) {
+        this.factories = new PlayerFactory[] {playerA, playerB};
+        this.output = output;
+    }
+
+    // Methods
+    /**
+     * Runs the tournament from the command line.
+     * @param args the number of games, the number of threads, the descriptions of the two players
+     *             and the output file (default tournament.jsonl).
+     * @throws IOException if the output file cannot be written.
+     * @throws InterruptedException if the tool is interrupted while waiting for the games.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 4) {
+            System.out.println("Usage: java Tournament games threads playerA playerB [output]");
+            return;
+        }
+        int games = Integer.parseInt(args[0]);
+        int threads = Integer.parseInt(args[1]);
+        PlayerFactory playerA = PlayerFactory.parse(args[2]);
+        PlayerFactory playerB = PlayerFactory.parse(args[3]);
+        Path outputPath = Paths.get((args.length > 4) ? args[4] : "tournament.jsonl");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(outputPath);
+             GameLogWriter gameLog = GameLogWriter.fromProperty()) {
+            Tournament tournament = new Tournament(playerA, playerB, writer);
+            tournament.setGameLog(gameLog);
+            long start = System.nanoTime();
+            tournament.play(games, threads);
+            System.out.printf("%s vs %s on %s, %.1f s%n", args[2], args[3], Board.fromVariantProperty().getVariant(),
+                    (System.nanoTime() - start) / 1e9);
+            System.out.print(tournament.summary());
+        }
+    }
+
+    /**
+     * This method sets the game log where the games are appended.
+     * @param gameLog the game log, or null to not log the games.
+     */
+    public void setGameLog(GameLogWriter gameLog) {
+        this.gameLog = gameLog;
+    }
+
+    /**
+     * This method plays the games on a thread pool and waits for all of them to be over.
+     * Player A moves first in the even games and player B in the odd games.
+     * @param games the number of games.
+     * @param threads the number of threads.
+     * @throws InterruptedException if the thread is interrupted while waiting for the games.
+     */
+    public void play(int games, int threads) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < games; i++) {
+                int gameIndex = i;
+                futures.add(pool.submit(() -> playGame(gameIndex)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A game failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * This method returns a summary of the results of the games played so far.
+     * @return the summary, on several lines.
+     */
+    public synchronized String summary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("games %d: A wins %d, B wins %d, draws %d, forfeits %d, average length %.1f moves%n",
+                gamesPlayed, wins[0], wins[1], draws, forfeits, (gamesPlayed > 0) ? (double) totalMoves / gamesPlayed : 0));
+        for (int player = 0; player < 2; player++) {
+            LatencyHistogram latency = latencies[player];
+            summary.append(String.format("player %s: %d moves, latency mean %.3f ms, p50 < %.3f ms, p99 < %.3f ms, max %.3f ms%n",
+                    (player == 0) ? "A" : "B", latency.getCount(), latency.getMeanMillis(),
+                    latency.percentileMillis(0.50), latency.percentileMillis(0.99), latency.getMaxMillis()));
+        }
+        return summary.toString();
+    }
+
+    /**
+     * This method plays one game and records its result.
+     * @param gameIndex the index of the game.
+     */
+    private void playGame(int gameIndex) {
+        // side 0 moves first, player A is on side 0 in the even games
+        int sideA = gameIndex % 2;
+        PlayerFactory first = (sideA == 0) ? factories[0] : factories[1];
+        PlayerFactory second = (sideA == 0) ? factories[1] : factories[0];
+        HeadlessGame game = new HeadlessGame(first, new Token(BoardGui.humanPlayerSymbol),
+                second, new Token(BoardGui.robotPlayerSymbol));
+        game.play();
+        record(gameIndex, sideA, game);
+    }
+
+    /**
+     * This method adds the result of a game to the statistics and writes it to the output.
+     * @param gameIndex the index of the game.
+     * @param sideA the side of player A in the game, 0 if it moved first.
+     * @param game the game that is over.
+     */
+    private synchronized void record(int gameIndex, int sideA, HeadlessGame game) {
+        int result = game.getResult();
+        String winner;
+        if (result == HeadlessGame.DRAW) {
+            draws++;
+            winner = "draw";
+        } else {
+            // the side of the winner is the result
+            int winnerPlayer = (result == sideA) ? 0 : 1;
+            wins[winnerPlayer]++;
+            winner = (winnerPlayer == 0) ? "A" : "B";
+        }
+        if (game.isForfeit()) {
+            forfeits++;
+        }
+        gamesPlayed++;
+        totalMoves += game.getMoves().length();
+        for (int move = 0; move < game.getNumberChoices(); move++) {
+            int player = (move % 2 == sideA) ? 0 : 1;
+            latencies[player].record(game.getMoveNanos(move));
+        }
+
+        int sideB = 1 - sideA;
+        try {
+            output.write(String.format("{\"game\":%d,\"first\":\"%s\",\"winner\":\"%s\",\"forfeit\":%b,\"moves\":\"%s\","
+                            + "\"length\":%d,\"thinkingMillisA\":%.3f,\"thinkingMillisB\":%.3f,"
+                            + "\"maxMoveMillisA\":%.3f,\"maxMoveMillisB\":%.3f}%n",
+                    gameIndex, (sideA == 0) ? "A" : "B", winner, game.isForfeit(), game.getMoves(),
+                    game.getMoves().length(), game.getTotalNanos(sideA) / 1e6, game.getTotalNanos(sideB) / 1e6,
+                    game.getMaxNanos(sideA) / 1e6, game.getMaxNanos(sideB) / 1e6));
+            output.flush();
+            if (gameLog != null) {
+                gameLog.append(game.getGameLogic());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
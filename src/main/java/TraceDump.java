@@ -0,0 +1,79 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+
+/**
+ * This class reads a binary trace file written by BinaryFileEventSink, for example with
+ * -Dconnectfour.trace=games.c4trace (see GameTrace).
+ * Usage: java TraceDump file [game]
+ * prints the number of events of each type, or the events of one game (numbered from 1) with their time
+ * in milliseconds since the trace started, as sentences (see ConsoleEventSink).
+ */
+public class TraceDump {
+
+    /**
+     * Private constructor, as the class only holds static members.
+     */
+    private TraceDump() {
+    }
+
+    /**
+     * Runs the tool.
+     * @param args the path of the trace file, and optionally the number of the game to print.
+     * @throws IOException if the file cannot be read or is not a trace file.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java TraceDump file [game]");
+            return;
+        }
+        int game = (args.length > 1) ? Integer.parseInt(args[1]) : -1;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(Paths.get(args[0]))))) {
+            if (in.readInt() != BinaryFileEventSink.MAGIC || in.readInt() != BinaryFileEventSink.VERSION) {
+                throw new IOException("Not a trace file: " + args[0]);
+            }
+            long startMillis = in.readLong();
+            System.out.println("Trace started at " + Instant.ofEpochMilli(startMillis));
+            long[] counts = new long[GameEventSink.MOVE_UNDONE + 1];
+            long events = 0;
+            long lastNanos = 0;
+            while (true) {
+                long nanos;
+                try {
+                    nanos = in.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
+                int eventGame = in.readInt();
+                int type = in.readByte();
+                int side = in.readByte();
+                int column = in.readByte();
+                int row = in.readByte();
+                int value = in.readInt();
+                int score = in.readInt();
+                events++;
+                lastNanos = nanos;
+                if (type > 0 && type < counts.length) {
+                    counts[type]++;
+                }
+                if (eventGame == game) {
+                    System.out.printf("%10.3f ms  %s%n", nanos / 1e6,
+                            ConsoleEventSink.describe(type, eventGame, side, column, row, value, score));
+                }
+            }
+            if (game == -1) {
+                System.out.printf("%d events over %.3f s: %d games started, %d moves, %d invalid moves, "
+                                + "%d moves taken back, %d robot decisions, %d games ended%n", events, lastNanos / 1e9,
+                        counts[GameEventSink.GAME_STARTED], counts[GameEventSink.MOVE],
+                        counts[GameEventSink.INVALID_MOVE], counts[GameEventSink.MOVE_UNDONE],
+                        counts[GameEventSink.ROBOT_DECISION], counts[GameEventSink.GAME_ENDED]);
+            }
+        }
+    }
+
+
+}
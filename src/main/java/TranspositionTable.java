@@ -0,0 +1,196 @@
+import java.util.Arrays;
+
+/**
+ * This class represents the transposition table used by the search engine.
+ * It remembers the result of the positions already searched, indexed by the 64-bit key
+ * of the position, so that a position reached through a different order of moves
+ * does not need to be searched again. The search engine uses the canonical key of the
+ * positions (see Board.getCanonicalKey), so a position and its mirror image share one entry.
+ * The table has a fixed size, set in megabytes, and it is backed by two arrays of longs,
+ * so it never allocates after it is created. Each entry is stored as two longs:
+ * the data of the entry packed in a long, and the key of the position xor the data.
+ * A probe only accepts an entry if the xor of the two longs gives back the key, so an
+ * entry that was half written by another thread is detected and ignored.
+ * <p>
+ * The data of an entry is packed as follows:
+ * <pre>
+ *   bits  0-31  score
+ *   bits 32-39  depth
+ *   bits 40-41  bound type (EXACT, LOWER_BOUND or UPPER_BOUND, never 0)
+ *   bits 42-49  best move + 1 (0 when there is no best move)
+ *   bits 50-57  generation of the search that stored the entry
+ * </pre>
+ * Replacement policy: the entries are grouped in buckets of two slots. The first slot
+ * is depth-preferred: a new entry replaces it if it is for the same position, if it was
+ * searched at least as deep as the stored one, or if the stored one was written by an
+ * older search. Otherwise the new entry goes into the second slot, which is always replaced.
+ * This keeps the expensive deep results while the shallow ones keep circulating.
+ */
+public class TranspositionTable {
+
+    // Fields
+    /** The bound type of an exact score. */
+    public static final int EXACT = 1;
+    /** The bound type of a score that is at least the stored score. */
+    public static final int LOWER_BOUND = 2;
+    /** The bound type of a score that is at most the stored score. */
+    public static final int UPPER_BOUND = 3;
+    /** The number of bytes used by each entry, a key and a data long. */
+    private static final int ENTRY_BYTES = 16;
+    /** The keys of the positions, each one xor the data of its entry. */
+    private final long[] keys;
+    /** The packed data of the entries. */
+    private final long[] data;
+    /** The mask used to turn a key into the index of a bucket. */
+    private final int bucketMask;
+    /** The generation of the current search, used to age the entries of the older searches. */
+    private int generation = 0;
+
+    // Constructor
+    /**
+     * Constructor for the TranspositionTable class.
+     * The number of entries is the largest power of two that fits in the given size.
+     * @param sizeMb the size of the table in megabytes, at least 1.
+     */
+    public TranspositionTable(int sizeMb) {
+        if (sizeMb < 1) {
+            throw new IllegalArgumentException("The size of the transposition table must be at least 1 MB");
+        }
+        long entries = Long.highestOneBit(Math.min((long) sizeMb * 1024 * 1024 / ENTRY_BYTES, 1L << 30));
+        keys = new long[(int) entries];
+        data = new long[(int) entries];
+        bucketMask = (int) (entries / 2 - 1);
+    }
+
+    // Methods
+    /**
+     * This method starts a new search, so that the entries stored by the previous
+     * searches can be replaced by the new ones regardless of their depth.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * This method removes all the entries from the table.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+    }
+
+    /**
+     * This method returns the number of entries of the table.
+     * @return the number of entries.
+     */
+    public int getNumberEntries() {
+        return data.length;
+    }
+
+    /**
+     * This method looks for a position in the table.
+     * @param key the key of the position.
+     * @return the packed data of the entry, or 0 if the position is not in the table.
+     */
+    public long probe(long key) {
+        int slot = bucketIndex(key);
+        for (int i = slot; i < slot + 2; i++) {
+            long entry = data[i];
+            if (entry != 0 && (keys[i] ^ entry) == key) {
+                return entry;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * This method stores the result of a search in the table, following the replacement policy.
+     * @param key the key of the position.
+     * @param depth the depth the position was searched to.
+     * @param score the score of the position.
+     * @param bound the bound type of the score.
+     * @param bestMove the best move found, or -1 if there is none.
+     */
+    public void store(long key, int depth, int score, int bound, int bestMove) {
+        long entry = (score & 0xFFFFFFFFL)
+                | ((long) (depth & 0xFF) << 32)
+                | ((long) bound << 40)
+                | ((long) ((bestMove + 1) & 0xFF) << 42)
+                | ((long) generation << 50);
+        int slot = bucketIndex(key);
+        long stored = data[slot];
+        if (stored == 0 || (keys[slot] ^ stored) == key || depth >= depthOf(stored)
+                || generationOf(stored) != generation) {
+            write(slot, key, entry);
+        } else {
+            write(slot + 1, key, entry);
+        }
+    }
+
+    /**
+     * This method returns the score of an entry.
+     * @param entry the packed data of the entry.
+     * @return the score.
+     */
+    public static int scoreOf(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * This method returns the depth of an entry.
+     * @param entry the packed data of the entry.
+     * @return the depth.
+     */
+    public static int depthOf(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    /**
+     * This method returns the bound type of an entry.
+     * @param entry the packed data of the entry.
+     * @return EXACT, LOWER_BOUND or UPPER_BOUND.
+     */
+    public static int boundOf(long entry) {
+        return (int) (entry >>> 40) & 0x3;
+    }
+
+    /**
+     * This method returns the best move of an entry.
+     * @param entry the packed data of the entry.
+     * @return the best move, or -1 if there is none.
+     */
+    public static int moveOf(long entry) {
+        return ((int) (entry >>> 42) & 0xFF) - 1;
+    }
+
+    /**
+     * This method returns the generation of the search that stored an entry.
+     * @param entry the packed data of the entry.
+     * @return the generation.
+     */
+    private static int generationOf(long entry) {
+        return (int) (entry >>> 50) & 0xFF;
+    }
+
+    /**
+     * This method returns the index of the first slot of the bucket of a key.
+     * @param key the key of the position.
+     * @return the index of the first slot.
+     */
+    private int bucketIndex(long key) {
+        return ((int) key & bucketMask) << 1;
+    }
+
+    /**
+     * This method writes an entry in a slot.
+     * @param slot the index of the slot.
+     * @param key the key of the position.
+     * @param entry the packed data of the entry.
+     */
+    private void write(int slot, long key, long entry) {
+        keys[slot] = key ^ entry;
+        data[slot] = entry;
+    }
+
+
+}